@@ -0,0 +1,31 @@
+package club.emperorws.orm.starter.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 带GC profiler运行基准测试，同时输出ns/op与gc.alloc.rate.norm（B/op）
+ * <p>参数为需要运行的基准测试正则，不传则运行全部</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 11:00
+ * @description: BenchmarkRunner: 带GC profiler运行基准测试
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include("club.emperorws.orm.starter.benchmark.*");
+        } else {
+            for (String include : args) {
+                builder.include(include);
+            }
+        }
+        Options options = builder.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,52 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.starter.datasource.DataSourceContextHolder;
+import club.emperorws.orm.starter.datasource.DynamicDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DynamicDataSource的数据源路由开销（不获取真实连接）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:45
+ * @description: DynamicDataSourceBenchmark: DynamicDataSource的数据源路由开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DynamicDataSourceBenchmark {
+
+    private DynamicDataSource dynamicDataSource;
+
+    @Setup
+    public void setUp() {
+        Map<Object, DataSource> dataSourceMap = new HashMap<>();
+        dataSourceMap.put("master", new JdbcDataSource());
+        dataSourceMap.put("slave", new JdbcDataSource());
+        dynamicDataSource = new DynamicDataSource(dataSourceMap, "master");
+    }
+
+    @Benchmark
+    public DataSource defaultRouting() {
+        return dynamicDataSource.getDataSource();
+    }
+
+    @Benchmark
+    public DataSource explicitRouting() {
+        DataSourceContextHolder.setDbType("slave");
+        try {
+            return dynamicDataSource.getDataSource();
+        } finally {
+            DataSourceContextHolder.clearDbType();
+        }
+    }
+}
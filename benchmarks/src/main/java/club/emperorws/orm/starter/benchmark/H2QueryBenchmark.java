@@ -0,0 +1,76 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.defaults.DefaultSqlSessionFactory;
+import club.emperorws.orm.starter.benchmark.entity.BenchStudent;
+import club.emperorws.orm.starter.benchmark.mapper.BenchStudentMapper;
+import club.emperorws.orm.starter.benchmark.support.H2Database;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内嵌H2上的端到端查询：经过starter的Mapper查询 vs 同一连接池上的原生JDBC
+ * <p>两者之差即为starter + my-orm在单次查询上增加的开销</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:55
+ * @description: H2QueryBenchmark: 内嵌H2上的端到端查询开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class H2QueryBenchmark {
+
+    private static final String SQL = "select id, name from student where id = #{id}";
+
+    private HikariDataSource dataSource;
+
+    private BenchStudentMapper studentMapper;
+
+    private SqlSource sqlSource;
+
+    @Setup
+    public void setUp() {
+        dataSource = H2Database.createDataSource("h2QueryBenchmark");
+        SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(new DefaultSqlSessionFactory(H2Database.createConfiguration(dataSource)));
+        studentMapper = sqlSessionProxyBean.getMapper(BenchStudentMapper.class);
+        sqlSource = new SqlSource.Builder(SQL).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<BenchStudent> starterSelect() {
+        return studentMapper.selectList(sqlSource, nextId());
+    }
+
+    @Benchmark
+    public String jdbcSelect() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select id, name from student where id = ?")) {
+            statement.setInt(1, nextId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(2) : null;
+            }
+        }
+    }
+
+    private static int nextId() {
+        return ThreadLocalRandom.current().nextInt(H2Database.ROW_COUNT) + 1;
+    }
+}
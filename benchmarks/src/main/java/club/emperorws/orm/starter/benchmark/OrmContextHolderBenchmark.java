@@ -0,0 +1,59 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrmContextHolder的资源查找、绑定开销
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:40
+ * @description: OrmContextHolderBenchmark: OrmContextHolder的资源查找、绑定开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class OrmContextHolderBenchmark {
+
+    private final Object boundKey = new Object();
+
+    private final Object unboundKey = new Object();
+
+    private final Object value = new Object();
+
+    @Setup
+    public void setUp() {
+        OrmContextHolder.bindResource(boundKey, value);
+    }
+
+    @TearDown
+    public void tearDown() {
+        OrmContextHolder.unbindResourceIfPossible(boundKey);
+    }
+
+    @Benchmark
+    public Object getResourceHit() {
+        return OrmContextHolder.getResource(boundKey);
+    }
+
+    @Benchmark
+    public Object getResourceMiss() {
+        return OrmContextHolder.getResource(unboundKey);
+    }
+
+    @Benchmark
+    public Object bindAndUnbindResource() {
+        OrmContextHolder.bindResource(unboundKey, value);
+        return OrmContextHolder.unbindResource(unboundKey);
+    }
+
+    @Benchmark
+    public boolean isActualTransactionActive() {
+        return OrmContextHolder.isActualTransactionActive();
+    }
+}
@@ -0,0 +1,77 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.starter.benchmark.support.ReflectiveSqlSessionProxy;
+import club.emperorws.orm.starter.benchmark.support.StubSqlSessionFactory;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqlSessionProxyBean分发方式对比：直接调用 vs 旧版JDK动态代理反射调用
+ * <p>SqlSessionFactory为空实现，测出来的只有starter自身的分发、Session获取/提交/关闭开销</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 9:55
+ * @description: SqlSessionDispatchBenchmark: SqlSessionProxyBean分发方式对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SqlSessionDispatchBenchmark {
+
+    private SqlSessionProxyBean directSqlSession;
+
+    private SqlSession reflectiveSqlSession;
+
+    private SqlSource sqlSource;
+
+    private Object parameter;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration();
+        StubSqlSessionFactory sqlSessionFactory = new StubSqlSessionFactory(configuration);
+        directSqlSession = new SqlSessionProxyBean(sqlSessionFactory);
+        reflectiveSqlSession = ReflectiveSqlSessionProxy.create(sqlSessionFactory, directSqlSession.getExecutorType());
+        sqlSource = new SqlSource.Builder("select * from student where id = #{id}").build();
+        parameter = 1;
+    }
+
+    @Benchmark
+    public Object directSelectOne() {
+        return directSqlSession.selectOne(sqlSource, parameter);
+    }
+
+    @Benchmark
+    public Object reflectiveSelectOne() {
+        return reflectiveSqlSession.selectOne(sqlSource, parameter);
+    }
+
+    @Benchmark
+    public List<Object> directSelectList() {
+        return directSqlSession.selectList(sqlSource, parameter);
+    }
+
+    @Benchmark
+    public List<Object> reflectiveSelectList() {
+        return reflectiveSqlSession.selectList(sqlSource, parameter);
+    }
+
+    @Benchmark
+    public int directInsert() {
+        return directSqlSession.insert(sqlSource, parameter);
+    }
+
+    @Benchmark
+    public int reflectiveInsert() {
+        return reflectiveSqlSession.insert(sqlSource, parameter);
+    }
+}
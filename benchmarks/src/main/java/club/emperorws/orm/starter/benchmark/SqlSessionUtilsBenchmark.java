@@ -0,0 +1,80 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.starter.benchmark.support.StubSqlSessionFactory;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.SqlSessionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqlSessionUtils的getSqlSession/closeSqlSession开销（有事务管理与无事务管理两种情况）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:35
+ * @description: SqlSessionUtilsBenchmark: SqlSessionUtils的Session获取/关闭开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SqlSessionUtilsBenchmark {
+
+    @State(Scope.Thread)
+    public static class UnmanagedState {
+
+        StubSqlSessionFactory sqlSessionFactory;
+
+        ExecutorType executorType;
+
+        @Setup
+        public void setUp() {
+            sqlSessionFactory = new StubSqlSessionFactory(new Configuration());
+            executorType = sqlSessionFactory.getConfiguration().getDefaultExecutorType();
+        }
+    }
+
+    /**
+     * 事务已开启，且SqlSession已经绑定到当前线程
+     */
+    @State(Scope.Thread)
+    public static class ManagedState extends UnmanagedState {
+
+        @Setup
+        public void bind() {
+            TransactionManagerProxyBean.me().startTransaction();
+            SqlSessionUtils.getSqlSession(sqlSessionFactory, executorType);
+        }
+
+        @TearDown
+        public void unbind() {
+            TransactionManagerProxyBean.me().endTransaction();
+        }
+    }
+
+    @Benchmark
+    public SqlSession unmanagedGetAndClose(UnmanagedState state) {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(state.sqlSessionFactory, state.executorType);
+        SqlSessionUtils.closeSqlSession(sqlSession, state.sqlSessionFactory);
+        return sqlSession;
+    }
+
+    @Benchmark
+    public SqlSession managedGetAndClose(ManagedState state) {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(state.sqlSessionFactory, state.executorType);
+        SqlSessionUtils.closeSqlSession(sqlSession, state.sqlSessionFactory);
+        return sqlSession;
+    }
+
+    @Benchmark
+    public boolean isSqlSessionManaged(ManagedState state) {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(state.sqlSessionFactory, state.executorType);
+        boolean managed = SqlSessionUtils.isSqlSessionManaged(sqlSession, state.sqlSessionFactory);
+        SqlSessionUtils.closeSqlSession(sqlSession, state.sqlSessionFactory);
+        return managed;
+    }
+}
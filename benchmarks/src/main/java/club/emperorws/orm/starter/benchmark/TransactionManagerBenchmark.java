@@ -0,0 +1,69 @@
+package club.emperorws.orm.starter.benchmark;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.starter.benchmark.support.StubSqlSessionFactory;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionManagerProxyBean完整事务生命周期（开启、执行、提交、结束）的开销
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:50
+ * @description: TransactionManagerBenchmark: 事务生命周期的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TransactionManagerBenchmark {
+
+    private SqlSessionProxyBean sqlSessionProxyBean;
+
+    private SqlSource sqlSource;
+
+    @Setup
+    public void setUp() {
+        sqlSessionProxyBean = new SqlSessionProxyBean(new StubSqlSessionFactory(new Configuration()));
+        sqlSource = new SqlSource.Builder("update student set name = #{name} where id = 1").build();
+    }
+
+    @Benchmark
+    public int transactionalUpdate() {
+        TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+        transactionManager.startTransaction();
+        try {
+            int count = sqlSessionProxyBean.update(sqlSource, "a");
+            transactionManager.commit();
+            return count;
+        } finally {
+            transactionManager.endTransaction();
+        }
+    }
+
+    @Benchmark
+    public int transactionalThreeUpdates() {
+        TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+        transactionManager.startTransaction();
+        try {
+            int count = sqlSessionProxyBean.update(sqlSource, "a");
+            count += sqlSessionProxyBean.update(sqlSource, "b");
+            count += sqlSessionProxyBean.update(sqlSource, "c");
+            transactionManager.commit();
+            return count;
+        } finally {
+            transactionManager.endTransaction();
+        }
+    }
+
+    @Benchmark
+    public int nonTransactionalUpdate() {
+        return sqlSessionProxyBean.update(sqlSource, "a");
+    }
+}
@@ -0,0 +1,36 @@
+package club.emperorws.orm.starter.benchmark.entity;
+
+import club.emperorws.orm.annotations.AnnModel;
+
+/**
+ * 表名：基准测试学生表
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:20
+ * @description: BenchStudent: 基准测试学生表
+ */
+@AnnModel.Table(tableName = "student", pkName = "id")
+public class BenchStudent {
+
+    @AnnModel.AnnField(column = "id", property = "id", jdbcType = "INTEGER")
+    private Integer id;
+
+    @AnnModel.AnnField(column = "name", property = "name", jdbcType = "VARCHAR")
+    private String name;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
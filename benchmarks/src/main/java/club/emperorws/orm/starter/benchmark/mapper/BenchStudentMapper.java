@@ -0,0 +1,21 @@
+package club.emperorws.orm.starter.benchmark.mapper;
+
+import club.emperorws.orm.annotations.Param;
+import club.emperorws.orm.annotations.Select;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.starter.benchmark.entity.BenchStudent;
+
+import java.util.List;
+
+/**
+ * BenchStudentMapper
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:22
+ * @description: BenchStudentMapper: 基准测试使用的Mapper
+ */
+public interface BenchStudentMapper {
+
+    @Select(resultType = "club.emperorws.orm.starter.benchmark.entity.BenchStudent")
+    List<BenchStudent> selectList(SqlSource sqlSource, @Param("id") Integer id);
+}
@@ -0,0 +1,89 @@
+package club.emperorws.orm.starter.benchmark.support;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.mapping.Environment;
+import club.emperorws.orm.metadata.TableModelInfoHelper;
+import club.emperorws.orm.starter.datasource.DynamicDataSource;
+import club.emperorws.orm.transaction.jdbc.JdbcTransactionFactory;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试使用的内嵌H2数据库（内存模式）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 10:25
+ * @description: H2Database: 基准测试使用的内嵌H2数据库
+ */
+public class H2Database {
+
+    public static final int ROW_COUNT = 1000;
+
+    private H2Database() {
+        // do nothing
+    }
+
+    /**
+     * 创建H2连接池，并初始化student表数据
+     *
+     * @param name 内存数据库名称
+     * @return 连接池
+     */
+    public static HikariDataSource createDataSource(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(5);
+        HikariDataSource dataSource = new HikariDataSource(config);
+        initSchema(dataSource);
+        return dataSource;
+    }
+
+    /**
+     * 按照test包里MapperProxyBean的方式初始化Configuration，数据源为只有master的DynamicDataSource
+     *
+     * @param dataSource master数据源
+     * @return Configuration
+     */
+    public static Configuration createConfiguration(DataSource dataSource) {
+        Configuration configuration = new Configuration();
+        Map<Object, DataSource> dataSourceMap = new HashMap<>();
+        dataSourceMap.put("master", dataSource);
+        Environment environment = new Environment(new JdbcTransactionFactory(), new DynamicDataSource(dataSourceMap, "master"));
+        configuration.setEnvironment(environment);
+        configuration.addMapperPackages("club.emperorws.orm.starter.benchmark.mapper");
+        TableModelInfoHelper.scanPackageAddTableModelInfo(configuration, "club.emperorws.orm.starter.benchmark.entity");
+        return configuration;
+    }
+
+    private static void initSchema(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists student (id int primary key, name varchar(64))");
+                statement.execute("delete from student");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("insert into student (id, name) values (?, ?)")) {
+                for (int i = 1; i <= ROW_COUNT; i++) {
+                    statement.setInt(1, i);
+                    statement.setString(2, "student-" + i);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("init h2 schema error!", e);
+        }
+    }
+}
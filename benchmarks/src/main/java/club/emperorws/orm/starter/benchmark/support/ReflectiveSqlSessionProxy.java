@@ -0,0 +1,52 @@
+package club.emperorws.orm.starter.benchmark.support;
+
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.session.SqlSessionFactory;
+import club.emperorws.orm.starter.util.SqlSessionUtils;
+import club.emperorws.orm.util.ExceptionUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 旧版SqlSessionProxyBean使用的JDK动态代理 + 反射分发，仅作为基准测试的对照组
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 9:50
+ * @description: ReflectiveSqlSessionProxy: 旧版的反射分发SqlSession代理
+ */
+public class ReflectiveSqlSessionProxy implements InvocationHandler {
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final ExecutorType executorType;
+
+    private ReflectiveSqlSessionProxy(SqlSessionFactory sqlSessionFactory, ExecutorType executorType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.executorType = executorType;
+    }
+
+    public static SqlSession create(SqlSessionFactory sqlSessionFactory, ExecutorType executorType) {
+        return (SqlSession) Proxy.newProxyInstance(SqlSessionFactory.class.getClassLoader(), new Class[]{SqlSession.class}, new ReflectiveSqlSessionProxy(sqlSessionFactory, executorType));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(this.sqlSessionFactory, this.executorType);
+        try {
+            Object result = method.invoke(sqlSession, args);
+            if (!SqlSessionUtils.isSqlSessionManaged(sqlSession, this.sqlSessionFactory)) {
+                sqlSession.commit(true);
+            }
+            return result;
+        } catch (Throwable t) {
+            throw ExceptionUtil.unwrapThrowable(t);
+        } finally {
+            if (sqlSession != null) {
+                SqlSessionUtils.closeSqlSession(sqlSession, this.sqlSessionFactory);
+            }
+        }
+    }
+}
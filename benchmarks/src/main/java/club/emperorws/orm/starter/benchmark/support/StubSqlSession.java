@@ -0,0 +1,182 @@
+package club.emperorws.orm.starter.benchmark.support;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.cursor.Cursor;
+import club.emperorws.orm.mapping.RowBounds;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.result.BatchResult;
+import club.emperorws.orm.result.ResultHandler;
+import club.emperorws.orm.session.SqlSession;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不访问数据库的空SqlSession，用于只测量starter自身的开销
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 9:40
+ * @description: StubSqlSession: 不访问数据库的空SqlSession
+ */
+public class StubSqlSession implements SqlSession {
+
+    private static final Object ROW = new Object();
+
+    private final Configuration configuration;
+
+    public StubSqlSession(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T selectOne(SqlSource sqlSource) {
+        return (T) ROW;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T selectOne(SqlSource sqlSource, Object parameter) {
+        return (T) ROW;
+    }
+
+    @Override
+    public <E> List<E> selectList(SqlSource sqlSource) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <E> List<E> selectList(SqlSource sqlSource, Object parameter) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <E> List<E> selectList(SqlSource sqlSource, Object parameter, RowBounds rowBounds) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(SqlSource sqlSource, String mapKey) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(SqlSource sqlSource, Object parameter, String mapKey) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(SqlSource sqlSource, Object parameter, String mapKey, RowBounds rowBounds) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(SqlSource sqlSource) {
+        return null;
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(SqlSource sqlSource, Object parameter) {
+        return null;
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(SqlSource sqlSource, Object parameter, RowBounds rowBounds) {
+        return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void select(SqlSource sqlSource, Object parameter, ResultHandler handler) {
+        // do nothing
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void select(SqlSource sqlSource, ResultHandler handler) {
+        // do nothing
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void select(SqlSource sqlSource, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+        // do nothing
+    }
+
+    @Override
+    public int insert(SqlSource sqlSource) {
+        return 1;
+    }
+
+    @Override
+    public int insert(SqlSource sqlSource, Object parameter) {
+        return 1;
+    }
+
+    @Override
+    public int update(SqlSource sqlSource) {
+        return 1;
+    }
+
+    @Override
+    public int update(SqlSource sqlSource, Object parameter) {
+        return 1;
+    }
+
+    @Override
+    public int delete(SqlSource sqlSource) {
+        return 1;
+    }
+
+    @Override
+    public int delete(SqlSource sqlSource, Object parameter) {
+        return 1;
+    }
+
+    @Override
+    public void commit() {
+        // do nothing
+    }
+
+    @Override
+    public void commit(boolean force) {
+        // do nothing
+    }
+
+    @Override
+    public void rollback() {
+        // do nothing
+    }
+
+    @Override
+    public void rollback(boolean force) {
+        // do nothing
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public <T> T getMapper(Class<T> type) {
+        return configuration.getMapper(type, this);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return null;
+    }
+}
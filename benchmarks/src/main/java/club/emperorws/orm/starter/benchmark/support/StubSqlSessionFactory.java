@@ -0,0 +1,26 @@
+package club.emperorws.orm.starter.benchmark.support;
+
+import club.emperorws.orm.Configuration;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.session.defaults.DefaultSqlSessionFactory;
+
+/**
+ * 每次都打开一个新的{@link StubSqlSession}的SqlSessionFactory
+ * <p>和真实工厂一样每次openSession都分配新的SqlSession，这样测出来的分配量才和线上的调用路径一致</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 9:44
+ * @description: StubSqlSessionFactory: 不访问数据库的SqlSessionFactory
+ */
+public class StubSqlSessionFactory extends DefaultSqlSessionFactory {
+
+    public StubSqlSessionFactory(Configuration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    public SqlSession openSession(ExecutorType execType) {
+        return new StubSqlSession(getConfiguration());
+    }
+}
@@ -0,0 +1,68 @@
+package club.emperorws.orm.starter.batch;
+
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * 受管理的批量作用域：作用域内通过SqlSessionProxyBean执行的语句使用BATCH类型的SqlSession，每N条语句自动flushStatements，
+ * 避免驱动缓存的批量无限增长
+ * <p>保存在当前线程的{@link club.emperorws.orm.starter.util.OrmContext}中，由TransactionManagerProxyBean.batch开启与结束</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 20:15
+ * @description: BatchScope: 受管理的批量作用域
+ */
+public class BatchScope {
+
+    /**
+     * 默认每1000条语句flush一次
+     */
+    public static final int DEFAULT_FLUSH_EVERY = 1000;
+
+    private final int flushEvery;
+
+    /**
+     * 作用域内使用过的SqlSession（每个SqlSessionFactory一个）
+     */
+    private final Set<SqlSession> sqlSessions = Collections.newSetFromMap(new IdentityHashMap<>(2));
+
+    private final BatchStats stats = new BatchStats();
+
+    private int pending;
+
+    public BatchScope(int flushEvery) {
+        Assert.isTrue(flushEvery > 0, "flushEvery must be greater than 0");
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * 一条语句加入批量后调用，达到flushEvery时flush作用域内所有的SqlSession
+     *
+     * @param sqlSession 执行语句的SqlSession
+     */
+    public void afterStatement(SqlSession sqlSession) {
+        sqlSessions.add(sqlSession);
+        stats.addStatement();
+        if (++pending >= flushEvery) {
+            flushAll();
+        }
+    }
+
+    /**
+     * flush作用域内所有的SqlSession
+     */
+    public void flushAll() {
+        pending = 0;
+        for (SqlSession sqlSession : sqlSessions) {
+            stats.addResults(sqlSession.flushStatements());
+        }
+    }
+
+    public BatchStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,86 @@
+package club.emperorws.orm.starter.batch;
+
+import club.emperorws.orm.result.BatchResult;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * 批量执行的统计结果
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 20:10
+ * @description: BatchStats: 批量执行的统计结果
+ */
+public class BatchStats {
+
+    /**
+     * 加入批量的语句数
+     */
+    private long statementCount;
+
+    /**
+     * flushStatements的次数
+     */
+    private long flushCount;
+
+    /**
+     * 影响的总行数（不包含影响行数未知的语句）
+     */
+    private long updateCount;
+
+    /**
+     * 影响行数未知（{@link Statement#SUCCESS_NO_INFO}）的语句数
+     */
+    private long unknownCount;
+
+    /**
+     * 执行失败（{@link Statement#EXECUTE_FAILED}）的语句数
+     */
+    private long failedCount;
+
+    void addStatement() {
+        this.statementCount++;
+    }
+
+    void addResults(List<BatchResult> results) {
+        this.flushCount++;
+        for (BatchResult result : results) {
+            for (int count : result.getUpdateCounts()) {
+                if (count >= 0) {
+                    this.updateCount += count;
+                } else if (count == Statement.EXECUTE_FAILED) {
+                    this.failedCount++;
+                } else {
+                    this.unknownCount++;
+                }
+            }
+        }
+    }
+
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public long getUnknownCount() {
+        return unknownCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchStats{statementCount=" + statementCount + ", flushCount=" + flushCount + ", updateCount=" + updateCount
+                + ", unknownCount=" + unknownCount + ", failedCount=" + failedCount + '}';
+    }
+}
@@ -0,0 +1,361 @@
+package club.emperorws.orm.starter.batch;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.result.BatchResult;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.session.SqlSessionFactory;
+import club.emperorws.orm.starter.cache.QueryResultCache;
+import club.emperorws.orm.starter.concurrent.OrmExecutors;
+import club.emperorws.orm.starter.datasource.DataSourceContextHolder;
+import club.emperorws.orm.starter.session.proxy.PendingWrite;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import club.emperorws.orm.starter.sharding.ShardingRouter;
+import club.emperorws.orm.starter.util.Assert;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import club.emperorws.orm.starter.util.SqlSourceUtils;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 跨线程合并单行写操作的微批量写入器（事务外使用）
+ * <p>多个线程提交的写操作先进入队列，后台线程在时间窗口（例如2ms）或数量（例如500条）达到上限时取出一批，
+ * 按数据源分组、保持提交顺序，在一个BATCH类型的SqlSession中执行（连续相同的sql由BATCH执行器合并）、只提交一次，再把每条写操作自己的影响行数返回给对应的调用方</p>
+ * <p>调用方增加了最多一个时间窗口的延迟，换取大量并发写入时数据库往返次数与提交次数的成倍减少。
+ * 同一批中的写操作在同一个事务中提交，其中任意一条失败时整批回滚，整批的调用方都会收到异常</p>
+ * <p>写操作按SqlSessionProxyBean的分片规则路由（参数中没有分片键时提交失败），执行成功后失效查询结果缓存，与直接调用SqlSessionProxyBean一致</p>
+ * <p>驱动开启批量重写（例如MySQL的rewriteBatchedStatements=true）时，影响行数可能为{@link java.sql.Statement#SUCCESS_NO_INFO}</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * MicroBatchWriter writer = new MicroBatchWriter(sqlSessionProxyBean, 500, 2, TimeUnit.MILLISECONDS);
+ * CompletableFuture&lt;Integer&gt; future = writer.insert(auditSqlSource, auditLog);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 19:40
+ * @description: MicroBatchWriter: 跨线程合并单行写操作的微批量写入器
+ */
+public class MicroBatchWriter implements Closeable {
+
+    private static final Log log = LogFactory.getLog(MicroBatchWriter.class);
+
+    private final SqlSessionProxyBean sqlSessionProxyBean;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Request> queue;
+
+    private final ExecutorService flusher;
+
+    private volatile boolean closed;
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder writeCount = new LongAdder();
+
+    public MicroBatchWriter(SqlSessionProxyBean sqlSessionProxyBean, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        this(sqlSessionProxyBean, maxBatchSize, maxDelay, unit, maxBatchSize * 20);
+    }
+
+    /**
+     * @param sqlSessionProxyBean SqlSessionProxyBean
+     * @param maxBatchSize        一批最多合并的写操作数
+     * @param maxDelay            第一条写操作最多等待多久
+     * @param unit                等待时间单位
+     * @param queueCapacity       队列容量，队列满时提交失败（背压）
+     */
+    public MicroBatchWriter(SqlSessionProxyBean sqlSessionProxyBean, int maxBatchSize, long maxDelay, TimeUnit unit, int queueCapacity) {
+        Assert.notNull(sqlSessionProxyBean, "Property 'sqlSessionProxyBean' is required");
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+        Assert.isTrue(maxDelay >= 0, "maxDelay must not be negative");
+        this.sqlSessionProxyBean = sqlSessionProxyBean;
+        this.sqlSessionFactory = sqlSessionProxyBean.getSqlSessionFactory();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.flusher = Executors.newSingleThreadExecutor(OrmExecutors.daemonThreadFactory("orm-micro-batch"));
+        this.flusher.execute(this::runLoop);
+    }
+
+    public CompletableFuture<Integer> insert(SqlSource sqlSource, Object parameter) {
+        return submit(PendingWrite.Type.INSERT, sqlSource, parameter);
+    }
+
+    public CompletableFuture<Integer> update(SqlSource sqlSource, Object parameter) {
+        return submit(PendingWrite.Type.UPDATE, sqlSource, parameter);
+    }
+
+    public CompletableFuture<Integer> delete(SqlSource sqlSource, Object parameter) {
+        return submit(PendingWrite.Type.DELETE, sqlSource, parameter);
+    }
+
+    /**
+     * 已经执行的批次数
+     *
+     * @return 批次数
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 已经执行的写操作数
+     *
+     * @return 写操作数
+     */
+    public long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    /**
+     * 停止接收新的写操作，等待队列中的写操作执行完
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        failRemaining(new RejectedExecutionException("MicroBatchWriter is closed"));
+    }
+
+    /*************************************************private function***************************************************/
+
+    private CompletableFuture<Integer> submit(PendingWrite.Type type, SqlSource sqlSource, Object parameter) {
+        Assert.notNull(sqlSource, "Parameter 'sqlSource' is required");
+        OrmContext context = OrmContextHolder.lookupContext();
+        //事务中的写操作必须在事务的连接上执行，不能合并
+        if (context.isActualTransactionActive()) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            try {
+                future.complete(executeDirectly(type, sqlSource, parameter));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("MicroBatchWriter is closed"));
+            return future;
+        }
+        String dbType;
+        try {
+            dbType = resolveDataSource(sqlSource, parameter, context);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        Request request = new Request(new PendingWrite(type, sqlSource, parameter), dbType, future);
+        if (!queue.offer(request)) {
+            future.completeExceptionally(new RejectedExecutionException("MicroBatchWriter queue is full"));
+            return future;
+        }
+        //close可能在上面的检查之后、offer之前执行完，后台线程已经退出；还能从队列中移除说明没有人会处理它
+        if (closed && queue.remove(request)) {
+            future.completeExceptionally(new RejectedExecutionException("MicroBatchWriter is closed"));
+        }
+        return future;
+    }
+
+    /**
+     * 写操作的目标数据源：按分片规则路由，不需要分片时使用当前线程的数据源
+     */
+    private String resolveDataSource(SqlSource sqlSource, Object parameter, OrmContext context) {
+        ShardingRouter router = sqlSessionProxyBean.getShardingRouter();
+        String shard = router == null ? null : router.route(sqlSource, parameter);
+        return shard != null ? shard : context.getDbType();
+    }
+
+    private int executeDirectly(PendingWrite.Type type, SqlSource sqlSource, Object parameter) {
+        switch (type) {
+            case INSERT:
+                return sqlSessionProxyBean.insert(sqlSource, parameter);
+            case UPDATE:
+                return sqlSessionProxyBean.update(sqlSource, parameter);
+            case DELETE:
+                return sqlSessionProxyBean.delete(sqlSource, parameter);
+            default:
+                throw new IllegalStateException("Unknown write type: " + type);
+        }
+    }
+
+    private void runLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(batch, e);
+                return;
+            } catch (Throwable e) {
+                log.error("MicroBatchWriter flush error!", e);
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按数据源分组，每个数据源一个BATCH SqlSession
+     */
+    private void flush(List<Request> batch) {
+        Map<String, List<Request>> byDataSource = new LinkedHashMap<>();
+        for (Request request : batch) {
+            byDataSource.computeIfAbsent(request.dbType, key -> new ArrayList<>()).add(request);
+        }
+        for (Map.Entry<String, List<Request>> entry : byDataSource.entrySet()) {
+            List<Request> requests = entry.getValue();
+            try {
+                flush(entry.getKey(), requests);
+            } catch (Throwable e) {
+                failAll(requests, e);
+            }
+        }
+    }
+
+    /**
+     * 按提交顺序执行，保证同一个调用方的写操作顺序不变；连续相同的sql由BATCH执行器合并为一个批次
+     */
+    private void flush(String dbType, List<Request> requests) {
+        //拿不到静态sql的写操作记为null，提交后清空所有缓存
+        Set<String> sqls = new LinkedHashSet<>();
+        DataSourceContextHolder.setDbType(dbType);
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        try {
+            for (Request request : requests) {
+                sqls.add(SqlSourceUtils.getSql(request.write.getSqlSource()));
+                request.write.executeOn(sqlSession);
+            }
+            List<BatchResult> results = sqlSession.flushStatements();
+            sqlSession.commit(true);
+            batchCount.increment();
+            writeCount.add(requests.size());
+            invalidateCache(sqls);
+            completeAll(requests, results);
+        } catch (RuntimeException e) {
+            sqlSession.rollback(true);
+            throw e;
+        } finally {
+            sqlSession.close();
+            DataSourceContextHolder.clearDbType();
+        }
+    }
+
+    /**
+     * 提交后失效涉及的表的查询缓存，再通知调用方；拿不到sql的写操作（动态sql）清空所有缓存
+     */
+    private void invalidateCache(Set<String> sqls) {
+        QueryResultCache cache = sqlSessionProxyBean.getQueryResultCache();
+        if (cache == null) {
+            return;
+        }
+        if (sqls.contains(null)) {
+            cache.clear();
+            return;
+        }
+        for (String sql : sqls) {
+            cache.invalidate(sql);
+        }
+    }
+
+    private static void completeAll(List<Request> requests, List<BatchResult> results) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            futures.add(request.future);
+        }
+        List<int[]> updateCounts = new ArrayList<>(results.size());
+        for (BatchResult result : results) {
+            updateCounts.add(result.getUpdateCounts());
+        }
+        complete(futures, updateCounts);
+    }
+
+    /**
+     * 批量结果按执行顺序依次对应每个写操作，影响行数不够时其余的写操作失败
+     *
+     * @param futures      按执行顺序排列的写操作
+     * @param updateCounts 每个BatchResult的影响行数
+     */
+    static void complete(List<CompletableFuture<Integer>> futures, List<int[]> updateCounts) {
+        int index = 0;
+        for (int[] counts : updateCounts) {
+            for (int updateCount : counts) {
+                if (index < futures.size()) {
+                    futures.get(index++).complete(updateCount);
+                }
+            }
+        }
+        if (index < futures.size()) {
+            OrmException e = new OrmException("Batch returned " + index + " update counts for " + futures.size() + " statements");
+            for (CompletableFuture<Integer> future : futures.subList(index, futures.size())) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void failAll(List<Request> requests, Throwable e) {
+        for (Request request : requests) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private void failRemaining(Throwable e) {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class Request {
+
+        private final PendingWrite write;
+
+        private final String dbType;
+
+        private final CompletableFuture<Integer> future;
+
+        private Request(PendingWrite write, String dbType, CompletableFuture<Integer> future) {
+            this.write = write;
+            this.dbType = dbType;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package club.emperorws.orm.starter.cache;
+
+import java.util.Objects;
+
+/**
+ * 查询结果缓存的key：sql + 请求参数 + 数据源key
+ * <p>请求参数需要正确实现equals与hashCode（Map、String、数字、实现了equals的JavaBean）</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 18:00
+ * @description: QueryCacheKey: 查询结果缓存的key
+ */
+public final class QueryCacheKey {
+
+    private final String sql;
+
+    private final Object parameter;
+
+    /**
+     * 数据源key，为空表示默认数据源
+     */
+    private final String dataSourceKey;
+
+    private final int hashCode;
+
+    public QueryCacheKey(String sql, Object parameter, String dataSourceKey) {
+        this.sql = sql;
+        this.parameter = parameter;
+        this.dataSourceKey = dataSourceKey;
+        this.hashCode = Objects.hash(sql, parameter, dataSourceKey);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public Object getParameter() {
+        return parameter;
+    }
+
+    public String getDataSourceKey() {
+        return dataSourceKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryCacheKey)) {
+            return false;
+        }
+        QueryCacheKey that = (QueryCacheKey) o;
+        return hashCode == that.hashCode
+                && sql.equals(that.sql)
+                && Objects.equals(parameter, that.parameter)
+                && Objects.equals(dataSourceKey, that.dataSourceKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheKey{sql='" + sql + "', parameter=" + parameter + ", dataSourceKey=" + dataSourceKey + '}';
+    }
+}
@@ -0,0 +1,87 @@
+package club.emperorws.orm.starter.cache;
+
+import club.emperorws.orm.starter.transaction.TransactionSynchronization;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 事务中的写操作涉及的表，在事务提交后失效对应的查询缓存
+ * <p>事务提交前，其他线程可能读到旧数据并重新放入缓存，所以提交后需要再失效一次</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 18:30
+ * @description: QueryCacheSynchronization: 事务提交后失效查询缓存
+ */
+public class QueryCacheSynchronization implements TransactionSynchronization {
+
+    private final QueryResultCache cache;
+
+    private final Set<String> tables = new LinkedHashSet<>();
+
+    /**
+     * 是否有解析不出涉及的表的写操作（例如存储过程），有则提交后清空所有缓存
+     */
+    private boolean allTables;
+
+    public QueryCacheSynchronization(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 记录事务中写操作的sql涉及的表，解析不出涉及的表时提交后清空所有缓存
+     *
+     * @param sql 写操作的sql
+     */
+    public void addWrite(String sql) {
+        Set<String> writeTables = SqlTables.of(sql);
+        if (writeTables.isEmpty()) {
+            allTables = true;
+            return;
+        }
+        tables.addAll(writeTables);
+    }
+
+    @Override
+    public int getOrder() {
+        return 1000;
+    }
+
+    @Override
+    public void commit() {
+        invalidate();
+    }
+
+    @Override
+    public void commit(boolean force) {
+        invalidate();
+    }
+
+    @Override
+    public void rollback() {
+        // do nothing
+    }
+
+    @Override
+    public void rollback(boolean force) {
+        // do nothing
+    }
+
+    @Override
+    public void close() {
+        tables.clear();
+        allTables = false;
+        OrmContextHolder.unbindResourceIfPossible(cache);
+    }
+
+    /*************************************************private function***************************************************/
+
+    private void invalidate() {
+        if (allTables) {
+            cache.clear();
+        } else {
+            cache.invalidateTables(tables);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package club.emperorws.orm.starter.cache;
+
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 进程级的查询结果缓存（二级缓存）
+ * <p>只缓存通过{@link #cacheStatement}登记过的sql，key为sql + 请求参数 + 数据源key。按权重（List的行数，单个对象为1）限制容量，
+ * 超过容量时淘汰最久没有访问的结果（LRU）；每条sql可以设置单独的过期时间</p>
+ * <p>通过SqlSessionProxyBean执行insert、update、delete时，自动失效涉及同一张表的所有缓存；事务中的写操作在提交后再失效一次，
+ * 事务中的查询不使用缓存。缓存的结果被多个线程共享，调用方不应修改</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * QueryResultCache cache = new QueryResultCache(100000);
+ * cache.cacheStatement("select * from t_dict where type = #{type}", 10, TimeUnit.MINUTES);
+ * sqlSessionProxyBean.setQueryResultCache(cache);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 18:15
+ * @description: QueryResultCache: 查询结果缓存
+ */
+public class QueryResultCache {
+
+    private static final Log log = LogFactory.getLog(QueryResultCache.class);
+
+    /**
+     * 缓存的null结果
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * 最大权重
+     */
+    private final long maxWeight;
+
+    /**
+     * 登记的sql与过期时间（纳秒）
+     */
+    private final ConcurrentMap<String, Long> statementTtls = new ConcurrentHashMap<>();
+
+    /**
+     * 每张表的版本号，写操作时递增，用于丢弃写操作之前开始加载的结果
+     */
+    private final ConcurrentMap<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 以下容器都由lock保护
+     */
+    private final Object lock = new Object();
+
+    private final LinkedHashMap<QueryCacheKey, Entry> entries = new LinkedHashMap<>(256, 0.75F, true);
+
+    private final Map<String, Set<QueryCacheKey>> tableIndex = new HashMap<>();
+
+    private long weight;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public QueryResultCache(long maxWeight) {
+        Assert.isTrue(maxWeight > 0, "maxWeight must be greater than 0");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * 登记需要缓存的sql，解析不出涉及的表时拒绝登记（写操作无法失效它的缓存）
+     *
+     * @param sql  sql
+     * @param ttl  过期时间
+     * @param unit 过期时间单位
+     */
+    public void cacheStatement(String sql, long ttl, TimeUnit unit) {
+        Assert.notNull(sql, "Sql must not be null");
+        Assert.isTrue(ttl > 0, "ttl must be greater than 0");
+        Assert.isFalse(SqlTables.of(sql).isEmpty(), "Cannot resolve the tables of sql [{0}], it cannot be cached", sql);
+        statementTtls.put(sql, unit.toNanos(ttl));
+    }
+
+    /**
+     * sql是否登记了缓存
+     *
+     * @param sql sql
+     * @return 是否缓存
+     */
+    public boolean isCacheable(String sql) {
+        return sql != null && statementTtls.containsKey(sql);
+    }
+
+    /**
+     * 获取缓存的结果，没有缓存时加载并放入缓存
+     *
+     * @param key    缓存key
+     * @param loader 没有缓存时执行查询
+     * @return 查询结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(QueryCacheKey key, Supplier<T> loader) {
+        Long ttl = statementTtls.get(key.getSql());
+        if (ttl == null) {
+            return loader.get();
+        }
+        long now = System.nanoTime();
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.expireAt < 0) {
+                    hitCount.increment();
+                    return entry.value == NULL_VALUE ? null : (T) entry.value;
+                }
+                removeEntry(key, entry);
+            }
+        }
+        missCount.increment();
+        Set<String> tables = SqlTables.of(key.getSql());
+        long[] versions = versionsOf(tables);
+        T value = loader.get();
+        put(key, value, tables, versions, System.nanoTime() + ttl);
+        return value;
+    }
+
+    /**
+     * 写操作后失效sql涉及的表的所有缓存，解析不出涉及的表时（例如存储过程）清空所有缓存
+     *
+     * @param sql 写操作的sql
+     */
+    public void invalidate(String sql) {
+        Set<String> tables = SqlTables.of(sql);
+        if (tables.isEmpty()) {
+            clear();
+            return;
+        }
+        invalidateTables(tables);
+    }
+
+    /**
+     * 失效指定表的所有缓存
+     *
+     * @param tables 表名（小写）
+     */
+    public void invalidateTables(Collection<String> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+        for (String table : tables) {
+            versionOf(table).incrementAndGet();
+        }
+        synchronized (lock) {
+            for (String table : tables) {
+                Set<QueryCacheKey> keys = tableIndex.remove(table);
+                if (keys == null) {
+                    continue;
+                }
+                for (QueryCacheKey key : keys) {
+                    Entry entry = entries.get(key);
+                    if (entry != null) {
+                        removeEntry(key, entry);
+                    }
+                }
+            }
+        }
+        log.debug(() -> "Invalidated query cache of tables " + tables);
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        for (AtomicLong version : tableVersions.values()) {
+            version.incrementAndGet();
+        }
+        synchronized (lock) {
+            entries.clear();
+            tableIndex.clear();
+            weight = 0;
+        }
+    }
+
+    public long size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getWeight() {
+        synchronized (lock) {
+            return weight;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /*************************************************private function***************************************************/
+
+    private void put(QueryCacheKey key, Object value, Set<String> tables, long[] versions, long expireAt) {
+        long entryWeight = weigh(value);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        Entry entry = new Entry(value == null ? NULL_VALUE : value, entryWeight, expireAt, tables);
+        synchronized (lock) {
+            //加载期间有写操作，结果可能已经过期，不放入缓存
+            if (!Arrays.equals(versions, versionsOf(tables))) {
+                return;
+            }
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += entryWeight;
+            for (String table : tables) {
+                tableIndex.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+            evictIfNecessary();
+        }
+    }
+
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<QueryCacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<QueryCacheKey, Entry> eldest = iterator.next();
+            iterator.remove();
+            Entry entry = eldest.getValue();
+            weight -= entry.weight;
+            unindex(eldest.getKey(), entry);
+            evictionCount.increment();
+        }
+    }
+
+    private void removeEntry(QueryCacheKey key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+        unindex(key, entry);
+    }
+
+    private void unindex(QueryCacheKey key, Entry entry) {
+        for (String table : entry.tables) {
+            Set<QueryCacheKey> keys = tableIndex.get(table);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                tableIndex.remove(table);
+            }
+        }
+    }
+
+    private long[] versionsOf(Set<String> tables) {
+        long[] versions = new long[tables.size()];
+        int i = 0;
+        for (String table : tables) {
+            versions[i++] = versionOf(table).get();
+        }
+        return versions;
+    }
+
+    private AtomicLong versionOf(String table) {
+        AtomicLong version = tableVersions.get(table);
+        if (version == null) {
+            version = tableVersions.computeIfAbsent(table, t -> new AtomicLong());
+        }
+        return version;
+    }
+
+    private static long weigh(Object value) {
+        if (value instanceof Collection) {
+            return Math.max(1, ((Collection<?>) value).size());
+        }
+        if (value instanceof Map) {
+            return Math.max(1, ((Map<?, ?>) value).size());
+        }
+        return 1;
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long weight;
+
+        private final long expireAt;
+
+        private final Set<String> tables;
+
+        private Entry(Object value, long weight, long expireAt, Set<String> tables) {
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package club.emperorws.orm.starter.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从sql中解析涉及的表名（from、join、into、update之后的表，包括逗号分隔的多张表），用于缓存失效
+ * <p>只做简单的词法匹配，不解析子查询的别名等复杂语法（子查询中的表由子查询自己的from解析）；解析结果按sql缓存。
+ * 解析不出表名的sql返回空集合，调用方需要按无法确定涉及的表处理</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 18:05
+ * @description: SqlTables: 解析sql涉及的表名
+ */
+public final class SqlTables {
+
+    private static final Pattern KEYWORD_PATTERN = Pattern.compile("\\b(?:from|join|into|update)\\s+", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[`\"\\w.]+");
+
+    /**
+     * 表名后面不能作为别名的关键字
+     */
+    private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+            "where", "join", "inner", "left", "right", "full", "cross", "natural", "straight_join", "on", "using",
+            "set", "values", "value", "select", "group", "order", "having", "limit", "offset", "union", "for", "lock",
+            "window", "fetch", "returning", "partition", "force", "use", "ignore"));
+
+    /**
+     * 解析结果的缓存上限，超过后不再缓存（动态拼接的sql）
+     */
+    private static final int MAX_CACHED_SQL = 4096;
+
+    private static final ConcurrentMap<String, Set<String>> CACHE = new ConcurrentHashMap<>();
+
+    private SqlTables() {
+        // do nothing
+    }
+
+    /**
+     * 解析sql涉及的表名，统一转为小写、去掉引号与库名
+     *
+     * @param sql sql
+     * @return 表名
+     */
+    public static Set<String> of(String sql) {
+        if (sql == null) {
+            return Collections.emptySet();
+        }
+        Set<String> tables = CACHE.get(sql);
+        if (tables == null) {
+            tables = parse(sql);
+            if (CACHE.size() < MAX_CACHED_SQL) {
+                CACHE.putIfAbsent(sql, tables);
+            }
+        }
+        return tables;
+    }
+
+    private static Set<String> parse(String sql) {
+        Set<String> tables = new LinkedHashSet<>(4);
+        Matcher keyword = KEYWORD_PATTERN.matcher(sql);
+        Matcher identifier = IDENTIFIER_PATTERN.matcher(sql);
+        while (keyword.find()) {
+            parseTableList(sql, keyword.end(), identifier, tables);
+        }
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * 解析关键字之后的表：table [[as] alias] [, table [[as] alias]]...，子查询跳过（它的表由子查询自己的from解析），遇到关键字或其他符号时结束
+     */
+    private static void parseTableList(String sql, int start, Matcher identifier, Set<String> tables) {
+        int position = start;
+        while (true) {
+            if (position < sql.length() && sql.charAt(position) == '(') {
+                position = skipParentheses(sql, position);
+                if (position < 0) {
+                    return;
+                }
+            } else {
+                String table = identifierAt(sql, position, identifier);
+                if (table == null) {
+                    return;
+                }
+                addTable(table, tables);
+                position = identifier.end();
+            }
+            position = skipWhitespace(sql, position);
+            //可选的as与别名
+            String alias = identifierAt(sql, position, identifier);
+            if (alias != null && !RESERVED_WORDS.contains(alias.toLowerCase(Locale.ENGLISH))) {
+                position = skipWhitespace(sql, identifier.end());
+                if ("as".equalsIgnoreCase(alias)) {
+                    alias = identifierAt(sql, position, identifier);
+                    if (alias != null) {
+                        position = skipWhitespace(sql, identifier.end());
+                    }
+                }
+            }
+            if (position >= sql.length() || sql.charAt(position) != ',') {
+                return;
+            }
+            position = skipWhitespace(sql, position + 1);
+        }
+    }
+
+    /**
+     * position处的标识符，没有时返回null
+     */
+    private static String identifierAt(String sql, int position, Matcher identifier) {
+        if (position >= sql.length()) {
+            return null;
+        }
+        identifier.region(position, sql.length());
+        return identifier.lookingAt() ? identifier.group() : null;
+    }
+
+    /**
+     * 跳过position处的括号
+     *
+     * @return 匹配的右括号之后的位置，括号不匹配时返回-1
+     */
+    private static int skipParentheses(String sql, int position) {
+        int depth = 0;
+        for (int i = position; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String sql, int position) {
+        while (position < sql.length() && Character.isWhitespace(sql.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static void addTable(String identifier, Set<String> tables) {
+        String table = identifier.replace("`", "").replace("\"", "");
+        int dot = table.lastIndexOf('.');
+        if (dot >= 0) {
+            table = table.substring(dot + 1);
+        }
+        if (!table.isEmpty()) {
+            tables.add(table.toLowerCase(Locale.ENGLISH));
+        }
+    }
+}
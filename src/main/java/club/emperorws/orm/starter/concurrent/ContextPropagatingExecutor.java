@@ -0,0 +1,55 @@
+package club.emperorws.orm.starter.concurrent;
+
+import java.util.concurrent.Executor;
+
+import static club.emperorws.orm.starter.util.Assert.notNull;
+
+/**
+ * 提交任务时捕获当前线程Orm上下文，并在执行任务的线程中恢复的Executor
+ * <p>默认只传递数据源key；shareTransaction为true时子线程共享提交任务线程的事务，见{@link OrmContextSnapshot#captureWithTransaction()}</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 13:25
+ * @description: ContextPropagatingExecutor: 传递Orm上下文的Executor
+ */
+public class ContextPropagatingExecutor implements Executor {
+
+    private final Executor delegate;
+
+    /**
+     * 是否共享提交任务线程的事务
+     */
+    private final boolean shareTransaction;
+
+    public ContextPropagatingExecutor(Executor delegate) {
+        this(delegate, false);
+    }
+
+    public ContextPropagatingExecutor(Executor delegate, boolean shareTransaction) {
+        notNull(delegate, "Property 'delegate' is required");
+        this.delegate = delegate;
+        this.shareTransaction = shareTransaction;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.delegate.execute(capture().wrap(command));
+    }
+
+    public Executor getDelegate() {
+        return delegate;
+    }
+
+    public boolean isShareTransaction() {
+        return shareTransaction;
+    }
+
+    /**
+     * 按该线程池的传递方式捕获当前线程的Orm上下文
+     *
+     * @return 快照
+     */
+    public OrmContextSnapshot capture() {
+        return OrmContextSnapshot.capture(this.shareTransaction);
+    }
+}
@@ -0,0 +1,169 @@
+package club.emperorws.orm.starter.concurrent;
+
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 当前线程Orm上下文（绑定的SqlSessionHolder、事务链、事务标识、数据源key）的快照，用于传递到其他线程
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * OrmContextSnapshot snapshot = OrmContextSnapshot.captureDataSourceOnly();
+ * executor.execute(snapshot.wrap(() -&gt; doSomethingDbOperation()));
+ * </pre>
+ * <p>或者手动恢复：</p>
+ * <pre>
+ * OrmContext previous = snapshot.attach();
+ * try {
+ *     doSomethingDbOperation();
+ * } finally {
+ *     OrmContextSnapshot.detach(previous);
+ * }
+ * </pre>
+ * <p>默认只传递数据源key，子线程在自己获取的连接上执行。{@link #captureWithTransaction()}显式共享当前线程的事务：
+ * 子线程与当前线程共享同一个事务的SqlSession，事务仍由当前线程提交、回滚、结束。
+ * 同一个SqlSession（数据库连接）不能被并发使用，当前线程需要等待子线程执行完成后再继续使用该事务</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 13:10
+ * @description: OrmContextSnapshot: 当前线程Orm上下文的快照
+ */
+public final class OrmContextSnapshot {
+
+    /**
+     * 没有任何上下文的快照，子线程执行时也会清空上下文
+     */
+    private static final OrmContextSnapshot EMPTY = new OrmContextSnapshot(null, null);
+
+    /**
+     * 共享事务时捕获的上下文副本，每次attach再从它fork，同一个快照可以被多个线程同时使用；只传递数据源key时为null
+     */
+    private final OrmContext context;
+
+    /**
+     * 只传递数据源key时的数据源key
+     */
+    private final String dbType;
+
+    private OrmContextSnapshot(OrmContext context, String dbType) {
+        this.context = context;
+        this.dbType = dbType;
+    }
+
+    /**
+     * 捕获当前线程完整的Orm上下文，子线程共享当前线程的事务
+     * <p>必须保证子线程执行完成之后，当前线程才继续使用、提交或结束该事务</p>
+     *
+     * @return 快照
+     */
+    public static OrmContextSnapshot captureWithTransaction() {
+        OrmContext current = OrmContextHolder.getContextIfPresent();
+        return current == null ? EMPTY : new OrmContextSnapshot(current.fork(), null);
+    }
+
+    /**
+     * 只捕获当前线程的数据源key，不带事务：子线程在自己获取的SqlSession（连接）上执行，适用于非事务的并发查询
+     *
+     * @return 快照
+     */
+    public static OrmContextSnapshot captureDataSourceOnly() {
+        OrmContext current = OrmContextHolder.getContextIfPresent();
+        if (current == null || current.getDbType() == null) {
+            return EMPTY;
+        }
+        return new OrmContextSnapshot(null, current.getDbType());
+    }
+
+    /**
+     * 按是否共享事务捕获当前线程的Orm上下文
+     *
+     * @param shareTransaction 是否共享当前线程的事务
+     * @return 快照
+     */
+    static OrmContextSnapshot capture(boolean shareTransaction) {
+        return shareTransaction ? captureWithTransaction() : captureDataSourceOnly();
+    }
+
+    /**
+     * 空快照，在子线程中执行时不带任何事务与数据源上下文
+     *
+     * @return 空快照
+     */
+    public static OrmContextSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 把快照绑定到当前线程
+     * <p>只传递数据源key时，每次绑定一个全新的上下文，不同的任务之间不共享资源和事务链，各自开启的事务互不影响</p>
+     *
+     * @return 当前线程原来的上下文，需要在执行结束后通过{@link #detach(OrmContext)}恢复
+     */
+    public OrmContext attach() {
+        return OrmContextHolder.bindContext(newContext());
+    }
+
+    /**
+     * 恢复当前线程原来的上下文
+     *
+     * @param previous {@link #attach()}的返回值
+     */
+    public static void detach(OrmContext previous) {
+        OrmContextHolder.bindContext(previous);
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            OrmContext previous = attach();
+            try {
+                task.run();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    public <V> Callable<V> wrap(Callable<V> task) {
+        return () -> {
+            OrmContext previous = attach();
+            try {
+                return task.call();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    public <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        return () -> {
+            OrmContext previous = attach();
+            try {
+                return task.get();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    /*************************************************private function***************************************************/
+
+    /**
+     * 创建attach时绑定的上下文：共享事务时从捕获的副本fork（副本的资源容器在捕获时已创建，fork不会再修改它），否则创建只带数据源key的全新上下文
+     *
+     * @return 新的上下文
+     */
+    private OrmContext newContext() {
+        if (this.context != null) {
+            return this.context.fork();
+        }
+        if (this.dbType == null) {
+            return null;
+        }
+        OrmContext context = new OrmContext();
+        context.setDbType(this.dbType);
+        return context;
+    }
+}
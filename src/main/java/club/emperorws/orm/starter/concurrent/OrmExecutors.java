@@ -0,0 +1,294 @@
+package club.emperorws.orm.starter.concurrent;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 传递Orm上下文的线程池工具
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * ExecutorService executor = OrmExecutors.wrap(Executors.newFixedThreadPool(8));
+ * // JDK 21+使用虚拟线程，低版本JDK自动退化为普通线程
+ * ExecutorService virtualExecutor = OrmExecutors.newVirtualThreadPerTaskExecutor();
+ * CompletableFuture&lt;List&lt;Student&gt;&gt; future = OrmExecutors.supplyAsync(() -&gt; studentMapper.selectList(sqlSource, "a"), virtualExecutor);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 13:40
+ * @description: OrmExecutors: 传递Orm上下文的线程池工具
+ */
+public class OrmExecutors {
+
+    private static final Log logger = LogFactory.getLog(OrmExecutors.class);
+
+    /**
+     * JDK 21的Executors.newVirtualThreadPerTaskExecutor()，低版本JDK为null
+     */
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    private OrmExecutors() {
+        // do nothing
+    }
+
+    /**
+     * 包装为传递数据源key的线程池，子线程不共享事务
+     *
+     * @param executor 线程池
+     * @return 包装后的线程池
+     */
+    public static Executor wrap(Executor executor) {
+        return wrap(executor, false);
+    }
+
+    /**
+     * 包装为传递Orm上下文的线程池
+     *
+     * @param executor         线程池
+     * @param shareTransaction 子线程是否共享提交任务线程的事务（调用方需要等待子线程完成后才能继续使用该事务）
+     * @return 包装后的线程池
+     */
+    public static Executor wrap(Executor executor, boolean shareTransaction) {
+        if (executor instanceof ContextPropagatingExecutor && ((ContextPropagatingExecutor) executor).isShareTransaction() == shareTransaction) {
+            return executor;
+        }
+        return new ContextPropagatingExecutor(unwrap(executor), shareTransaction);
+    }
+
+    public static ExecutorService wrap(ExecutorService executorService) {
+        return wrap(executorService, false);
+    }
+
+    public static ExecutorService wrap(ExecutorService executorService, boolean shareTransaction) {
+        if (executorService instanceof ContextPropagatingExecutorService) {
+            ContextPropagatingExecutorService wrapped = (ContextPropagatingExecutorService) executorService;
+            if (wrapped.isShareTransaction() == shareTransaction) {
+                return wrapped;
+            }
+            executorService = wrapped.getDelegate();
+        }
+        return new ContextPropagatingExecutorService(executorService, shareTransaction);
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     *
+     * @return 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的线程池（传递Orm上下文）
+     * <p>JDK 21以下不支持虚拟线程，退化为守护线程的CachedThreadPool</p>
+     *
+     * @return 线程池
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        return newVirtualThreadPerTaskExecutor(true);
+    }
+
+    /**
+     * 每个任务一个虚拟线程的线程池
+     * <p>JDK 21以下不支持虚拟线程，退化为守护线程的CachedThreadPool</p>
+     *
+     * @param propagateContext 是否传递提交任务线程的Orm上下文
+     * @return 线程池
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(boolean propagateContext) {
+        ExecutorService executor = null;
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                executor = (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke();
+            } catch (Throwable t) {
+                logger.error("newVirtualThreadPerTaskExecutor error, fall back to platform threads!", t);
+            }
+        }
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(daemonThreadFactory("orm-async"));
+        }
+        return propagateContext ? wrap(executor) : executor;
+    }
+
+    /**
+     * 异步执行，执行线程中带有当前线程的数据源key（线程池通过{@link #wrap(Executor, boolean)}开启了共享事务时也共享事务）
+     *
+     * @param supplier 任务
+     * @param executor 线程池
+     * @return CompletableFuture
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(capture(executor).wrapSupplier(supplier), unwrap(executor));
+    }
+
+    /**
+     * 异步执行，执行线程中带有当前线程的数据源key（线程池通过{@link #wrap(Executor, boolean)}开启了共享事务时也共享事务）
+     *
+     * @param runnable 任务
+     * @param executor 线程池
+     * @return CompletableFuture
+     */
+    public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor) {
+        return CompletableFuture.runAsync(capture(executor).wrap(runnable), unwrap(executor));
+    }
+
+    /**
+     * 有界线程池：固定线程数（空闲时回收）、有界队列，队列满时直接拒绝（RejectedExecutionException），由调用方感知背压
+     *
+     * @param prefix        线程名前缀
+     * @param threads       线程数
+     * @param queueCapacity 等待队列长度
+     * @return 线程池（不传递Orm上下文）
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreadFactory(prefix), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 提交任务并返回CompletableFuture，取消CompletableFuture时会中断正在执行的任务，线程池拒绝时返回异常完成的Future
+     * <p>CompletableFuture.supplyAsync返回的Future取消时不会中断执行线程，所以单独实现</p>
+     *
+     * @param task            任务
+     * @param executorService 线程池
+     * @return CompletableFuture
+     */
+    public static <T> CompletableFuture<T> submitAsync(Callable<T> task, ExecutorService executorService) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        final Future<?> submitted;
+        try {
+            submitted = executorService.submit(() -> {
+                //排队期间已经被取消或超时
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((result, t) -> {
+            if (future.isCancelled()) {
+                submitted.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 等待全部任务完成，任意一个失败或超过截止时间时，取消其余全部任务并抛出异常
+     *
+     * @param futures 任务
+     * @param timeout 总的超时时间
+     * @param unit    超时时间单位
+     * @return 按顺序排列的任务结果
+     */
+    public static <T> List<T> awaitAll(List<CompletableFuture<T>> futures, long timeout, TimeUnit unit) {
+        CompletableFuture<Void> all = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        if (futures.isEmpty()) {
+            all.complete(null);
+        }
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((result, t) -> {
+                if (t != null) {
+                    all.completeExceptionally(t);
+                } else if (remaining.decrementAndGet() == 0) {
+                    all.complete(null);
+                }
+            });
+        }
+        try {
+            all.get(timeout, unit);
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            throw new OrmException("Tasks did not complete within " + unit.toMillis(timeout) + " ms", e);
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new OrmException("Interrupted while waiting for tasks", e);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new OrmException("Task failed", cause);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * 取消全部任务（已完成的任务不受影响）
+     *
+     * @param futures 任务
+     */
+    public static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 守护线程的ThreadFactory，线程名为：前缀-序号
+     *
+     * @param prefix 线程名前缀
+     * @return ThreadFactory
+     */
+    public static ThreadFactory daemonThreadFactory(String prefix) {
+        ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setName(prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*************************************************private function***************************************************/
+
+    /**
+     * 按线程池的传递方式捕获上下文，没有包装过的线程池只传递数据源key
+     */
+    private static OrmContextSnapshot capture(Executor executor) {
+        return executor instanceof ContextPropagatingExecutor ? ((ContextPropagatingExecutor) executor).capture() : OrmContextSnapshot.captureDataSourceOnly();
+    }
+
+    /**
+     * 已经包装过的线程池不再重复捕获上下文
+     */
+    private static Executor unwrap(Executor executor) {
+        return executor instanceof ContextPropagatingExecutor ? ((ContextPropagatingExecutor) executor).getDelegate() : executor;
+    }
+
+    private static MethodHandle findVirtualThreadPerTaskExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
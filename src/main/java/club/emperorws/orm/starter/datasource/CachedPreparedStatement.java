@@ -0,0 +1,85 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 从{@link PreparedStatementCache}取出的语句：close时重置语句状态并放回缓存，之后的调用视为已关闭
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 10:20
+ * @description: CachedPreparedStatement: 关闭时放回缓存的PreparedStatement
+ */
+class CachedPreparedStatement extends DelegatingPreparedStatement {
+
+    private final PreparedStatement statement;
+
+    private final PreparedStatementCache.ConnectionStatements owner;
+
+    private final PreparedStatementCache.StatementKey key;
+
+    private boolean closed;
+
+    CachedPreparedStatement(PreparedStatement statement, TrackedConnection connection,
+                            PreparedStatementCache.ConnectionStatements owner, PreparedStatementCache.StatementKey key) {
+        super(statement, connection);
+        this.statement = statement;
+        this.owner = owner;
+        this.key = key;
+    }
+
+    @Override
+    protected PreparedStatement delegate() throws SQLException {
+        if (closed) {
+            throw new SQLException("PreparedStatement is closed");
+        }
+        return statement;
+    }
+
+    @Override
+    protected void beforeExecute() throws SQLException {
+        //连接池不知道缓存的语句执行过，由TrackedConnection在归还前回滚没有提交的修改
+        connection().markCachedStatementExecuted();
+        super.beforeExecute();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!closed) {
+            closed = true;
+            release();
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || statement.isClosed();
+    }
+
+    /**
+     * 清理参数和本次调用设置的语句属性后放回缓存，清理失败时直接关闭
+     */
+    private void release() {
+        try {
+            if (statement.isClosed()) {
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+            if (statement.getFetchSize() != 0) {
+                statement.setFetchSize(0);
+            }
+            if (statement.getQueryTimeout() != 0) {
+                statement.setQueryTimeout(0);
+            }
+            if (statement.getMaxRows() != 0) {
+                statement.setMaxRows(0);
+            }
+        } catch (SQLException e) {
+            PreparedStatementCache.closeQuietly(statement);
+            return;
+        }
+        owner.checkin(key, statement);
+    }
+}
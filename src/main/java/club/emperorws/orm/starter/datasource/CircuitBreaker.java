@@ -0,0 +1,179 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个数据源的熔断器
+ * <p>按最近N次获取连接的结果（失败、慢调用）计算失败率，超过阈值后熔断（OPEN），熔断期间不再向该数据源获取连接；
+ * 熔断时间到达后由后台探测（HALF_OPEN）决定恢复（CLOSED）还是继续熔断</p>
+ * <p>获取连接时只读取一次volatile的状态；记录结果时加锁，每次获取连接只记录一次</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 16:10
+ * @description: CircuitBreaker: 单个数据源的熔断器
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        /**
+         * 正常
+         */
+        CLOSED,
+        /**
+         * 熔断
+         */
+        OPEN,
+        /**
+         * 探测中
+         */
+        HALF_OPEN
+    }
+
+    private final Object dataSourceKey;
+
+    private final CircuitBreakerConfig config;
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAtNanos;
+
+    /**
+     * 滑动窗口，true表示失败
+     */
+    private final boolean[] outcomes;
+
+    private int position;
+
+    private int calls;
+
+    private int failures;
+
+    /**
+     * 获取连接耗时的指数移动平均（纳秒）
+     */
+    private volatile long averageAcquireNanos;
+
+    public CircuitBreaker(Object dataSourceKey, CircuitBreakerConfig config) {
+        this.dataSourceKey = dataSourceKey;
+        this.config = config;
+        this.outcomes = new boolean[config.getSlidingWindowSize()];
+    }
+
+    public Object getDataSourceKey() {
+        return dataSourceKey;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否允许向该数据源获取连接
+     *
+     * @return 是否允许
+     */
+    public boolean isCallPermitted() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * 记录一次成功获取连接
+     *
+     * @param acquireNanos 获取连接的耗时
+     */
+    public synchronized void recordSuccess(long acquireNanos) {
+        long average = this.averageAcquireNanos;
+        this.averageAcquireNanos = average == 0 ? acquireNanos : average + ((acquireNanos - average) >> 3);
+        record(acquireNanos > TimeUnit.MILLISECONDS.toNanos(config.getSlowAcquireMillis()));
+    }
+
+    /**
+     * 记录一次获取连接失败
+     */
+    public synchronized void recordFailure() {
+        record(true);
+    }
+
+    private void record(boolean failure) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (calls == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+        if (calls >= config.getMinimumNumberOfCalls() && failures >= config.getFailureRateThreshold() * calls) {
+            open();
+        }
+    }
+
+    /**
+     * 熔断时间已到，开始探测
+     *
+     * @return 是否需要由当前线程探测
+     */
+    synchronized boolean tryStartProbe() {
+        if (state != State.OPEN || System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMillis())) {
+            return false;
+        }
+        state = State.HALF_OPEN;
+        return true;
+    }
+
+    /**
+     * 探测结束
+     *
+     * @param healthy 数据源是否可用
+     */
+    synchronized void onProbeResult(boolean healthy) {
+        if (healthy) {
+            reset();
+            state = State.CLOSED;
+        } else {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        state = State.OPEN;
+    }
+
+    private void reset() {
+        position = 0;
+        calls = 0;
+        failures = 0;
+        averageAcquireNanos = 0;
+    }
+
+    /**
+     * 滑动窗口中的失败率
+     *
+     * @return 失败率，没有调用时为0
+     */
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0D : (double) failures / calls;
+    }
+
+    /**
+     * 获取连接的平均耗时
+     *
+     * @return 平均耗时（毫秒）
+     */
+    public double getAverageAcquireMillis() {
+        return averageAcquireNanos / 1_000_000D;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{dataSourceKey=" + dataSourceKey + ", state=" + state + '}';
+    }
+}
@@ -0,0 +1,124 @@
+package club.emperorws.orm.starter.datasource;
+
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源熔断配置
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 16:05
+ * @description: CircuitBreakerConfig: 数据源熔断配置
+ */
+public class CircuitBreakerConfig {
+
+    /**
+     * 统计最近多少次获取连接的结果
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * 滑动窗口中至少有多少次调用才计算失败率
+     */
+    private int minimumNumberOfCalls = 10;
+
+    /**
+     * 失败率（包含慢调用）达到该值时熔断，0~1
+     */
+    private double failureRateThreshold = 0.5D;
+
+    /**
+     * 获取连接超过该时间视为慢调用，计入失败
+     */
+    private long slowAcquireMillis = 1000L;
+
+    /**
+     * 熔断后至少等待多久才开始探测
+     */
+    private long openDurationMillis = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 后台探测的间隔
+     */
+    private long probeIntervalMillis = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * 探测时Connection.isValid的超时时间（秒）
+     */
+    private int validationTimeoutSeconds = 2;
+
+    /**
+     * 是否只熔断从库，默认true：主库（以及手动指定的分片等数据源）没有可以回退的数据源，熔断只会把短暂的抖动放大为整段时间的写入失败，
+     * 设置为false时主库也会熔断
+     */
+    private boolean replicaOnly = true;
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        Assert.isTrue(slidingWindowSize > 0, "slidingWindowSize must be greater than 0");
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        Assert.isTrue(minimumNumberOfCalls > 0, "minimumNumberOfCalls must be greater than 0");
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 1, "failureRateThreshold must be in (0, 1]");
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public long getSlowAcquireMillis() {
+        return slowAcquireMillis;
+    }
+
+    public void setSlowAcquireMillis(long slowAcquireMillis) {
+        this.slowAcquireMillis = slowAcquireMillis;
+    }
+
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    public void setOpenDurationMillis(long openDurationMillis) {
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    public long getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+
+    public void setProbeIntervalMillis(long probeIntervalMillis) {
+        Assert.isTrue(probeIntervalMillis > 0, "probeIntervalMillis must be greater than 0");
+        this.probeIntervalMillis = probeIntervalMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public boolean isReplicaOnly() {
+        return replicaOnly;
+    }
+
+    public void setReplicaOnly(boolean replicaOnly) {
+        this.replicaOnly = replicaOnly;
+    }
+}
@@ -1,8 +1,12 @@
 package club.emperorws.orm.starter.datasource;
 
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
 /**
  * 多数据源的key存储
- * <p>todo 注意多线程下的数据丢失问题，后续如果涉及到多数据源问题，建议改为阿里的TTL（TransmittableThreadLocal）</p>
+ * <p>数据源key保存在当前线程的{@link club.emperorws.orm.starter.util.OrmContext}中，和事务状态共用一个ThreadLocal</p>
+ * <p>提交到其他线程执行时，数据源key不会自动传递，需要使用{@link club.emperorws.orm.starter.concurrent.OrmExecutors}包装线程池，
+ * 或者使用{@link club.emperorws.orm.starter.concurrent.OrmContextSnapshot}手动传递</p>
  * <p>
  * <b>How to use:</b>
  * <pre>
@@ -36,7 +40,10 @@ package club.emperorws.orm.starter.datasource;
  */
 public class DataSourceContextHolder {
 
-    private static final ThreadLocal<String> CONTEXT_HOLDER = new ThreadLocal<>();
+    /**
+     * 是否有数据源配置了读写分离。没有配置时，查询不需要标记只读路由，也就不会为线程分配上下文
+     */
+    private static volatile boolean readRoutingEnabled;
 
     /**
      * 切换数据源
@@ -44,17 +51,33 @@ public class DataSourceContextHolder {
      * @param dbType 数据源key
      */
     public static void setDbType(String dbType) {
-        CONTEXT_HOLDER.set(dbType);
+        OrmContextHolder.currentContext().setDbType(dbType);
     }
 
     public static String getDbType() {
-        return CONTEXT_HOLDER.get();
+        return OrmContextHolder.lookupContext().getDbType();
     }
 
     /**
      * 切回默认数据源
      */
     public static void clearDbType() {
-        CONTEXT_HOLDER.remove();
+        OrmContextHolder.lookupContext().setDbType(null);
+    }
+
+    /**
+     * 是否有数据源配置了读写分离
+     *
+     * @return 是否开启了读写分离
+     */
+    public static boolean isReadRoutingEnabled() {
+        return readRoutingEnabled;
+    }
+
+    /**
+     * 开启读写分离的路由标记，由{@link DynamicDataSource#setReadReplicas}调用
+     */
+    static void enableReadRouting() {
+        readRoutingEnabled = true;
     }
 }
@@ -1,64 +1,497 @@
 package club.emperorws.orm.starter.datasource;
 
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.starter.concurrent.OrmExecutors;
+import club.emperorws.orm.starter.util.Assert;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
 import javax.sql.DataSource;
+import java.io.Closeable;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Map;
+import java.sql.SQLTransientConnectionException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
  * 多数据源
+ * <p>路由顺序：{@link DataSourceContextHolder}手动指定的数据源 &gt; 事务外的只读查询路由到从库 &gt; 默认数据源（主库）</p>
+ * <p>开启熔断（{@link #setCircuitBreakerConfig}）后，每个从库按获取连接的失败率、耗时单独熔断：熔断的从库不再参与负载均衡，
+ * 从库都不可用时查询回退到主库。后台线程定时探测熔断的从库，恢复后重新加入。
+ * 主库与其他数据源默认不熔断，{@link CircuitBreakerConfig#setReplicaOnly}设置为false后它们熔断时直接失败，不再等待连接池超时</p>
  *
  * @author: EmperorWS
  * @date: 2023/5/17 18:16
  * @description: DynamicDataSource: 多数据源
  */
-public class DynamicDataSource implements DataSource {
+public class DynamicDataSource implements DataSource, Closeable {
+
+    private static final Log log = LogFactory.getLog(DynamicDataSource.class);
 
     /**
-     * 只在创建对象的时候初始化，所以不会出现并发问题
+     * 数据源注册表，写时复制：增删数据源时创建新的不可变Map整体替换，获取连接时只读取一次volatile引用，不加锁
      */
-    private Map<Object, DataSource> dataSourceMap;
+    private volatile Map<Object, DataSourceEntry> dataSourceMap;
 
     /**
      * 默认的数据源
      */
     private String defaultDataSource;
 
+    /**
+     * 从库的数据源key，为空表示没有开启读写分离
+     */
+    private volatile List<Object> replicaKeys = Collections.emptyList();
+
+    /**
+     * 从库的负载均衡策略
+     */
+    private volatile ReplicaLoadBalancer replicaLoadBalancer = new RoundRobinReplicaLoadBalancer();
+
+    /**
+     * 熔断配置，为空表示没有开启熔断
+     */
+    private volatile CircuitBreakerConfig circuitBreakerConfig;
+
+    /**
+     * 每个数据源的熔断器
+     */
+    private final ConcurrentMap<Object, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * PreparedStatement缓存，为空表示不缓存
+     */
+    private volatile PreparedStatementCache preparedStatementCache;
+
+    /**
+     * 熔断数据源的后台探测线程
+     */
+    private ScheduledExecutorService healthChecker;
+
     public DynamicDataSource(Map<Object, DataSource> dataSourceMap) {
         this(dataSourceMap, "master");
     }
 
     public DynamicDataSource(Map<Object, DataSource> dataSourceMap, String defaultDataSource) {
-        this.dataSourceMap = dataSourceMap;
+        Assert.notNull(dataSourceMap, "DataSource map must not be null");
+        Map<Object, DataSourceEntry> entries = new HashMap<>(dataSourceMap.size() * 2);
+        for (Map.Entry<Object, DataSource> entry : dataSourceMap.entrySet()) {
+            entries.put(entry.getKey(), new DataSourceEntry(entry.getKey(), entry.getValue()));
+        }
+        this.dataSourceMap = Collections.unmodifiableMap(entries);
         this.defaultDataSource = defaultDataSource;
     }
 
+    /*****************************************************数据源注册表****************************************************/
+
+    /**
+     * 运行时新增数据源
+     *
+     * @param key        数据源key
+     * @param dataSource 数据源
+     */
+    public synchronized void addDataSource(Object key, DataSource dataSource) {
+        Assert.notNull(key, "DataSource key must not be null");
+        Assert.notNull(dataSource, "DataSource must not be null");
+        if (this.dataSourceMap.containsKey(key)) {
+            throw new IllegalStateException("DataSource [" + key + "] already exists");
+        }
+        Map<Object, DataSourceEntry> entries = new HashMap<>(this.dataSourceMap);
+        entries.put(key, new DataSourceEntry(key, dataSource));
+        this.dataSourceMap = Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * 运行时移除数据源：新的请求立即不再使用该数据源，已经借出的连接全部归还后，关闭数据源（如果数据源实现了AutoCloseable）
+     * <p>同时从从库列表中移除，默认数据源不允许移除</p>
+     *
+     * @param key 数据源key
+     * @return 借出的连接全部归还、数据源关闭后完成的Future；数据源不存在时返回已完成的Future
+     */
+    public synchronized CompletableFuture<Void> removeDataSource(Object key) {
+        if (Objects.equals(this.defaultDataSource, key)) {
+            throw new IllegalArgumentException("Cannot remove the default DataSource [" + key + "]");
+        }
+        DataSourceEntry removed = this.dataSourceMap.get(key);
+        if (removed == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (this.replicaKeys.contains(key)) {
+            List<Object> replicas = new ArrayList<>(this.replicaKeys);
+            replicas.remove(key);
+            this.replicaKeys = Collections.unmodifiableList(replicas);
+        }
+        Map<Object, DataSourceEntry> entries = new HashMap<>(this.dataSourceMap);
+        entries.remove(key);
+        this.dataSourceMap = Collections.unmodifiableMap(entries);
+        this.circuitBreakers.remove(key);
+        return removed.drain();
+    }
+
+    /**
+     * 运行时替换数据源（例如更换连接池配置），新的请求立即使用新的数据源，旧数据源的连接全部归还后关闭
+     *
+     * @param key        数据源key
+     * @param dataSource 新的数据源
+     * @return 旧数据源排空、关闭后完成的Future
+     */
+    public synchronized CompletableFuture<Void> replaceDataSource(Object key, DataSource dataSource) {
+        Assert.notNull(key, "DataSource key must not be null");
+        Assert.notNull(dataSource, "DataSource must not be null");
+        Map<Object, DataSourceEntry> entries = new HashMap<>(this.dataSourceMap);
+        DataSourceEntry old = entries.put(key, new DataSourceEntry(key, dataSource));
+        this.dataSourceMap = Collections.unmodifiableMap(entries);
+        this.circuitBreakers.remove(key);
+        return old == null ? CompletableFuture.completedFuture(null) : old.drain();
+    }
+
+    /**
+     * 当前注册的所有数据源key
+     *
+     * @return 数据源key
+     */
+    public Set<Object> getDataSourceKeys() {
+        return this.dataSourceMap.keySet();
+    }
+
+    /**
+     * 数据源当前借出的连接数
+     *
+     * @param key 数据源key
+     * @return 借出的连接数，数据源不存在时返回0
+     */
+    public int getActiveConnections(Object key) {
+        DataSourceEntry entry = this.dataSourceMap.get(key);
+        return entry == null ? 0 : entry.active.get();
+    }
+
+    /**
+     * 开启读写分离：事务外的只读查询（select、selectList、selectCursor等）使用从库，写操作与事务中的所有操作使用主库
+     *
+     * @param replicaKeys 从库的数据源key，必须已经在dataSourceMap中
+     */
+    public void setReadReplicas(List<Object> replicaKeys) {
+        setReadReplicas(replicaKeys, this.replicaLoadBalancer);
+    }
+
+    /**
+     * 开启读写分离，并指定从库的负载均衡策略
+     *
+     * @param replicaKeys         从库的数据源key，必须已经在dataSourceMap中
+     * @param replicaLoadBalancer 从库的负载均衡策略
+     */
+    public void setReadReplicas(List<Object> replicaKeys, ReplicaLoadBalancer replicaLoadBalancer) {
+        Assert.notNull(replicaKeys, "Replica keys must not be null");
+        Assert.notNull(replicaLoadBalancer, "ReplicaLoadBalancer must not be null");
+        for (Object replicaKey : replicaKeys) {
+            if (!this.dataSourceMap.containsKey(replicaKey)) {
+                throw new IllegalArgumentException("No DataSource found for replica key [" + replicaKey + "]");
+            }
+        }
+        this.replicaLoadBalancer = replicaLoadBalancer;
+        this.replicaKeys = Collections.unmodifiableList(new ArrayList<>(replicaKeys));
+        CircuitBreakerConfig config = this.circuitBreakerConfig;
+        if (config != null && config.isReplicaOnly()) {
+            //不再是从库的数据源不再熔断、探测
+            this.circuitBreakers.keySet().retainAll(this.replicaKeys);
+        }
+        if (!replicaKeys.isEmpty()) {
+            DataSourceContextHolder.enableReadRouting();
+        }
+    }
+
+    public List<Object> getReplicaKeys() {
+        return replicaKeys;
+    }
+
+    public ReplicaLoadBalancer getReplicaLoadBalancer() {
+        return replicaLoadBalancer;
+    }
+
+    /**
+     * 开启按物理连接的PreparedStatement缓存，对之后借出的连接生效
+     *
+     * @param preparedStatementCache PreparedStatement缓存，为空时关闭缓存
+     */
+    public void setPreparedStatementCache(PreparedStatementCache preparedStatementCache) {
+        PreparedStatementCache previous = this.preparedStatementCache;
+        this.preparedStatementCache = preparedStatementCache;
+        if (previous != null && previous != preparedStatementCache) {
+            previous.clear();
+        }
+    }
+
+    public PreparedStatementCache getPreparedStatementCache() {
+        return preparedStatementCache;
+    }
+
+    /**
+     * 开启数据源熔断与后台探测
+     *
+     * @param circuitBreakerConfig 熔断配置
+     */
+    public synchronized void setCircuitBreakerConfig(CircuitBreakerConfig circuitBreakerConfig) {
+        Assert.notNull(circuitBreakerConfig, "CircuitBreakerConfig must not be null");
+        this.circuitBreakers.clear();
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        if (this.healthChecker != null) {
+            this.healthChecker.shutdownNow();
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(OrmExecutors.daemonThreadFactory("orm-datasource-health"));
+        long interval = circuitBreakerConfig.getProbeIntervalMillis();
+        this.healthChecker.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取数据源的熔断器
+     *
+     * @param key 数据源key
+     * @return 熔断器，没有开启熔断或者该数据源不熔断（只熔断从库时的非从库）时返回null
+     */
+    public CircuitBreaker getCircuitBreaker(Object key) {
+        CircuitBreakerConfig config = this.circuitBreakerConfig;
+        if (config == null || (config.isReplicaOnly() && !this.replicaKeys.contains(key))) {
+            return null;
+        }
+        CircuitBreaker breaker = circuitBreakers.get(key);
+        if (breaker == null) {
+            breaker = circuitBreakers.computeIfAbsent(key, k -> new CircuitBreaker(k, config));
+        }
+        return breaker;
+    }
+
+    /**
+     * 探测熔断时间已到的数据源，可用则恢复
+     */
+    private void probe() {
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            if (!breaker.tryStartProbe()) {
+                continue;
+            }
+            Object key = breaker.getDataSourceKey();
+            boolean healthy = false;
+            DataSourceEntry entry = dataSourceMap.get(key);
+            if (entry != null) {
+                try (Connection connection = entry.dataSource.getConnection()) {
+                    healthy = connection.isValid(circuitBreakerConfig.getValidationTimeoutSeconds());
+                } catch (Exception e) {
+                    log.debug(() -> "Probe of DataSource [" + key + "] failed: " + e.getMessage());
+                }
+            }
+            breaker.onProbeResult(healthy);
+            final boolean recovered = healthy;
+            log.debug(() -> "Probe of DataSource [" + key + "] finished, " + (recovered ? "closed" : "still open"));
+        }
+    }
+
     /**
      * 具体决定使用哪个数据源，找出数据源的key
      *
+     * @param context 当前线程的Orm上下文
      * @return 使用的数据源key
      */
-    private Object determineCurrentLookupKey() {
-        String dbType = DataSourceContextHolder.getDbType();
-        return dbType == null ? defaultDataSource : dbType;
+    private Object determineCurrentLookupKey(OrmContext context) {
+        String dbType = context.getDbType();
+        if (dbType != null) {
+            return dbType;
+        }
+        if (isReadRouted(context)) {
+            List<Object> available = availableReplicas();
+            if (!available.isEmpty()) {
+                return replicaLoadBalancer.choose(available);
+            }
+        }
+        return defaultDataSource;
+    }
+
+    private boolean isReadRouted(OrmContext context) {
+        if (this.replicaKeys.isEmpty()) {
+            return false;
+        }
+        //只读事务的第一个语句获取连接时路由到从库，之后整个事务复用该连接
+        return context.isActualTransactionActive() ? context.isReadOnlyTransaction() : context.isReadRoute();
+    }
+
+    /**
+     * 没有熔断的从库
+     *
+     * @return 可用的从库key，所有从库都可用时直接返回原列表，不分配新对象
+     */
+    private List<Object> availableReplicas() {
+        List<Object> replicas = this.replicaKeys;
+        if (this.circuitBreakerConfig == null) {
+            return replicas;
+        }
+        List<Object> available = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            Object key = replicas.get(i);
+            CircuitBreaker breaker = getCircuitBreaker(key);
+            if (breaker == null || breaker.isCallPermitted()) {
+                if (available != null) {
+                    available.add(key);
+                }
+            } else if (available == null) {
+                available = new ArrayList<>(replicas.subList(0, i));
+            }
+        }
+        return available == null ? replicas : available;
     }
 
     public DataSource getDataSource() {
-        Object lookupKey = determineCurrentLookupKey();
-        return dataSourceMap.get(lookupKey);
+        Object lookupKey = determineCurrentLookupKey(OrmContextHolder.lookupContext());
+        DataSourceEntry entry = dataSourceMap.get(lookupKey);
+        return entry == null ? null : entry.dataSource;
+    }
+
+    /**
+     * 获取连接，从库获取失败时回退到主库
+     *
+     * @param username 用户名，为空时使用数据源默认的用户
+     * @param password 密码
+     * @return 数据库连接
+     * @throws SQLException 获取连接异常
+     */
+    private Connection doGetConnection(String username, String password) throws SQLException {
+        OrmContext context = OrmContextHolder.lookupContext();
+        Object lookupKey = determineCurrentLookupKey(context);
+        if (context.getDbType() != null || !isReadRouted(context) || defaultDataSource.equals(lookupKey)) {
+            return acquire(lookupKey, username, password);
+        }
+        try {
+            return acquire(lookupKey, username, password);
+        } catch (SQLException e) {
+            log.debug(() -> "Get connection from replica [" + lookupKey + "] failed, fall back to [" + defaultDataSource + "]: " + e.getMessage());
+            return acquire(defaultDataSource, username, password);
+        }
+    }
+
+    /**
+     * 从指定的数据源获取连接，并记录熔断统计
+     *
+     * @param key      数据源key
+     * @param username 用户名，为空时使用数据源默认的用户
+     * @param password 密码
+     * @return 数据库连接
+     * @throws SQLException 获取连接异常，或者数据源已熔断
+     */
+    private Connection acquire(Object key, String username, String password) throws SQLException {
+        DataSourceEntry entry = retain(key);
+        Connection connection;
+        try {
+            connection = doAcquire(entry, username, password);
+        } catch (SQLException | RuntimeException e) {
+            entry.release();
+            throw e;
+        }
+        TrackedConnection trackedConnection = new TrackedConnection(connection, onClose(entry), preparedStatementCache);
+        if (OrmContextHolder.lookupContext().isReadOnlyTransaction()) {
+            try {
+                trackedConnection.markReadOnly();
+            } catch (SQLException e) {
+                trackedConnection.close();
+                throw e;
+            }
+        }
+        return trackedConnection;
+    }
+
+    /**
+     * 连接关闭时的回调：从库连接先执行负载均衡策略的回调（例如减少正在使用的连接数），再减少数据源的借出计数
+     */
+    private Runnable onClose(DataSourceEntry entry) {
+        if (!replicaKeys.contains(entry.key)) {
+            return entry::release;
+        }
+        Runnable release = replicaLoadBalancer.onConnectionAcquired(entry.key);
+        if (release == null) {
+            return entry::release;
+        }
+        return () -> {
+            try {
+                release.run();
+            } finally {
+                entry.release();
+            }
+        };
+    }
+
+    /**
+     * 取出数据源并计数
+     * <p>计数失败说明取到的数据源正在被移除或替换，而新的dataSourceMap已经发布（先发布再排空），重新读取；
+     * 只有数据源确实不存在时才失败，并发替换数据源时不会失败</p>
+     *
+     * @param key 数据源key
+     * @return 已计数的数据源
+     * @throws SQLException 数据源不存在
+     */
+    private DataSourceEntry retain(Object key) throws SQLException {
+        DataSourceEntry entry = dataSourceMap.get(key);
+        while (entry != null) {
+            if (entry.retain()) {
+                return entry;
+            }
+            DataSourceEntry current = dataSourceMap.get(key);
+            entry = current == entry ? null : current;
+        }
+        throw new SQLException("No DataSource found for key [" + key + "]");
+    }
+
+    private Connection doAcquire(DataSourceEntry entry, String username, String password) throws SQLException {
+        DataSource dataSource = entry.dataSource;
+        CircuitBreaker breaker = getCircuitBreaker(entry.key);
+        if (breaker == null) {
+            return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+        }
+        if (!breaker.isCallPermitted()) {
+            throw new SQLTransientConnectionException("Circuit breaker of DataSource [" + entry.key + "] is " + breaker.getState());
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+        } catch (SQLException | RuntimeException e) {
+            breaker.recordFailure();
+            throw e;
+        }
+        breaker.recordSuccess(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * 停止熔断数据源的后台探测，不会关闭各个数据源
+     */
+    @Override
+    public synchronized void close() {
+        if (this.healthChecker != null) {
+            this.healthChecker.shutdownNow();
+            this.healthChecker = null;
+        }
+        PreparedStatementCache statementCache = this.preparedStatementCache;
+        if (statementCache != null) {
+            statementCache.clear();
+        }
     }
 
     @Override
     public Connection getConnection() throws SQLException {
-        return getDataSource().getConnection();
+        return doGetConnection(null, null);
     }
 
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
-        return getDataSource().getConnection(username, password);
+        return doGetConnection(username, password);
     }
 
     @Override
@@ -95,4 +528,73 @@ public class DynamicDataSource implements DataSource {
     public Logger getParentLogger() throws SQLFeatureNotSupportedException {
         return getDataSource().getParentLogger();
     }
+
+    /**
+     * 注册表中的数据源，统计借出的连接数，用于移除数据源时等待连接归还
+     */
+    private static final class DataSourceEntry {
+
+        private final Object key;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final CompletableFuture<Void> drained = new CompletableFuture<>();
+
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private volatile boolean removed;
+
+        private DataSourceEntry(Object key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * 借出连接前计数
+         *
+         * @return 数据源已被移除时返回false
+         */
+        private boolean retain() {
+            active.incrementAndGet();
+            if (removed) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * 连接归还（或获取失败）
+         */
+        private void release() {
+            if (active.decrementAndGet() == 0 && removed) {
+                closeIfDrained();
+            }
+        }
+
+        private CompletableFuture<Void> drain() {
+            removed = true;
+            if (active.get() == 0) {
+                closeIfDrained();
+            }
+            return drained;
+        }
+
+        private void closeIfDrained() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (dataSource instanceof AutoCloseable) {
+                    ((AutoCloseable) dataSource).close();
+                }
+                drained.complete(null);
+                log.debug(() -> "DataSource [" + key + "] drained and closed");
+            } catch (Exception e) {
+                drained.completeExceptionally(e);
+            }
+        }
+    }
 }
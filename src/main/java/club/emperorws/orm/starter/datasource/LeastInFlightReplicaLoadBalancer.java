@@ -0,0 +1,63 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 选择当前正在使用的连接数最少的从库，连接数相同时轮询
+ * <p>获取到从库连接时增加计数，DynamicDataSource返回的连接关闭时通过回调减少计数</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 15:32
+ * @description: LeastInFlightReplicaLoadBalancer: 最少正在使用连接数的从库负载均衡策略
+ */
+public class LeastInFlightReplicaLoadBalancer implements ReplicaLoadBalancer {
+
+    private final ConcurrentMap<Object, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Object choose(List<Object> replicaKeys) {
+        int size = replicaKeys.size();
+        int start = (counter.getAndIncrement() & Integer.MAX_VALUE) % size;
+        Object chosen = null;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Object replicaKey = replicaKeys.get((start + i) % size);
+            int count = inFlightOf(replicaKey).get();
+            if (count < min) {
+                min = count;
+                chosen = replicaKey;
+            }
+        }
+        return chosen;
+    }
+
+    @Override
+    public Runnable onConnectionAcquired(Object replicaKey) {
+        AtomicInteger count = inFlightOf(replicaKey);
+        count.incrementAndGet();
+        return count::decrementAndGet;
+    }
+
+    /**
+     * 从库当前正在使用的连接数
+     *
+     * @param replicaKey 数据源key
+     * @return 正在使用的连接数
+     */
+    public int getInFlight(Object replicaKey) {
+        return inFlightOf(replicaKey).get();
+    }
+
+    private AtomicInteger inFlightOf(Object replicaKey) {
+        AtomicInteger count = inFlight.get(replicaKey);
+        if (count == null) {
+            count = inFlight.computeIfAbsent(replicaKey, key -> new AtomicInteger());
+        }
+        return count;
+    }
+}
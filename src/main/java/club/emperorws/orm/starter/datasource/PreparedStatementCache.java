@@ -0,0 +1,289 @@
+package club.emperorws.orm.starter.datasource;
+
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.starter.util.Assert;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按物理连接缓存PreparedStatement，同一个连接被连接池多次借出时复用已经预编译的语句
+ * <p>语句直接在物理连接（连接池包装连接unwrap后的连接）上预编译，归还连接时连接池不会关闭它们；
+ * 调用方关闭语句时只是清理参数后放回缓存，每个连接按LRU最多缓存maxStatementsPerConnection条，淘汰时才真正关闭。
+ * 借出新的物理连接时清理已经关闭的物理连接的缓存，数据源关闭时清空整个缓存</p>
+ * <p><b>绕过连接池的代价：</b>缓存的语句不经过连接池的包装，连接池不会跟踪它们（例如HikariCP的“有未提交的修改，归还时回滚”、
+ * 归还时关闭没有关闭的语句）。{@link TrackedConnection}记录执行过缓存语句且没有提交、回滚的连接，归还前自己回滚，
+ * 但连接池基于语句的其他统计（泄漏检测、语句数等）对缓存的语句不再生效</p>
+ * <p>只缓存prepareStatement(sql)和prepareStatement(sql, autoGeneratedKeys)创建的语句</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * dynamicDataSource.setPreparedStatementCache(new PreparedStatementCache(64));
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 23:00
+ * @description: PreparedStatementCache: 按物理连接缓存PreparedStatement
+ */
+public class PreparedStatementCache {
+
+    private static final Log log = LogFactory.getLog(PreparedStatementCache.class);
+
+    private final int maxStatementsPerConnection;
+
+    /**
+     * 物理连接 -&gt; 该连接的语句缓存，由自身加锁保护
+     * <p>缓存的语句强引用物理连接，不能依赖弱引用回收，物理连接关闭后由{@link #purgeClosedConnections()}移除</p>
+     */
+    private final Map<Connection, ConnectionStatements> connections = new IdentityHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public PreparedStatementCache(int maxStatementsPerConnection) {
+        Assert.isTrue(maxStatementsPerConnection > 0, "maxStatementsPerConnection must be greater than 0");
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * 从缓存中取出语句，没有时在物理连接上预编译
+     *
+     * @param connection        调用方使用的连接（getConnection返回该连接）
+     * @param delegate          连接池借出的连接
+     * @param sql               sql
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS或者Statement.NO_GENERATED_KEYS
+     * @return 关闭时放回缓存的PreparedStatement
+     * @throws SQLException 预编译异常
+     */
+    PreparedStatement prepare(TrackedConnection connection, Connection delegate, String sql, int autoGeneratedKeys) throws SQLException {
+        Connection physical = delegate.isWrapperFor(Connection.class) ? delegate.unwrap(Connection.class) : delegate;
+        ConnectionStatements statements = statementsOf(physical);
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        PreparedStatement statement = statements.checkout(key);
+        if (statement != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS ? physical.prepareStatement(sql) : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return new CachedPreparedStatement(statement, connection, statements, key);
+    }
+
+    /**
+     * 移除已经关闭的物理连接的缓存（连接池淘汰连接后）
+     *
+     * @return 移除的物理连接数
+     */
+    public int purgeClosedConnections() {
+        List<ConnectionStatements> purged = new ArrayList<>();
+        synchronized (connections) {
+            Iterator<Map.Entry<Connection, ConnectionStatements>> iterator = connections.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Connection, ConnectionStatements> entry = iterator.next();
+                if (isClosed(entry.getKey())) {
+                    //IdentityHashMap的Entry在remove之后不能再读取
+                    purged.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        for (ConnectionStatements statements : purged) {
+            statements.closeAll();
+        }
+        if (!purged.isEmpty()) {
+            log.debug(() -> "Purged cached PreparedStatements of " + purged.size() + " closed connection(s)");
+        }
+        return purged.size();
+    }
+
+    /**
+     * 关闭并清空所有缓存的语句（数据源关闭时）
+     */
+    public void clear() {
+        List<ConnectionStatements> all;
+        synchronized (connections) {
+            all = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+        for (ConnectionStatements statements : all) {
+            statements.closeAll();
+        }
+    }
+
+    public int getMaxStatementsPerConnection() {
+        return maxStatementsPerConnection;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 当前缓存了语句的物理连接数
+     *
+     * @return 物理连接数
+     */
+    public int getConnectionCount() {
+        synchronized (connections) {
+            return connections.size();
+        }
+    }
+
+    /**
+     * 当前缓存的语句总数
+     *
+     * @return 语句总数
+     */
+    public int size() {
+        List<ConnectionStatements> all;
+        synchronized (connections) {
+            all = new ArrayList<>(connections.values());
+        }
+        int size = 0;
+        for (ConnectionStatements statements : all) {
+            size += statements.size();
+        }
+        return size;
+    }
+
+    /**
+     * 获取物理连接的语句缓存，第一次遇到新的物理连接时顺便清理已经关闭的物理连接
+     */
+    private ConnectionStatements statementsOf(Connection physical) {
+        ConnectionStatements statements;
+        synchronized (connections) {
+            statements = connections.get(physical);
+            if (statements != null) {
+                return statements;
+            }
+            statements = new ConnectionStatements();
+            connections.put(physical, statements);
+        }
+        purgeClosedConnections();
+        return statements;
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.error("Close cached PreparedStatement error!", e);
+        }
+    }
+
+    /*************************************************inner class***************************************************/
+
+    /**
+     * 一个物理连接的语句缓存，同一时刻一条语句只会被一个调用方取出
+     */
+    final class ConnectionStatements {
+
+        private final LinkedHashMap<StatementKey, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75F, true);
+
+        private boolean closed;
+
+        private synchronized PreparedStatement checkout(StatementKey key) throws SQLException {
+            PreparedStatement statement = statements.remove(key);
+            if (statement != null && statement.isClosed()) {
+                return null;
+            }
+            return statement;
+        }
+
+        /**
+         * 放回语句，缓存已经清空、已经有同一条sql或者超过容量时关闭多余的语句
+         */
+        void checkin(StatementKey key, PreparedStatement statement) {
+            PreparedStatement discarded = null;
+            PreparedStatement evicted = null;
+            synchronized (this) {
+                if (closed || statements.containsKey(key)) {
+                    discarded = statement;
+                } else {
+                    statements.put(key, statement);
+                    if (statements.size() > maxStatementsPerConnection) {
+                        Iterator<PreparedStatement> iterator = statements.values().iterator();
+                        evicted = iterator.next();
+                        iterator.remove();
+                    }
+                }
+            }
+            if (discarded != null) {
+                closeQuietly(discarded);
+            }
+            if (evicted != null) {
+                evictionCount.increment();
+                closeQuietly(evicted);
+            }
+        }
+
+        private void closeAll() {
+            List<PreparedStatement> all;
+            synchronized (this) {
+                closed = true;
+                all = new ArrayList<>(statements.values());
+                statements.clear();
+            }
+            for (PreparedStatement statement : all) {
+                closeQuietly(statement);
+            }
+        }
+
+        private synchronized int size() {
+            return statements.size();
+        }
+    }
+
+    static final class StatementKey {
+
+        private final String sql;
+
+        private final int autoGeneratedKeys;
+
+        private StatementKey(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return autoGeneratedKeys == that.autoGeneratedKeys && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + autoGeneratedKeys;
+        }
+    }
+}
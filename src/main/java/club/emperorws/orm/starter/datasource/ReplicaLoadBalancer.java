@@ -0,0 +1,32 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.util.List;
+
+/**
+ * 读写分离时，从库（只读副本）的负载均衡策略
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 15:20
+ * @description: ReplicaLoadBalancer: 从库的负载均衡策略
+ */
+public interface ReplicaLoadBalancer {
+
+    /**
+     * 从从库key中选择一个
+     *
+     * @param replicaKeys 从库的数据源key，不为空
+     * @return 选中的数据源key
+     */
+    Object choose(List<Object> replicaKeys);
+
+    /**
+     * 从选中的从库获取到连接后回调，需要统计连接使用情况的策略返回连接归还时的回调
+     * <p>回调由DynamicDataSource返回的连接在关闭时执行，策略不需要再包装连接</p>
+     *
+     * @param replicaKey 数据源key
+     * @return 连接归还时执行的回调，不需要时返回null
+     */
+    default Runnable onConnectionAcquired(Object replicaKey) {
+        return null;
+    }
+}
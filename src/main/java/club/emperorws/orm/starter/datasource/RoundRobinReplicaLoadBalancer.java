@@ -0,0 +1,22 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询的从库负载均衡策略
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 15:25
+ * @description: RoundRobinReplicaLoadBalancer: 轮询的从库负载均衡策略
+ */
+public class RoundRobinReplicaLoadBalancer implements ReplicaLoadBalancer {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Object choose(List<Object> replicaKeys) {
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaKeys.size();
+        return replicaKeys.get(index);
+    }
+}
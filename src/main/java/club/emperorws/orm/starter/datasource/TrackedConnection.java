@@ -0,0 +1,463 @@
+package club.emperorws.orm.starter.datasource;
+
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 委托给真实连接的Connection，连接关闭（归还连接池）时回调一次，用于统计每个数据源正在使用的连接数
+ * <p>直接委托调用，不使用动态代理，对JDBC调用没有额外的反射开销</p>
+ * <p>创建Statement时应用当前线程{@link OrmContext}中的语句提示（fetchSize、事务剩余时间对应的查询超时）；
+ * 有事务超时的PreparedStatement每次执行前按剩余时间重新设置查询超时</p>
+ * <p>设置了{@link PreparedStatementCache}时，prepareStatement从缓存中取出物理连接上已经预编译的语句</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 15:10
+ * @description: TrackedConnection: 关闭时回调的Connection
+ */
+public class TrackedConnection implements Connection {
+
+    private final Connection delegate;
+
+    private final Runnable onClose;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * PreparedStatement缓存，为空时不缓存
+     */
+    private final PreparedStatementCache statementCache;
+
+    /**
+     * 是否由只读事务设置了只读，关闭时恢复
+     */
+    private boolean readOnlyApplied;
+
+    /**
+     * 是否执行过缓存的语句且还没有提交、回滚（连接池跟踪不到缓存的语句）
+     */
+    private boolean cachedStatementExecuted;
+
+    public TrackedConnection(Connection delegate, Runnable onClose) {
+        this(delegate, onClose, null);
+    }
+
+    public TrackedConnection(Connection delegate, Runnable onClose, PreparedStatementCache statementCache) {
+        this.delegate = delegate;
+        this.onClose = onClose;
+        this.statementCache = statementCache;
+    }
+
+    public Connection getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 只读事务使用的连接：设置为只读，归还连接池前恢复
+     *
+     * @throws SQLException 设置只读异常
+     */
+    public void markReadOnly() throws SQLException {
+        if (!delegate.isReadOnly()) {
+            delegate.setReadOnly(true);
+            readOnlyApplied = true;
+        }
+    }
+
+    /**
+     * 缓存的语句执行前调用
+     */
+    void markCachedStatementExecuted() {
+        this.cachedStatementExecuted = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException rollbackFailure = null;
+        if (cachedStatementExecuted) {
+            cachedStatementExecuted = false;
+            try {
+                rollbackUncommitted();
+            } catch (SQLException e) {
+                rollbackFailure = e;
+            }
+        }
+        try {
+            if (readOnlyApplied) {
+                readOnlyApplied = false;
+                resetReadOnly();
+            }
+            delegate.close();
+        } finally {
+            if (closed.compareAndSet(false, true)) {
+                onClose.run();
+            }
+        }
+        if (rollbackFailure != null) {
+            throw rollbackFailure;
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed.get() || delegate.isClosed();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return applyHints(delegate.createStatement());
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (statementCache != null) {
+            return applyHints(statementCache.prepare(this, delegate, sql, Statement.NO_GENERATED_KEYS));
+        }
+        return trackDeadline(applyHints(delegate.prepareStatement(sql)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return applyHints(delegate.prepareCall(sql));
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return delegate.nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        delegate.setAutoCommit(autoCommit);
+        if (autoCommit) {
+            //切换为自动提交时驱动会提交当前事务
+            cachedStatementExecuted = false;
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return delegate.getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        delegate.commit();
+        cachedStatementExecuted = false;
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        delegate.rollback();
+        cachedStatementExecuted = false;
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        delegate.setReadOnly(readOnly);
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        delegate.setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return delegate.getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        delegate.setTransactionIsolation(level);
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return delegate.getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return applyHints(delegate.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return trackDeadline(applyHints(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return applyHints(delegate.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return delegate.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        delegate.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        delegate.setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return delegate.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return delegate.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return delegate.setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        delegate.rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        delegate.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return applyHints(delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return trackDeadline(applyHints(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return applyHints(delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        if (statementCache != null) {
+            return applyHints(statementCache.prepare(this, delegate, sql, autoGeneratedKeys));
+        }
+        return trackDeadline(applyHints(delegate.prepareStatement(sql, autoGeneratedKeys)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return trackDeadline(applyHints(delegate.prepareStatement(sql, columnIndexes)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return trackDeadline(applyHints(delegate.prepareStatement(sql, columnNames)));
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return delegate.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return delegate.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return delegate.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return delegate.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return delegate.isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        delegate.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        delegate.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return delegate.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return delegate.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return delegate.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return delegate.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        delegate.setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return delegate.getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        try {
+            delegate.abort(executor);
+        } finally {
+            if (closed.compareAndSet(false, true)) {
+                onClose.run();
+            }
+        }
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        delegate.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return delegate.getNetworkTimeout();
+    }
+
+    /**
+     * 代替连接池回滚缓存的语句留下的、没有提交的修改
+     */
+    private void rollbackUncommitted() throws SQLException {
+        if (!delegate.isClosed() && !delegate.getAutoCommit()) {
+            delegate.rollback();
+        }
+    }
+
+    private void resetReadOnly() {
+        try {
+            delegate.setReadOnly(false);
+        } catch (SQLException e) {
+            //恢复失败不影响归还连接，连接池借出连接时会重新设置
+        }
+    }
+
+    /**
+     * 应用当前线程的语句提示
+     *
+     * @param statement 新创建的Statement
+     * @return statement
+     * @throws SQLException 设置失败
+     */
+    private <S extends Statement> S applyHints(S statement) throws SQLException {
+        OrmContext context = OrmContextHolder.lookupContext();
+        int fetchSize = context.getFetchSize();
+        if (fetchSize != 0) {
+            statement.setFetchSize(fetchSize);
+        }
+        try {
+            applyDeadline(statement, context);
+        } catch (SQLTimeoutException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * 有事务超时时包装PreparedStatement，每次执行前重新设置查询超时（缓存的语句已经包装过）
+     */
+    private PreparedStatement trackDeadline(PreparedStatement statement) {
+        if (statement instanceof DelegatingPreparedStatement || !OrmContextHolder.lookupContext().hasDeadline()) {
+            return statement;
+        }
+        return new DelegatingPreparedStatement(statement, this);
+    }
+
+    /**
+     * 语句执行前按事务的剩余时间重新设置查询超时
+     *
+     * @param statement 真实语句
+     * @throws SQLException 事务已经超时
+     */
+    void applyDeadline(Statement statement) throws SQLException {
+        applyDeadline(statement, OrmContextHolder.lookupContext());
+    }
+
+    private static void applyDeadline(Statement statement, OrmContext context) throws SQLException {
+        if (!context.hasDeadline()) {
+            return;
+        }
+        //事务的剩余时间作为语句的查询超时（秒，向上取整），已经超时的事务不再执行新的语句
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(context.getTimeRemainingNanos());
+        if (remainingMillis <= 0) {
+            throw new SQLTimeoutException("Transaction timed out, the deadline has been exceeded");
+        }
+        statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, (remainingMillis + 999) / 1000));
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+}
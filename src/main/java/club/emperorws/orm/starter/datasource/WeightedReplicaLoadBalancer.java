@@ -0,0 +1,56 @@
+package club.emperorws.orm.starter.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按权重随机的从库负载均衡策略，没有配置权重的从库权重为1
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 15:28
+ * @description: WeightedReplicaLoadBalancer: 按权重随机的从库负载均衡策略
+ */
+public class WeightedReplicaLoadBalancer implements ReplicaLoadBalancer {
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * 只在创建对象的时候初始化，所以不会出现并发问题
+     */
+    private final Map<Object, Integer> weights;
+
+    public WeightedReplicaLoadBalancer(Map<Object, Integer> weights) {
+        this.weights = new HashMap<>(weights);
+        for (Map.Entry<Object, Integer> entry : this.weights.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() < 0) {
+                throw new IllegalArgumentException("Weight of replica [" + entry.getKey() + "] must not be negative");
+            }
+        }
+    }
+
+    @Override
+    public Object choose(List<Object> replicaKeys) {
+        int totalWeight = 0;
+        for (Object replicaKey : replicaKeys) {
+            totalWeight += weightOf(replicaKey);
+        }
+        if (totalWeight <= 0) {
+            return replicaKeys.get(ThreadLocalRandom.current().nextInt(replicaKeys.size()));
+        }
+        int random = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Object replicaKey : replicaKeys) {
+            random -= weightOf(replicaKey);
+            if (random < 0) {
+                return replicaKey;
+            }
+        }
+        return replicaKeys.get(replicaKeys.size() - 1);
+    }
+
+    private int weightOf(Object replicaKey) {
+        Integer weight = weights.get(replicaKey);
+        return weight == null ? DEFAULT_WEIGHT : weight;
+    }
+}
@@ -0,0 +1,31 @@
+package club.emperorws.orm.starter.page;
+
+/**
+ * 数据库方言：把sql改写为数据库分页、count查询
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:00
+ * @description: Dialect: 数据库方言
+ */
+public interface Dialect {
+
+    /**
+     * 改写为分页sql
+     *
+     * @param sql    原sql
+     * @param offset 跳过的行数
+     * @param limit  最多返回的行数
+     * @return 分页sql
+     */
+    String getLimitSql(String sql, long offset, int limit);
+
+    /**
+     * 改写为count sql，去掉最外层的order by（不影响行数）
+     *
+     * @param sql 原sql
+     * @return count sql
+     */
+    default String getCountSql(String sql) {
+        return "select count(*) from (" + SqlRewriter.removeOrderBy(sql) + ") tmp_count";
+    }
+}
@@ -0,0 +1,37 @@
+package club.emperorws.orm.starter.page;
+
+import java.util.List;
+
+/**
+ * 键集分页结果
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:35
+ * @description: KeysetPage: 键集分页结果
+ */
+public class KeysetPage<E> {
+
+    private final List<E> records;
+
+    /**
+     * 下一页的请求，没有下一页时为null
+     */
+    private final KeysetPageRequest nextRequest;
+
+    public KeysetPage(List<E> records, KeysetPageRequest nextRequest) {
+        this.records = records;
+        this.nextRequest = nextRequest;
+    }
+
+    public List<E> getRecords() {
+        return records;
+    }
+
+    public KeysetPageRequest getNextRequest() {
+        return nextRequest;
+    }
+
+    public boolean hasNext() {
+        return nextRequest != null;
+    }
+}
@@ -0,0 +1,84 @@
+package club.emperorws.orm.starter.page;
+
+import club.emperorws.orm.starter.util.Assert;
+
+/**
+ * 键集（seek）分页请求：按唯一、有索引的列排序，从上一页最后一行的值之后继续读取，
+ * 深分页不需要数据库扫描并丢弃前面所有的行
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:30
+ * @description: KeysetPageRequest: 键集分页请求
+ */
+public class KeysetPageRequest {
+
+    /**
+     * 放入请求参数Map中的上一页最后一个键值的参数名
+     */
+    public static final String LAST_KEY_PARAMETER = "__keysetLastKey";
+
+    /**
+     * 排序的列（唯一、有索引），直接拼接进sql，不能来自用户输入
+     */
+    private final String keyColumn;
+
+    /**
+     * 结果对象中对应排序列的属性名，用于取出下一页的起始值
+     */
+    private final String keyProperty;
+
+    /**
+     * 上一页最后一行的键值，为空表示第一页
+     */
+    private final Object lastKey;
+
+    private final int pageSize;
+
+    private final boolean ascending;
+
+    public KeysetPageRequest(String keyColumn, String keyProperty, Object lastKey, int pageSize) {
+        this(keyColumn, keyProperty, lastKey, pageSize, true);
+    }
+
+    public KeysetPageRequest(String keyColumn, String keyProperty, Object lastKey, int pageSize, boolean ascending) {
+        Assert.notNull(keyColumn, "keyColumn must not be null");
+        Assert.isTrue(keyColumn.matches("[\\w.`\"]+"), "Illegal keyColumn: {0}", keyColumn);
+        Assert.notNull(keyProperty, "keyProperty must not be null");
+        Assert.isTrue(pageSize > 0, "pageSize must be greater than 0");
+        this.keyColumn = keyColumn;
+        this.keyProperty = keyProperty;
+        this.lastKey = lastKey;
+        this.pageSize = pageSize;
+        this.ascending = ascending;
+    }
+
+    /**
+     * 下一页的请求
+     *
+     * @param lastKey 当前页最后一行的键值
+     * @return 下一页的请求
+     */
+    public KeysetPageRequest next(Object lastKey) {
+        return new KeysetPageRequest(keyColumn, keyProperty, lastKey, pageSize, ascending);
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public String getKeyProperty() {
+        return keyProperty;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
@@ -0,0 +1,19 @@
+package club.emperorws.orm.starter.page;
+
+/**
+ * MySQL方言（同样适用于MariaDB、H2、SQLite）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:05
+ * @description: MySqlDialect: MySQL方言
+ */
+public class MySqlDialect implements Dialect {
+
+    @Override
+    public String getLimitSql(String sql, long offset, int limit) {
+        if (offset <= 0) {
+            return sql + " limit " + limit;
+        }
+        return sql + " limit " + offset + ", " + limit;
+    }
+}
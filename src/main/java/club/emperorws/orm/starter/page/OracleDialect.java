@@ -0,0 +1,16 @@
+package club.emperorws.orm.starter.page;
+
+/**
+ * Oracle 12c+方言（同样适用于SQL Server 2012+，SQL Server要求sql中有order by）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:07
+ * @description: OracleDialect: Oracle方言
+ */
+public class OracleDialect implements Dialect {
+
+    @Override
+    public String getLimitSql(String sql, long offset, int limit) {
+        return sql + " offset " + Math.max(offset, 0) + " rows fetch next " + limit + " rows only";
+    }
+}
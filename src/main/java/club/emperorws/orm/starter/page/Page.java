@@ -0,0 +1,71 @@
+package club.emperorws.orm.starter.page;
+
+import java.util.List;
+
+/**
+ * 分页结果
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:25
+ * @description: Page: 分页结果
+ */
+public class Page<E> {
+
+    /**
+     * 没有执行count查询
+     */
+    public static final long TOTAL_UNKNOWN = -1L;
+
+    private final List<E> records;
+
+    private final int pageNum;
+
+    private final int pageSize;
+
+    private final long total;
+
+    public Page(List<E> records, int pageNum, int pageSize, long total) {
+        this.records = records;
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+
+    public List<E> getRecords() {
+        return records;
+    }
+
+    public int getPageNum() {
+        return pageNum;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 总行数，没有执行count查询时为{@link #TOTAL_UNKNOWN}
+     *
+     * @return 总行数
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 总页数，没有执行count查询时为{@link #TOTAL_UNKNOWN}
+     *
+     * @return 总页数
+     */
+    public long getPages() {
+        if (total == TOTAL_UNKNOWN) {
+            return TOTAL_UNKNOWN;
+        }
+        return (total + pageSize - 1) / pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{pageNum=" + pageNum + ", pageSize=" + pageSize + ", total=" + total + ", records=" + records.size() + '}';
+    }
+}
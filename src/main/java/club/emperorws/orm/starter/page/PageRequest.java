@@ -0,0 +1,50 @@
+package club.emperorws.orm.starter.page;
+
+import club.emperorws.orm.starter.util.Assert;
+
+/**
+ * 分页请求（页码从1开始）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:20
+ * @description: PageRequest: 分页请求
+ */
+public class PageRequest {
+
+    private final int pageNum;
+
+    private final int pageSize;
+
+    /**
+     * 是否执行count查询
+     */
+    private final boolean count;
+
+    public PageRequest(int pageNum, int pageSize) {
+        this(pageNum, pageSize, true);
+    }
+
+    public PageRequest(int pageNum, int pageSize, boolean count) {
+        Assert.isTrue(pageNum > 0, "pageNum must be greater than 0");
+        Assert.isTrue(pageSize > 0, "pageSize must be greater than 0");
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+        this.count = count;
+    }
+
+    public int getPageNum() {
+        return pageNum;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isCount() {
+        return count;
+    }
+
+    public long getOffset() {
+        return (long) (pageNum - 1) * pageSize;
+    }
+}
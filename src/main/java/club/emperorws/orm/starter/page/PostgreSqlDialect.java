@@ -0,0 +1,19 @@
+package club.emperorws.orm.starter.page;
+
+/**
+ * PostgreSQL方言
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:06
+ * @description: PostgreSqlDialect: PostgreSQL方言
+ */
+public class PostgreSqlDialect implements Dialect {
+
+    @Override
+    public String getLimitSql(String sql, long offset, int limit) {
+        if (offset <= 0) {
+            return sql + " limit " + limit;
+        }
+        return sql + " limit " + limit + " offset " + offset;
+    }
+}
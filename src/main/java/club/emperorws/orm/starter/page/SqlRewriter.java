@@ -0,0 +1,96 @@
+package club.emperorws.orm.starter.page;
+
+import java.util.Locale;
+
+/**
+ * 分页时的sql改写工具
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 21:10
+ * @description: SqlRewriter: 分页时的sql改写工具
+ */
+public final class SqlRewriter {
+
+    /**
+     * order by之后会改变结果行数的子句关键字
+     */
+    private static final String[] PAGING_KEYWORDS = {"limit", "offset", "fetch"};
+
+    private SqlRewriter() {
+        // do nothing
+    }
+
+    /**
+     * 去掉最外层（不在括号、字符串中）的order by子句
+     *
+     * @param sql sql
+     * @return 去掉order by的sql
+     */
+    public static String removeOrderBy(String sql) {
+        int index = lastTopLevelIndexOf(sql, "order by");
+        if (index < 0) {
+            return sql;
+        }
+        //order by之后还有limit等子句时不改写，避免改变结果行数
+        String tail = sql.substring(index);
+        for (String keyword : PAGING_KEYWORDS) {
+            if (lastTopLevelIndexOf(tail, keyword) >= 0) {
+                return sql;
+            }
+        }
+        return sql.substring(0, index).trim();
+    }
+
+    /**
+     * 最外层（不在括号、字符串中）的关键字最后一次出现的位置，关键字之间的空白可以是任意空白字符
+     *
+     * @param sql     sql
+     * @param keyword 小写关键字，单词之间一个空格
+     * @return 位置，没有时返回-1
+     */
+    static int lastTopLevelIndexOf(String sql, String keyword) {
+        String lower = sql.toLowerCase(Locale.ENGLISH);
+        int depth = 0;
+        boolean inString = false;
+        int found = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (!inString) {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (depth == 0 && matchesKeyword(lower, i, keyword)) {
+                    found = i;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean matchesKeyword(String sql, int start, String keyword) {
+        if (start > 0 && Character.isLetterOrDigit(sql.charAt(start - 1))) {
+            return false;
+        }
+        int i = start;
+        for (int k = 0; k < keyword.length(); k++) {
+            char expected = keyword.charAt(k);
+            if (expected == ' ') {
+                if (i >= sql.length() || !Character.isWhitespace(sql.charAt(i))) {
+                    return false;
+                }
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+            } else {
+                if (i >= sql.length() || sql.charAt(i) != expected) {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i >= sql.length() || !Character.isLetterOrDigit(sql.charAt(i));
+    }
+}
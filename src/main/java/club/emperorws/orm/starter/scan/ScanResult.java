@@ -0,0 +1,46 @@
+package club.emperorws.orm.starter.scan;
+
+/**
+ * 全表并行扫描的统计结果
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 22:00
+ * @description: ScanResult: 全表并行扫描的统计结果
+ */
+public class ScanResult {
+
+    /**
+     * 扫描的主键区间数
+     */
+    private final int rangeCount;
+
+    /**
+     * 交给处理器的行数
+     */
+    private final long rowCount;
+
+    private final long elapsedMillis;
+
+    public ScanResult(int rangeCount, long rowCount, long elapsedMillis) {
+        this.rangeCount = rangeCount;
+        this.rowCount = rowCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanResult{rangeCount=" + rangeCount + ", rowCount=" + rowCount + ", elapsedMillis=" + elapsedMillis + '}';
+    }
+}
@@ -0,0 +1,247 @@
+package club.emperorws.orm.starter.scan;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.result.ResultHandler;
+import club.emperorws.orm.starter.concurrent.OrmContextSnapshot;
+import club.emperorws.orm.starter.concurrent.OrmExecutors;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import club.emperorws.orm.starter.util.Assert;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 按主键区间并行扫描整张表（非事务）
+ * <p>先查询主键（整数类型）的最小值、最大值，把区间均匀切分为多个子区间，每个子区间在并发线程池中各自获取连接，
+ * 通过SqlSessionProxyBean.select把每一行交给处理器。主键区间条件直接加在表的where条件上（select * from table where (条件) and 主键区间），
+ * 每个子区间只按主键索引读取自己的范围，不会因为子查询被物化而每个子区间都全表扫描一次。子区间数默认为线程数的4倍，主键分布不均匀时，
+ * 先完成的线程会继续领取剩余的子区间，不会被单个大区间拖住</p>
+ * <p>处理器会被多个线程并发调用，必须是线程安全的。开启了读写分离时，扫描在从库上执行</p>
+ * <p>每个子区间的查询都带fetchSize提示，默认是MySQL的逐行流式读取，避免驱动把整个子区间读入内存；其他数据库通过{@link #setFetchSize(int)}设置正数</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * TableScanner scanner = new TableScanner(sqlSessionProxyBean);
+ * ScanResult result = scanner.scan("t_order", "id", context -&gt; process((Order) context.getResultObject()), 1, TimeUnit.HOURS);
+ * // 带条件扫描
+ * scanner.scan("t_order", "id", "status = #{status}", Collections.singletonMap("status", 1), 64, handler, 1, TimeUnit.HOURS);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 22:05
+ * @description: TableScanner: 按主键区间并行扫描整张表
+ */
+public class TableScanner {
+
+    private static final Log log = LogFactory.getLog(TableScanner.class);
+
+    public static final String LOWER_PARAMETER = "__scanLower";
+
+    public static final String UPPER_PARAMETER = "__scanUpper";
+
+    private static final Pattern TABLE = Pattern.compile("[\\w.`\"]+");
+
+    /**
+     * 主键列不能带表名或别名限定，区间条件直接作用于扫描的表
+     */
+    private static final Pattern COLUMN = Pattern.compile("[\\w`\"]+");
+
+    private final SqlSessionProxyBean sqlSessionProxyBean;
+
+    /**
+     * 扫描使用的线程池，为空时使用SqlSessionProxyBean的并发查询线程池
+     */
+    private ExecutorService executor;
+
+    /**
+     * 每个线程平均分到的子区间数
+     */
+    private int rangesPerThread = 4;
+
+    /**
+     * 每个子区间查询的fetchSize提示，0表示使用驱动默认值
+     */
+    private int fetchSize = SqlSessionProxyBean.STREAMING_FETCH_SIZE;
+
+    public TableScanner(SqlSessionProxyBean sqlSessionProxyBean) {
+        Assert.notNull(sqlSessionProxyBean, "Property 'sqlSessionProxyBean' is required");
+        this.sqlSessionProxyBean = sqlSessionProxyBean;
+    }
+
+    /**
+     * 设置扫描使用的线程池，线程数不应超过数据库连接池的大小
+     *
+     * @param executor 线程池
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public void setRangesPerThread(int rangesPerThread) {
+        Assert.isTrue(rangesPerThread > 0, "rangesPerThread must be greater than 0");
+        this.rangesPerThread = rangesPerThread;
+    }
+
+    /**
+     * 设置每个子区间查询的fetchSize提示：MySQL默认使用{@link SqlSessionProxyBean#STREAMING_FETCH_SIZE}，
+     * PostgreSQL、Oracle等使用正数，0表示使用驱动默认值
+     *
+     * @param fetchSize fetchSize提示
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 并行扫描整张表，子区间数为CPU核数 * 2 * rangesPerThread
+     *
+     * @param table     表名
+     * @param keyColumn 整数类型的主键列，不带表名限定
+     * @param handler   线程安全的行处理器
+     * @param timeout   整个扫描的超时时间
+     * @param unit      超时时间单位
+     * @return 扫描统计
+     */
+    public ScanResult scan(String table, String keyColumn, ResultHandler<?> handler, long timeout, TimeUnit unit) {
+        int splits = Runtime.getRuntime().availableProcessors() * 2 * rangesPerThread;
+        return scan(table, keyColumn, null, null, splits, handler, timeout, unit);
+    }
+
+    /**
+     * 并行扫描整张表中满足条件的行
+     *
+     * @param table     表名
+     * @param keyColumn 整数类型的主键列，不带表名限定
+     * @param where     where条件（不带where关键字，可以使用#{}占位符），为空时扫描所有行
+     * @param parameter where条件的请求参数，Map或者null
+     * @param splits    子区间数
+     * @param handler   线程安全的行处理器
+     * @param timeout   整个扫描的超时时间
+     * @param unit      超时时间单位
+     * @return 扫描统计
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ScanResult scan(String table, String keyColumn, String where, Map<String, ?> parameter, int splits,
+                           ResultHandler<?> handler, long timeout, TimeUnit unit) {
+        Assert.notNull(table, "Parameter 'table' is required");
+        Assert.notNull(keyColumn, "Parameter 'keyColumn' is required");
+        Assert.notNull(handler, "Parameter 'handler' is required");
+        Assert.isTrue(TABLE.matcher(table).matches(), "Illegal table: {0}", table);
+        Assert.isTrue(COLUMN.matcher(keyColumn).matches(), "Illegal keyColumn: {0}, it must not be qualified", keyColumn);
+        Assert.isTrue(splits > 0, "splits must be greater than 0");
+        long start = System.nanoTime();
+
+        long[] bounds = sqlSessionProxyBean.executeRead(sqlSession -> queryBounds(sqlSession.getConnection(), table, keyColumn));
+        if (bounds == null) {
+            return new ScanResult(0, 0, elapsedMillis(start));
+        }
+        List<long[]> ranges = split(bounds[0], bounds[1], splits);
+        log.debug(() -> "Scan table [" + table + "] by [" + keyColumn + "] in " + ranges.size() + " ranges between " + bounds[0] + " and " + bounds[1]);
+
+        SqlSource rangeSqlSource = new SqlSource.Builder(rangeSql(table, keyColumn, where)).build();
+        LongAdder rows = new LongAdder();
+        ResultHandler countingHandler = context -> {
+            rows.increment();
+            ((ResultHandler) handler).handleResult(context);
+        };
+
+        ExecutorService scanExecutor = this.executor == null ? sqlSessionProxyBean.getAsyncExecutor() : this.executor;
+        OrmContextSnapshot snapshot = OrmContextSnapshot.captureDataSourceOnly();
+        int rangeFetchSize = this.fetchSize;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(ranges.size());
+        for (long[] range : ranges) {
+            Map<String, Object> rangeParameter = parameter == null ? new HashMap<>(4) : new HashMap<>(parameter);
+            rangeParameter.put(LOWER_PARAMETER, range[0]);
+            rangeParameter.put(UPPER_PARAMETER, range[1]);
+            Callable<Void> task = () -> {
+                //与游标查询一样，fetchSize提示通过DynamicDataSource返回的连接设置到Statement上
+                OrmContext context = OrmContextHolder.currentContext();
+                int previousFetchSize = context.getFetchSize();
+                context.setFetchSize(rangeFetchSize);
+                try {
+                    sqlSessionProxyBean.select(rangeSqlSource, rangeParameter, countingHandler);
+                } finally {
+                    context.setFetchSize(previousFetchSize);
+                }
+                return null;
+            };
+            futures.add(OrmExecutors.submitAsync(snapshot.wrap(task), scanExecutor));
+        }
+        OrmExecutors.awaitAll(futures, timeout, unit);
+        return new ScanResult(ranges.size(), rows.sum(), elapsedMillis(start));
+    }
+
+    /**
+     * 每个子区间执行的sql：select * from table where (where) and key &gt;= lower and key &lt;= upper
+     */
+    static String rangeSql(String table, String keyColumn, String where) {
+        StringBuilder sql = new StringBuilder(64).append("select * from ").append(table).append(" where ");
+        if (where != null && !where.trim().isEmpty()) {
+            sql.append('(').append(where).append(") and ");
+        }
+        return sql.append(keyColumn).append(" >= #{").append(LOWER_PARAMETER).append("} and ")
+                .append(keyColumn).append(" <= #{").append(UPPER_PARAMETER).append('}').toString();
+    }
+
+    /**
+     * 查询主键的最小值、最大值
+     *
+     * @return [min, max]，表为空时返回null
+     */
+    private static long[] queryBounds(Connection connection, String table, String keyColumn) {
+        String sql = "select min(" + keyColumn + "), max(" + keyColumn + ") from " + table;
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            long min = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                return null;
+            }
+            return new long[]{min, resultSet.getLong(2)};
+        } catch (SQLException e) {
+            throw new OrmException("Query key bounds of table [" + table + "] error", e);
+        }
+    }
+
+    /**
+     * 把[min, max]均匀切分为最多splits个闭区间
+     */
+    static List<long[]> split(long min, long max, int splits) {
+        List<long[]> ranges = new ArrayList<>(splits);
+        //用double计算步长，避免max - min溢出
+        double step = Math.max(1D, ((double) max - (double) min + 1D) / splits);
+        long lower = min;
+        for (int i = 1; i <= splits && lower <= max; i++) {
+            long upper = i == splits ? max : (long) Math.min((double) max, Math.floor(min + step * i) - 1);
+            if (upper < lower) {
+                continue;
+            }
+            ranges.add(new long[]{lower, upper});
+            if (upper == max) {
+                break;
+            }
+            lower = upper + 1;
+        }
+        return ranges;
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
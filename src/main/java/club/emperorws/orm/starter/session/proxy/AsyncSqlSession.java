@@ -0,0 +1,200 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.RowBounds;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.starter.concurrent.OrmContextSnapshot;
+import club.emperorws.orm.starter.concurrent.OrmExecutors;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static club.emperorws.orm.starter.util.Assert.notNull;
+
+/**
+ * SqlSessionProxyBean的异步版本，所有操作返回CompletableFuture，不阻塞调用线程
+ * <p>操作在专用的JDBC线程池（普通线程或虚拟线程）中执行，复用SqlSessionProxyBean的SqlSession管理：
+ * 每个操作各自获取连接、执行完成后自动提交并关闭，不参与调用线程的事务；调用线程切换的数据源会传递到执行线程</p>
+ * <p>未完成（排队中 + 执行中）的操作数量有上限，超过上限时不会阻塞，直接返回以RejectedExecutionException失败的Future，由调用方处理背压</p>
+ * <p>Future在JDBC线程中完成，后续的耗时处理请使用thenXxxAsync切换到业务线程池</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * AsyncSqlSession asyncSqlSession = AsyncSqlSession.withVirtualThreads(SqlSessionFactoryProxyBean.me().getSqlSessionProxyBean(), 200);
+ * asyncSqlSession.selectList(sqlSource, "a").thenAccept(studentList -&gt; ...);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 14:30
+ * @description: AsyncSqlSession: SqlSessionProxyBean的异步版本
+ */
+public class AsyncSqlSession implements AutoCloseable {
+
+    private final SqlSessionProxyBean sqlSessionProxyBean;
+
+    private final ExecutorService executor;
+
+    /**
+     * 是否由当前对象创建线程池（close时需要关闭）
+     */
+    private final boolean ownsExecutor;
+
+    private final int maxPending;
+
+    /**
+     * 未完成操作的许可
+     */
+    private final Semaphore pendingPermits;
+
+    private volatile boolean closed = false;
+
+    public AsyncSqlSession(SqlSessionProxyBean sqlSessionProxyBean, ExecutorService executor, int maxPending) {
+        this(sqlSessionProxyBean, executor, maxPending, false);
+    }
+
+    private AsyncSqlSession(SqlSessionProxyBean sqlSessionProxyBean, ExecutorService executor, int maxPending, boolean ownsExecutor) {
+        notNull(sqlSessionProxyBean, "Property 'sqlSessionProxyBean' is required");
+        notNull(executor, "Property 'executor' is required");
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Property 'maxPending' must be greater than 0");
+        }
+        this.sqlSessionProxyBean = sqlSessionProxyBean;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.ownsExecutor = ownsExecutor;
+        this.pendingPermits = new Semaphore(maxPending);
+    }
+
+    /**
+     * 使用固定数量普通线程的异步SqlSession
+     *
+     * @param sqlSessionProxyBean SqlSessionProxyBean
+     * @param threads             JDBC线程数，不应超过数据库连接池大小
+     * @param maxPending          未完成操作的上限
+     * @return AsyncSqlSession
+     */
+    public static AsyncSqlSession withPlatformThreads(SqlSessionProxyBean sqlSessionProxyBean, int threads, int maxPending) {
+        return new AsyncSqlSession(sqlSessionProxyBean, OrmExecutors.newBoundedExecutor("orm-jdbc", threads, maxPending), maxPending, true);
+    }
+
+    /**
+     * 使用虚拟线程的异步SqlSession（JDK 21以下退化为普通线程），并发数由maxPending与数据库连接池共同限制
+     *
+     * @param sqlSessionProxyBean SqlSessionProxyBean
+     * @param maxPending          未完成操作的上限
+     * @return AsyncSqlSession
+     */
+    public static AsyncSqlSession withVirtualThreads(SqlSessionProxyBean sqlSessionProxyBean, int maxPending) {
+        return new AsyncSqlSession(sqlSessionProxyBean, OrmExecutors.newVirtualThreadPerTaskExecutor(false), maxPending, true);
+    }
+
+    public <T> CompletableFuture<T> selectOne(SqlSource sqlSource) {
+        return submit(() -> sqlSessionProxyBean.selectOne(sqlSource));
+    }
+
+    public <T> CompletableFuture<T> selectOne(SqlSource sqlSource, Object parameter) {
+        return submit(() -> sqlSessionProxyBean.selectOne(sqlSource, parameter));
+    }
+
+    public <E> CompletableFuture<List<E>> selectList(SqlSource sqlSource) {
+        return submit(() -> sqlSessionProxyBean.selectList(sqlSource));
+    }
+
+    public <E> CompletableFuture<List<E>> selectList(SqlSource sqlSource, Object parameter) {
+        return submit(() -> sqlSessionProxyBean.selectList(sqlSource, parameter));
+    }
+
+    public <E> CompletableFuture<List<E>> selectList(SqlSource sqlSource, Object parameter, RowBounds rowBounds) {
+        return submit(() -> sqlSessionProxyBean.selectList(sqlSource, parameter, rowBounds));
+    }
+
+    public <K, V> CompletableFuture<Map<K, V>> selectMap(SqlSource sqlSource, String mapKey) {
+        return submit(() -> sqlSessionProxyBean.selectMap(sqlSource, mapKey));
+    }
+
+    public <K, V> CompletableFuture<Map<K, V>> selectMap(SqlSource sqlSource, Object parameter, String mapKey) {
+        return submit(() -> sqlSessionProxyBean.selectMap(sqlSource, parameter, mapKey));
+    }
+
+    public CompletableFuture<Integer> insert(SqlSource sqlSource) {
+        return submit(() -> sqlSessionProxyBean.insert(sqlSource));
+    }
+
+    public CompletableFuture<Integer> insert(SqlSource sqlSource, Object parameter) {
+        return submit(() -> sqlSessionProxyBean.insert(sqlSource, parameter));
+    }
+
+    public CompletableFuture<Integer> update(SqlSource sqlSource) {
+        return submit(() -> sqlSessionProxyBean.update(sqlSource));
+    }
+
+    public CompletableFuture<Integer> update(SqlSource sqlSource, Object parameter) {
+        return submit(() -> sqlSessionProxyBean.update(sqlSource, parameter));
+    }
+
+    public CompletableFuture<Integer> delete(SqlSource sqlSource) {
+        return submit(() -> sqlSessionProxyBean.delete(sqlSource));
+    }
+
+    public CompletableFuture<Integer> delete(SqlSource sqlSource, Object parameter) {
+        return submit(() -> sqlSessionProxyBean.delete(sqlSource, parameter));
+    }
+
+    /**
+     * 在同一个SqlSession上异步执行多个操作，全部执行成功后统一提交
+     *
+     * @param callback 在SqlSession上执行的操作
+     * @return 操作的返回结果
+     */
+    public <T> CompletableFuture<T> execute(SqlSessionCallback<T> callback) {
+        return submit(() -> sqlSessionProxyBean.execute(callback));
+    }
+
+    /**
+     * 当前未完成（排队中 + 执行中）的操作数量
+     *
+     * @return 未完成的操作数量
+     */
+    public int getPendingCount() {
+        return maxPending - pendingPermits.availablePermits();
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public SqlSessionProxyBean getSqlSessionProxyBean() {
+        return sqlSessionProxyBean;
+    }
+
+    /**
+     * 不再接受新的操作，由当前对象创建的线程池会在已提交的操作执行完后关闭
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+    }
+
+    /*************************************************private function***************************************************/
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (this.closed) {
+            return failed(new RejectedExecutionException("AsyncSqlSession has been closed"));
+        }
+        if (!this.pendingPermits.tryAcquire()) {
+            return failed(new RejectedExecutionException("Too many pending operations, max pending is " + this.maxPending));
+        }
+        CompletableFuture<T> future = OrmExecutors.submitAsync(OrmContextSnapshot.captureDataSourceOnly().wrap(task), this.executor);
+        future.whenComplete((result, t) -> this.pendingPermits.release());
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
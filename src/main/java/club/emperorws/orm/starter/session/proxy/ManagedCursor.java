@@ -0,0 +1,121 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.cursor.Cursor;
+import club.emperorws.orm.exception.OrmException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 生命周期绑定SqlSession的游标：游标关闭（或者遍历结束）时才释放SqlSession与数据库连接
+ * <p>使用完必须关闭，推荐try-with-resources：</p>
+ * <pre>
+ * try (ManagedCursor&lt;Student&gt; cursor = sqlSessionProxyBean.selectStreamingCursor(sqlSource, parameter, SqlSessionProxyBean.STREAMING_FETCH_SIZE)) {
+ *     for (Student student : cursor) {
+ *         export(student);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 20:40
+ * @description: ManagedCursor: 生命周期绑定SqlSession的游标
+ */
+public class ManagedCursor<T> implements Cursor<T> {
+
+    private final Cursor<T> delegate;
+
+    /**
+     * 释放SqlSession
+     */
+    private final Runnable release;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public ManagedCursor(Cursor<T> delegate, Runnable release) {
+        this.delegate = delegate;
+        this.release = release;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed.get() && delegate.isOpen();
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return delegate.isConsumed();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return delegate.getCurrentIndex();
+    }
+
+    /**
+     * 遍历结束时自动关闭游标
+     *
+     * @return 迭代器
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = delegate.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                if (closed.get()) {
+                    return false;
+                }
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext) {
+                    closeQuietly();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (closed.get()) {
+                    throw new NoSuchElementException("Cursor is closed");
+                }
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * 游标的Stream视图，Stream关闭时关闭游标
+     *
+     * @return Stream
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::closeQuietly);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            delegate.close();
+        } finally {
+            release.run();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new OrmException("Close cursor error", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.SqlSession;
+
+/**
+ * 写缓冲中等待执行的写操作
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 19:05
+ * @description: PendingWrite: 等待执行的写操作
+ */
+public class PendingWrite {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+
+    private final SqlSource sqlSource;
+
+    private final Object parameter;
+
+    public PendingWrite(Type type, SqlSource sqlSource, Object parameter) {
+        this.type = type;
+        this.sqlSource = sqlSource;
+        this.parameter = parameter;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public SqlSource getSqlSource() {
+        return sqlSource;
+    }
+
+    public Object getParameter() {
+        return parameter;
+    }
+
+    /**
+     * 在SqlSession上执行（BATCH类型的SqlSession只是加入批量）
+     *
+     * @param sqlSession SqlSession
+     */
+    public void executeOn(SqlSession sqlSession) {
+        switch (type) {
+            case INSERT:
+                sqlSession.insert(sqlSource, parameter);
+                break;
+            case UPDATE:
+                sqlSession.update(sqlSource, parameter);
+                break;
+            case DELETE:
+                sqlSession.delete(sqlSource, parameter);
+                break;
+            default:
+                throw new IllegalStateException("Unknown write type: " + type);
+        }
+    }
+}
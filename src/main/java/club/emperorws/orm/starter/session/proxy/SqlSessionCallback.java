@@ -0,0 +1,22 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.session.SqlSession;
+
+/**
+ * 在SqlSession上执行的操作回调
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 9:12
+ * @description: SqlSessionCallback: 在SqlSession上执行的操作回调
+ */
+@FunctionalInterface
+public interface SqlSessionCallback<T> {
+
+    /**
+     * 使用已获取的SqlSession执行操作，SqlSession的获取、提交与关闭由调用方负责
+     *
+     * @param sqlSession 当前可用的SqlSession
+     * @return 操作的返回结果
+     */
+    T doInSqlSession(SqlSession sqlSession);
+}
@@ -1,8 +1,10 @@
 package club.emperorws.orm.starter.session.proxy;
 
+import club.emperorws.orm.result.BatchResult;
 import club.emperorws.orm.session.ExecutorType;
 import club.emperorws.orm.session.SqlSession;
 
+import java.util.*;
 import java.util.concurrent.atomic.LongAdder;
 
 import static club.emperorws.orm.starter.util.Assert.notNull;
@@ -22,12 +24,27 @@ public class SqlSessionHolder {
      */
     private boolean synchronizedWithTransaction = false;
 
-    private final SqlSession sqlSession;
+    private SqlSession sqlSession;
 
-    private final ExecutorType executorType;
+    private ExecutorType executorType;
 
     private final LongAdder referenceCount = new LongAdder();
 
+    /**
+     * 事务中该SqlSession使用的分片数据源key，没有分片时为null
+     */
+    private String dataSourceKey;
+
+    /**
+     * 写缓冲中等待执行的写操作，没有开启写缓冲时为null
+     */
+    private List<PendingWrite> pendingWrites;
+
+    /**
+     * 写缓冲已经执行、还没有被取走的批量结果
+     */
+    private List<BatchResult> flushedResults;
+
     public SqlSessionHolder(SqlSession sqlSession, ExecutorType executorType) {
 
         notNull(sqlSession, "SqlSession must not be null");
@@ -37,6 +54,24 @@ public class SqlSessionHolder {
         this.executorType = executorType;
     }
 
+    /**
+     * 复用已经关闭的SqlSessionHolder持有新的SqlSession，状态恢复为刚创建时
+     *
+     * @param sqlSession   新的SqlSession
+     * @param executorType ExecutorType
+     */
+    public void reuse(SqlSession sqlSession, ExecutorType executorType) {
+        notNull(sqlSession, "SqlSession must not be null");
+        notNull(executorType, "ExecutorType must not be null");
+
+        this.sqlSession = sqlSession;
+        this.executorType = executorType;
+        this.synchronizedWithTransaction = false;
+        this.dataSourceKey = null;
+        clearPendingWrites();
+        reset();
+    }
+
     public void setSynchronizedWithTransaction(boolean synchronizedWithTransaction) {
         this.synchronizedWithTransaction = synchronizedWithTransaction;
     }
@@ -53,6 +88,81 @@ public class SqlSessionHolder {
         return executorType;
     }
 
+    public String getDataSourceKey() {
+        return dataSourceKey;
+    }
+
+    public void setDataSourceKey(String dataSourceKey) {
+        this.dataSourceKey = dataSourceKey;
+    }
+
+    /**
+     * 加入写缓冲
+     *
+     * @param pendingWrite 等待执行的写操作
+     */
+    public void bufferWrite(PendingWrite pendingWrite) {
+        if (this.pendingWrites == null) {
+            this.pendingWrites = new ArrayList<>();
+        }
+        this.pendingWrites.add(pendingWrite);
+    }
+
+    public boolean hasPendingWrites() {
+        return this.pendingWrites != null && !this.pendingWrites.isEmpty();
+    }
+
+    /**
+     * 执行写缓冲：按调用顺序加入JDBC批量，最后统一flushStatements
+     * <p>BATCH类型的SqlSession只把连续的相同sql合并到同一个JDBC批量中，sql变化时开启新的批量，flush时按顺序执行，
+     * 写操作之间的先后依赖（先插入主表再插入子表、先删除再插入同一个主键等）保持不变</p>
+     *
+     * @return 本次执行的批量结果
+     */
+    public List<BatchResult> flushPendingWrites() {
+        if (!hasPendingWrites()) {
+            return Collections.emptyList();
+        }
+        List<PendingWrite> writes = new ArrayList<>(this.pendingWrites);
+        this.pendingWrites.clear();
+        for (PendingWrite pendingWrite : writes) {
+            pendingWrite.executeOn(this.sqlSession);
+        }
+        List<BatchResult> results = this.sqlSession.flushStatements();
+        if (this.flushedResults == null) {
+            this.flushedResults = new ArrayList<>(results);
+        } else {
+            this.flushedResults.addAll(results);
+        }
+        return results;
+    }
+
+    /**
+     * 取走写缓冲已经执行的批量结果
+     *
+     * @return 批量结果
+     */
+    public List<BatchResult> drainFlushedResults() {
+        if (this.flushedResults == null || this.flushedResults.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<BatchResult> results = new ArrayList<>(this.flushedResults);
+        this.flushedResults.clear();
+        return results;
+    }
+
+    /**
+     * 丢弃写缓冲（回滚时）
+     */
+    public void clearPendingWrites() {
+        if (this.pendingWrites != null) {
+            this.pendingWrites.clear();
+        }
+        if (this.flushedResults != null) {
+            this.flushedResults.clear();
+        }
+    }
+
     public void requested() {
         referenceCount.increment();
     }
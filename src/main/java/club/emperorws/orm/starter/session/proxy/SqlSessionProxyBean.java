@@ -1,6 +1,7 @@
 package club.emperorws.orm.starter.session.proxy;
 
 import club.emperorws.orm.Configuration;
+import club.emperorws.orm.exception.OrmException;
 import club.emperorws.orm.cursor.Cursor;
 import club.emperorws.orm.mapping.RowBounds;
 import club.emperorws.orm.mapping.SqlSource;
@@ -9,17 +10,40 @@ import club.emperorws.orm.result.ResultHandler;
 import club.emperorws.orm.session.ExecutorType;
 import club.emperorws.orm.session.SqlSession;
 import club.emperorws.orm.session.SqlSessionFactory;
+import club.emperorws.orm.starter.batch.BatchScope;
+import club.emperorws.orm.starter.cache.QueryCacheKey;
+import club.emperorws.orm.starter.cache.QueryCacheSynchronization;
+import club.emperorws.orm.starter.cache.QueryResultCache;
+import club.emperorws.orm.starter.concurrent.OrmContextSnapshot;
+import club.emperorws.orm.starter.concurrent.OrmExecutors;
+import club.emperorws.orm.starter.datasource.DataSourceContextHolder;
+import club.emperorws.orm.starter.datasource.DynamicDataSource;
+import club.emperorws.orm.starter.page.*;
+import club.emperorws.orm.starter.sharding.ShardingRouter;
+import club.emperorws.orm.starter.sharding.ShardingRule;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import club.emperorws.orm.starter.util.PropertyReader;
 import club.emperorws.orm.starter.util.SqlSessionUtils;
-import club.emperorws.orm.util.ExceptionUtil;
+import club.emperorws.orm.starter.util.SqlSourceUtils;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 import static club.emperorws.orm.starter.util.Assert.notNull;
-import static java.lang.reflect.Proxy.newProxyInstance;
 
 /**
  * 动态代理后可直接使用的SqlSession单例Bean
@@ -30,11 +54,49 @@ import static java.lang.reflect.Proxy.newProxyInstance;
  */
 public class SqlSessionProxyBean implements SqlSession {
 
+    /**
+     * MySQL流式读取的fetchSize（逐行读取，不把整个结果集读入内存）
+     */
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * 没有设置数据库方言时，selectPage等数据库分页方法使用的方言
+     */
+    private static final Dialect DEFAULT_DIALECT = new MySqlDialect();
+
     private final SqlSessionFactory sqlSessionFactory;
 
     private final ExecutorType executorType;
 
-    private final SqlSession sqlSessionProxy;
+    /**
+     * 并发查询使用的有界线程池，为空时第一次使用再创建默认线程池
+     */
+    private volatile ExecutorService asyncExecutor;
+
+    /**
+     * 分片路由，为空表示不分片
+     */
+    private volatile ShardingRouter shardingRouter;
+
+    /**
+     * 查询结果缓存，为空表示不缓存
+     */
+    private volatile QueryResultCache queryResultCache;
+
+    /**
+     * 数据库方言，设置后带RowBounds的查询改写为数据库分页
+     */
+    private volatile Dialect dialect;
+
+    /**
+     * 没有被事务管理的只读调用执行后是否也commit，默认不commit
+     */
+    private volatile boolean commitAfterRead;
+
+    /**
+     * 只读调用省掉的commit次数
+     */
+    private final LongAdder avoidedCommitCount = new LongAdder();
 
     public SqlSessionProxyBean(SqlSessionFactory sqlSessionFactory) {
         this(sqlSessionFactory, sqlSessionFactory.getConfiguration().getDefaultExecutorType());
@@ -47,7 +109,29 @@ public class SqlSessionProxyBean implements SqlSession {
 
         this.sqlSessionFactory = sqlSessionFactory;
         this.executorType = executorType;
-        this.sqlSessionProxy = (SqlSession) newProxyInstance(SqlSessionFactory.class.getClassLoader(), new Class[]{SqlSession.class}, new SqlSessionProxy());
+    }
+
+    /**
+     * 没有被事务管理的只读调用（select*、getConfiguration）执行后是否也commit
+     * <p>默认不commit，只读调用执行完直接关闭SqlSession；查询中调用了会修改数据的存储函数时需要设置为true</p>
+     *
+     * @param commitAfterRead 是否commit
+     */
+    public void setCommitAfterRead(boolean commitAfterRead) {
+        this.commitAfterRead = commitAfterRead;
+    }
+
+    public boolean isCommitAfterRead() {
+        return this.commitAfterRead;
+    }
+
+    /**
+     * 只读调用省掉的commit次数
+     *
+     * @return commit次数
+     */
+    public long getAvoidedCommitCount() {
+        return this.avoidedCommitCount.sum();
     }
 
     public SqlSessionFactory getSqlSessionFactory() {
@@ -58,6 +142,73 @@ public class SqlSessionProxyBean implements SqlSession {
         return this.executorType;
     }
 
+    /**
+     * 设置并发查询使用的线程池，线程数不应超过数据库连接池的大小
+     *
+     * @param asyncExecutor 线程池
+     */
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 设置分片路由，设置后带请求参数的方法按分片规则自动选择数据源
+     *
+     * @param shardingRouter 分片路由
+     */
+    public void setShardingRouter(ShardingRouter shardingRouter) {
+        this.shardingRouter = shardingRouter;
+    }
+
+    public ShardingRouter getShardingRouter() {
+        return shardingRouter;
+    }
+
+    /**
+     * 设置查询结果缓存，设置后登记过的sql的selectOne、selectList结果会被缓存
+     *
+     * @param queryResultCache 查询结果缓存
+     */
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    /**
+     * 设置数据库方言，设置后带RowBounds的查询（selectList、selectMap、select、selectCursor）改写为数据库分页，不再把前面的行全部读出后在内存中跳过
+     *
+     * @param dialect 数据库方言
+     */
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * 获取并发查询使用的线程池，没有设置时创建默认的有界线程池（CPU核数 * 2个守护线程，队列1024，队列满时拒绝）
+     *
+     * @return 线程池
+     */
+    public ExecutorService getAsyncExecutor() {
+        ExecutorService executor = this.asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.asyncExecutor;
+                if (executor == null) {
+                    executor = OrmExecutors.newBoundedExecutor("orm-async", Runtime.getRuntime().availableProcessors() * 2, 1024);
+                    this.asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * 返回单行值的结果（没有请求参数）
      *
@@ -66,7 +217,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <T> T selectOne(SqlSource sqlSource) {
-        return this.sqlSessionProxy.selectOne(sqlSource);
+        return executeCached(sqlSource, null, sqlSession -> sqlSession.selectOne(sqlSource));
     }
 
     /**
@@ -78,7 +229,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <T> T selectOne(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.selectOne(sqlSource, parameter);
+        return executeCached(sqlSource, parameter, sqlSession -> sqlSession.selectOne(sqlSource, parameter));
     }
 
     /**
@@ -89,7 +240,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <E> List<E> selectList(SqlSource sqlSource) {
-        return this.sqlSessionProxy.selectList(sqlSource);
+        return executeCached(sqlSource, null, sqlSession -> sqlSession.selectList(sqlSource));
     }
 
     /**
@@ -101,7 +252,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <E> List<E> selectList(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.selectList(sqlSource, parameter);
+        return executeCached(sqlSource, parameter, sqlSession -> sqlSession.selectList(sqlSource, parameter));
     }
 
     /**
@@ -109,12 +260,16 @@ public class SqlSessionProxyBean implements SqlSession {
      *
      * @param sqlSource 执行sql的语句
      * @param parameter 整合的请求参数
-     * @param rowBounds 内存分页信息
+     * @param rowBounds 分页信息（设置了数据库方言时改写为数据库分页，否则为内存分页）
      * @return 返回List集合
      */
     @Override
     public <E> List<E> selectList(SqlSource sqlSource, Object parameter, RowBounds rowBounds) {
-        return this.sqlSessionProxy.selectList(sqlSource, parameter, rowBounds);
+        SqlSource limitSqlSource = limitSqlSource(sqlSource, rowBounds);
+        if (limitSqlSource != null) {
+            return selectList(limitSqlSource, parameter);
+        }
+        return executeRead(sqlSource, parameter, sqlSession -> sqlSession.selectList(sqlSource, parameter, rowBounds));
     }
 
     /**
@@ -127,7 +282,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <K, V> Map<K, V> selectMap(SqlSource sqlSource, String mapKey) {
-        return this.sqlSessionProxy.selectMap(sqlSource, mapKey);
+        return executeRead(sqlSession -> sqlSession.selectMap(sqlSource, mapKey));
     }
 
     /**
@@ -140,7 +295,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <K, V> Map<K, V> selectMap(SqlSource sqlSource, Object parameter, String mapKey) {
-        return this.sqlSessionProxy.selectMap(sqlSource, parameter, mapKey);
+        return executeRead(sqlSource, parameter, sqlSession -> sqlSession.selectMap(sqlSource, parameter, mapKey));
     }
 
     /**
@@ -149,27 +304,33 @@ public class SqlSessionProxyBean implements SqlSession {
      * @param sqlSource 执行sql的语句
      * @param parameter 整合的请求参数
      * @param mapKey    哪一个属性作为键
-     * @param rowBounds 内存分页信息
+     * @param rowBounds 分页信息（设置了数据库方言时改写为数据库分页，否则为内存分页）
      * @return 返回map
      */
     @Override
     public <K, V> Map<K, V> selectMap(SqlSource sqlSource, Object parameter, String mapKey, RowBounds rowBounds) {
-        return this.sqlSessionProxy.selectMap(sqlSource, parameter, mapKey, rowBounds);
+        SqlSource limitSqlSource = limitSqlSource(sqlSource, rowBounds);
+        if (limitSqlSource != null) {
+            return selectMap(limitSqlSource, parameter, mapKey);
+        }
+        return executeRead(sqlSource, parameter, sqlSession -> sqlSession.selectMap(sqlSource, parameter, mapKey, rowBounds));
     }
 
     /**
-     * 游标查询，暂不实现ignore
+     * 游标查询（没有请求参数）
+     * <p>返回的游标绑定SqlSession与数据库连接，必须关闭（遍历结束时自动关闭）</p>
      *
      * @param sqlSource 执行sql的语句
      * @return 返回游标对象
      */
     @Override
     public <T> Cursor<T> selectCursor(SqlSource sqlSource) {
-        return this.sqlSessionProxy.selectCursor(sqlSource);
+        return openCursor(sqlSource, null, 0, sqlSession -> sqlSession.selectCursor(sqlSource));
     }
 
     /**
-     * 游标查询，暂不实现ignore
+     * 游标查询（有请求参数）
+     * <p>返回的游标绑定SqlSession与数据库连接，必须关闭（遍历结束时自动关闭）</p>
      *
      * @param sqlSource 执行sql的语句
      * @param parameter 整合的请求参数
@@ -177,20 +338,52 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public <T> Cursor<T> selectCursor(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.selectCursor(sqlSource, parameter);
+        return openCursor(sqlSource, parameter, 0, sqlSession -> sqlSession.selectCursor(sqlSource, parameter));
     }
 
     /**
-     * 游标查询，暂不实现ignore
+     * 游标查询（有请求参数、内存分页信息）
+     * <p>返回的游标绑定SqlSession与数据库连接，必须关闭（遍历结束时自动关闭）</p>
      *
      * @param sqlSource 执行sql的语句
      * @param parameter 整合的请求参数
-     * @param rowBounds 内存分页信息
+     * @param rowBounds 分页信息（设置了数据库方言时改写为数据库分页，否则为内存分页）
      * @return 返回游标对象
      */
     @Override
     public <T> Cursor<T> selectCursor(SqlSource sqlSource, Object parameter, RowBounds rowBounds) {
-        return this.sqlSessionProxy.selectCursor(sqlSource, parameter, rowBounds);
+        SqlSource limitSqlSource = limitSqlSource(sqlSource, rowBounds);
+        if (limitSqlSource != null) {
+            return selectCursor(limitSqlSource, parameter);
+        }
+        return openCursor(sqlSource, parameter, 0, sqlSession -> sqlSession.selectCursor(sqlSource, parameter, rowBounds));
+    }
+
+    /**
+     * 流式游标查询，指定fetchSize，常量数量的内存遍历大结果集
+     * <p>MySQL使用{@link #STREAMING_FETCH_SIZE}逐行流式读取（也可以在连接参数中开启useCursorFetch后使用正数的fetchSize），
+     * PostgreSQL需要在事务中（关闭自动提交）使用正数的fetchSize。fetchSize通过DynamicDataSource返回的连接设置到Statement上</p>
+     *
+     * @param sqlSource 执行sql的语句
+     * @param parameter 整合的请求参数
+     * @param fetchSize 每次从数据库读取的行数
+     * @return 返回游标对象
+     */
+    public <T> ManagedCursor<T> selectStreamingCursor(SqlSource sqlSource, Object parameter, int fetchSize) {
+        return openCursor(sqlSource, parameter, fetchSize, sqlSession -> sqlSession.selectCursor(sqlSource, parameter));
+    }
+
+    /**
+     * 流式查询的Stream视图，Stream必须关闭（推荐try-with-resources）
+     *
+     * @param sqlSource 执行sql的语句
+     * @param parameter 整合的请求参数
+     * @param fetchSize 每次从数据库读取的行数
+     * @return Stream
+     */
+    public <T> Stream<T> selectStream(SqlSource sqlSource, Object parameter, int fetchSize) {
+        ManagedCursor<T> cursor = selectStreamingCursor(sqlSource, parameter, fetchSize);
+        return cursor.stream();
     }
 
     /**
@@ -204,7 +397,10 @@ public class SqlSessionProxyBean implements SqlSession {
     @SuppressWarnings("rawtypes")
     @Override
     public void select(SqlSource sqlSource, Object parameter, ResultHandler handler) {
-        this.sqlSessionProxy.select(sqlSource, parameter, handler);
+        executeRead(sqlSource, parameter, sqlSession -> {
+            sqlSession.select(sqlSource, parameter, handler);
+            return null;
+        });
     }
 
     /**
@@ -217,7 +413,10 @@ public class SqlSessionProxyBean implements SqlSession {
     @SuppressWarnings("rawtypes")
     @Override
     public void select(SqlSource sqlSource, ResultHandler handler) {
-        this.sqlSessionProxy.select(sqlSource, handler);
+        executeRead(sqlSession -> {
+            sqlSession.select(sqlSource, handler);
+            return null;
+        });
     }
 
     /**
@@ -232,7 +431,179 @@ public class SqlSessionProxyBean implements SqlSession {
     @SuppressWarnings("rawtypes")
     @Override
     public void select(SqlSource sqlSource, Object parameter, RowBounds rowBounds, ResultHandler handler) {
-        this.sqlSessionProxy.select(sqlSource, parameter, rowBounds, handler);
+        SqlSource limitSqlSource = limitSqlSource(sqlSource, rowBounds);
+        if (limitSqlSource != null) {
+            select(limitSqlSource, parameter, handler);
+            return;
+        }
+        executeRead(sqlSource, parameter, sqlSession -> {
+            sqlSession.select(sqlSource, parameter, rowBounds, handler);
+            return null;
+        });
+    }
+
+    /**
+     * 数据库分页查询：按数据库方言改写为limit/offset分页，需要时先执行count查询（去掉最外层的order by）
+     *
+     * @param sqlSource   执行sql的语句
+     * @param parameter   整合的请求参数
+     * @param pageRequest 分页请求
+     * @return 分页结果
+     */
+    public <E> Page<E> selectPage(SqlSource sqlSource, Object parameter, PageRequest pageRequest) {
+        notNull(pageRequest, "Parameter 'pageRequest' is required");
+        Dialect dialect = getDialectOrDefault();
+        String sql = SqlSourceUtils.getSql(sqlSource);
+        long total = Page.TOTAL_UNKNOWN;
+        if (pageRequest.isCount()) {
+            total = toLong(selectOne(SqlSourceUtils.rewrite(dialect.getCountSql(sql)), parameter));
+            if (total <= pageRequest.getOffset()) {
+                return new Page<>(Collections.emptyList(), pageRequest.getPageNum(), pageRequest.getPageSize(), total);
+            }
+        }
+        SqlSource limitSqlSource = SqlSourceUtils.rewrite(dialect.getLimitSql(sql, pageRequest.getOffset(), pageRequest.getPageSize()));
+        List<E> records = selectList(limitSqlSource, parameter);
+        return new Page<>(records, pageRequest.getPageNum(), pageRequest.getPageSize(), total);
+    }
+
+    /**
+     * 键集（seek）分页查询：按键列排序，从上一页最后一个键值之后读取一页，深分页与第一页的耗时相同
+     * <p>请求参数必须为Map（或者没有请求参数），上一页的键值以{@link KeysetPageRequest#LAST_KEY_PARAMETER}放入参数的副本中；
+     * 原sql最外层的order by会被去掉，改为按键列排序</p>
+     *
+     * @param sqlSource   执行sql的语句，结果中必须包含键列
+     * @param parameter   整合的请求参数，Map或者null
+     * @param pageRequest 键集分页请求
+     * @return 分页结果，包含下一页的请求
+     */
+    public <E> KeysetPage<E> selectKeysetPage(SqlSource sqlSource, Object parameter, KeysetPageRequest pageRequest) {
+        notNull(pageRequest, "Parameter 'pageRequest' is required");
+        if (parameter != null && !(parameter instanceof Map)) {
+            throw new OrmException("Keyset pagination requires a Map parameter, but got [" + parameter.getClass().getName() + "]");
+        }
+        Map<String, Object> keysetParameter = new HashMap<>();
+        if (parameter != null) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) parameter).entrySet()) {
+                keysetParameter.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        String keyColumn = pageRequest.getKeyColumn();
+        StringBuilder sql = new StringBuilder("select * from (")
+                .append(SqlRewriter.removeOrderBy(SqlSourceUtils.getSql(sqlSource)))
+                .append(") tmp_keyset");
+        if (pageRequest.getLastKey() != null) {
+            keysetParameter.put(KeysetPageRequest.LAST_KEY_PARAMETER, pageRequest.getLastKey());
+            sql.append(" where ").append(keyColumn).append(pageRequest.isAscending() ? " > " : " < ")
+                    .append("#{").append(KeysetPageRequest.LAST_KEY_PARAMETER).append('}');
+        }
+        sql.append(" order by ").append(keyColumn).append(pageRequest.isAscending() ? " asc" : " desc");
+        String limitSql = getDialectOrDefault().getLimitSql(sql.toString(), 0, pageRequest.getPageSize());
+        List<E> records = selectList(SqlSourceUtils.rewrite(limitSql), keysetParameter);
+        KeysetPageRequest nextRequest = null;
+        if (records.size() == pageRequest.getPageSize()) {
+            Object lastKey = new PropertyReader(pageRequest.getKeyProperty()).read(records.get(records.size() - 1));
+            nextRequest = pageRequest.next(lastKey);
+        }
+        return new KeysetPage<>(records, nextRequest);
+    }
+
+    /**
+     * 在所有分片上并发执行同一个查询（非事务），合并结果
+     *
+     * @param sqlSource 执行sql的语句，必须匹配一个分片规则
+     * @param parameter 请求参数
+     * @param timeout   全部分片查询的总超时时间
+     * @param unit      超时时间单位
+     * @return 所有分片的查询结果
+     */
+    public <E> List<E> selectAllShards(SqlSource sqlSource, Object parameter, long timeout, TimeUnit unit) {
+        return selectAllShards(sqlSource, parameter, null, -1, timeout, unit);
+    }
+
+    /**
+     * 在所有分片上并发执行同一个查询（非事务），合并结果后排序、截取
+     * <p>每个分片的查询在并发线程池中执行，各自获取连接并自动提交，不参与当前线程的事务。
+     * 需要排序截取时，每个分片的sql应自带相同的order by与limit，这里只对各分片的结果做归并</p>
+     *
+     * @param sqlSource  执行sql的语句，必须匹配一个分片规则
+     * @param parameter  请求参数
+     * @param comparator 合并后的排序规则，为空时按分片顺序拼接
+     * @param limit      合并后最多返回的行数，小于0表示不限制
+     * @param timeout    全部分片查询的总超时时间
+     * @param unit       超时时间单位
+     * @return 合并后的查询结果
+     */
+    public <E> List<E> selectAllShards(SqlSource sqlSource, Object parameter, Comparator<? super E> comparator, int limit, long timeout, TimeUnit unit) {
+        ShardingRouter router = this.shardingRouter;
+        ShardingRule rule = router == null ? null : router.findRule(sqlSource);
+        if (rule == null) {
+            throw new OrmException("No sharding rule matches the sql [" + SqlSourceUtils.getSql(sqlSource) + "]");
+        }
+        ExecutorService executor = getAsyncExecutor();
+        List<String> shards = rule.getShards();
+        List<CompletableFuture<List<E>>> futures = new ArrayList<>(shards.size());
+        for (String shard : shards) {
+            //不传递当前线程的事务与数据源，每个任务只使用自己的分片
+            Callable<List<E>> task = () -> executeOnShard(shard, sqlSession -> sqlSession.selectList(sqlSource, parameter), true);
+            futures.add(OrmExecutors.submitAsync(OrmContextSnapshot.empty().wrap(task), executor));
+        }
+        List<List<E>> results = OrmExecutors.awaitAll(futures, timeout, unit);
+        int total = 0;
+        for (List<E> result : results) {
+            total += result.size();
+        }
+        List<E> merged = new ArrayList<>(total);
+        for (List<E> result : results) {
+            merged.addAll(result);
+        }
+        if (comparator != null) {
+            merged.sort(comparator);
+        }
+        if (limit >= 0 && merged.size() > limit) {
+            return new ArrayList<>(merged.subList(0, limit));
+        }
+        return merged;
+    }
+
+    /**
+     * 并发执行多个互不相关的查询（非事务）
+     * <p>每个查询在并发线程池中执行，各自通过SqlSessionUtils获取连接池中的连接并自动提交，不参与当前线程的事务；
+     * 当前线程切换的数据源会传递到执行线程。请求耗时由所有查询耗时之和变为最慢的查询耗时</p>
+     *
+     * @param sqlSources 执行sql的语句
+     * @param parameters 与sqlSources一一对应的请求参数，为null表示全部没有请求参数
+     * @return 与sqlSources一一对应的查询结果，取消Future会中断对应的查询线程
+     */
+    public <E> List<CompletableFuture<List<E>>> selectAllAsync(List<SqlSource> sqlSources, List<?> parameters) {
+        notNull(sqlSources, "Parameter 'sqlSources' is required");
+        if (parameters != null && parameters.size() != sqlSources.size()) {
+            throw new IllegalArgumentException("The size of parameters [" + parameters.size() + "] does not match the size of sqlSources [" + sqlSources.size() + "]");
+        }
+        ExecutorService executor = getAsyncExecutor();
+        OrmContextSnapshot snapshot = OrmContextSnapshot.captureDataSourceOnly();
+        List<CompletableFuture<List<E>>> futures = new ArrayList<>(sqlSources.size());
+        for (int i = 0; i < sqlSources.size(); i++) {
+            SqlSource sqlSource = sqlSources.get(i);
+            Object parameter = parameters == null ? null : parameters.get(i);
+            Callable<List<E>> task = () -> selectList(sqlSource, parameter);
+            futures.add(OrmExecutors.submitAsync(snapshot.wrap(task), executor));
+        }
+        return futures;
+    }
+
+    /**
+     * 并发执行多个互不相关的查询（非事务），并等待全部结果
+     * <p>任意一个查询失败或超过截止时间时，取消其余的查询并抛出异常</p>
+     *
+     * @param sqlSources 执行sql的语句
+     * @param parameters 与sqlSources一一对应的请求参数，为null表示全部没有请求参数
+     * @param timeout    全部查询的总超时时间
+     * @param unit       超时时间单位
+     * @return 与sqlSources一一对应的查询结果
+     */
+    public <E> List<List<E>> selectAll(List<SqlSource> sqlSources, List<?> parameters, long timeout, TimeUnit unit) {
+        List<CompletableFuture<List<E>>> futures = selectAllAsync(sqlSources, parameters);
+        return OrmExecutors.awaitAll(futures, timeout, unit);
     }
 
     /**
@@ -243,7 +614,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int insert(SqlSource sqlSource) {
-        return this.sqlSessionProxy.insert(sqlSource);
+        return executeWrite(PendingWrite.Type.INSERT, sqlSource, null, sqlSession -> sqlSession.insert(sqlSource));
     }
 
     /**
@@ -255,7 +626,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int insert(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.insert(sqlSource, parameter);
+        return executeWrite(PendingWrite.Type.INSERT, sqlSource, parameter, sqlSession -> sqlSession.insert(sqlSource, parameter));
     }
 
     /**
@@ -266,7 +637,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int update(SqlSource sqlSource) {
-        return this.sqlSessionProxy.update(sqlSource);
+        return executeWrite(PendingWrite.Type.UPDATE, sqlSource, null, sqlSession -> sqlSession.update(sqlSource));
     }
 
     /**
@@ -278,7 +649,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int update(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.update(sqlSource, parameter);
+        return executeWrite(PendingWrite.Type.UPDATE, sqlSource, parameter, sqlSession -> sqlSession.update(sqlSource, parameter));
     }
 
     /**
@@ -289,7 +660,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int delete(SqlSource sqlSource) {
-        return this.sqlSessionProxy.delete(sqlSource);
+        return executeWrite(PendingWrite.Type.DELETE, sqlSource, null, sqlSession -> sqlSession.delete(sqlSource));
     }
 
     /**
@@ -301,7 +672,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public int delete(SqlSource sqlSource, Object parameter) {
-        return this.sqlSessionProxy.delete(sqlSource, parameter);
+        return executeWrite(PendingWrite.Type.DELETE, sqlSource, parameter, sqlSession -> sqlSession.delete(sqlSource, parameter));
     }
 
     /**
@@ -356,7 +727,18 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public List<BatchResult> flushStatements() {
-        return this.sqlSessionProxy.flushStatements();
+        return execute(sqlSession -> {
+            //写缓冲在获取SqlSession后已经执行，这里把它的结果一起返回
+            SqlSessionHolder holder = (SqlSessionHolder) OrmContextHolder.getResource(this.sqlSessionFactory);
+            List<BatchResult> flushed = holder == null ? Collections.<BatchResult>emptyList() : holder.drainFlushedResults();
+            List<BatchResult> results = sqlSession.flushStatements();
+            if (flushed.isEmpty()) {
+                return results;
+            }
+            List<BatchResult> merged = new ArrayList<>(flushed);
+            merged.addAll(results);
+            return merged;
+        });
     }
 
     /**
@@ -375,7 +757,7 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public Configuration getConfiguration() {
-        return this.sqlSessionProxy.getConfiguration();
+        return execute(OrmContextHolder.lookupContext(), SqlSession::getConfiguration, true);
     }
 
     /**
@@ -397,33 +779,364 @@ public class SqlSessionProxyBean implements SqlSession {
      */
     @Override
     public Connection getConnection() {
-        return this.sqlSessionProxy.getConnection();
+        return execute(SqlSession::getConnection);
+    }
+
+    /**
+     * 在SqlSession上执行操作，统一负责SqlSession的获取、提交与关闭
+     * <p>每个SqlSession方法都通过静态类型的回调直接调用，代替原先JDK动态代理 + Method.invoke的反射分发，
+     * 热点路径为单态调用，JIT可以直接内联，也不再有Object[]参数装箱</p>
+     * <p>当前线程的Orm上下文只取一次，Session的获取、是否被管理的判断、关闭都复用同一个上下文</p>
+     *
+     * @param callback 在SqlSession上执行的操作
+     * @return 操作的返回结果
+     */
+    public <T> T execute(SqlSessionCallback<T> callback) {
+        return execute(OrmContextHolder.lookupContext(), callback, false);
+    }
+
+    /**
+     * 在SqlSession上执行只读查询
+     * <p>开启了读写分离（{@link DynamicDataSource#setReadReplicas}）且当前线程没有开启事务时，查询路由到从库；
+     * 事务中的查询仍然使用主库，保证能读到事务中自己写入的数据</p>
+     * <p>没有被事务管理时执行后不commit，直接关闭SqlSession，每次查询少一次COMMIT的网络往返（见{@link #setCommitAfterRead}）</p>
+     *
+     * @param callback 在SqlSession上执行的只读操作
+     * @return 操作的返回结果
+     */
+    public <T> T executeRead(SqlSessionCallback<T> callback) {
+        OrmContext context = OrmContextHolder.lookupContext();
+        if (!DataSourceContextHolder.isReadRoutingEnabled() || context.isActualTransactionActive() || context.isReadRoute()) {
+            return execute(context, callback, true);
+        }
+        context = OrmContextHolder.currentContext();
+        context.setReadRoute(true);
+        try {
+            return execute(context, callback, true);
+        } finally {
+            context.setReadRoute(false);
+        }
+    }
+
+    /**
+     * 按分片规则路由的只读查询，不需要分片时按读写分离规则执行
+     */
+    private <T> T executeRead(SqlSource sqlSource, Object parameter, SqlSessionCallback<T> callback) {
+        String shard = routeShard(sqlSource, parameter);
+        return shard == null ? executeRead(callback) : executeOnShard(shard, callback, true);
+    }
+
+    /**
+     * 使用查询结果缓存的只读查询，sql没有登记缓存或者在事务中时直接查询
+     */
+    private <T> T executeCached(SqlSource sqlSource, Object parameter, SqlSessionCallback<T> callback) {
+        QueryResultCache cache = this.queryResultCache;
+        if (cache == null) {
+            return executeRead(sqlSource, parameter, callback);
+        }
+        String sql = SqlSourceUtils.getSql(sqlSource);
+        OrmContext context = OrmContextHolder.lookupContext();
+        if (!cache.isCacheable(sql) || context.isActualTransactionActive()) {
+            return executeRead(sqlSource, parameter, callback);
+        }
+        String shard = routeShard(sqlSource, parameter);
+        QueryCacheKey key = new QueryCacheKey(sql, parameter, shard != null ? shard : context.getDbType());
+        return cache.get(key, () -> shard == null ? executeRead(callback) : executeOnShard(shard, callback, true));
+    }
+
+    /**
+     * 按分片规则路由的写操作，不需要分片时使用当前数据源；执行成功后失效涉及的表的查询缓存
+     */
+    private <T> T execute(SqlSource sqlSource, Object parameter, SqlSessionCallback<T> callback) {
+        String shard = routeShard(sqlSource, parameter);
+        T result = shard == null ? execute(callback) : executeOnShard(shard, callback, false);
+        invalidateCache(sqlSource);
+        return result;
     }
 
     /**
-     * SqlSession的动态代理，主要影响的是SqlSession的获取
+     * 写操作后失效查询缓存，事务中的写操作在事务提交后再失效一次
      */
-    private class SqlSessionProxy implements InvocationHandler {
+    private void invalidateCache(SqlSource sqlSource) {
+        QueryResultCache cache = this.queryResultCache;
+        if (cache == null) {
+            return;
+        }
+        String sql = SqlSourceUtils.getSql(sqlSource);
+        cache.invalidate(sql);
+        OrmContext context = OrmContextHolder.lookupContext();
+        if (context.isActualTransactionActive() && context.isSynchronizationActive()) {
+            QueryCacheSynchronization synchronization = (QueryCacheSynchronization) context.getResource(cache);
+            if (synchronization == null) {
+                synchronization = new QueryCacheSynchronization(cache);
+                context.bindResource(cache, synchronization);
+                context.registerSynchronization(synchronization);
+            }
+            synchronization.addWrite(sql);
+        }
+    }
+
+    private String routeShard(SqlSource sqlSource, Object parameter) {
+        ShardingRouter router = this.shardingRouter;
+        return router == null ? null : router.route(sqlSource, parameter);
+    }
 
-        @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            SqlSession sqlSession = SqlSessionUtils.getSqlSession(SqlSessionProxyBean.this.sqlSessionFactory, SqlSessionProxyBean.this.executorType);
+    /**
+     * 在指定分片上执行
+     * <p>事务中第一个使用SqlSession的语句决定事务的分片，之后的语句不允许路由到其他分片（一个事务只能使用一个数据库连接）</p>
+     *
+     * @param shard    分片的数据源key
+     * @param callback 在SqlSession上执行的操作
+     * @param readOnly 是否为只读操作
+     * @return 操作的返回结果
+     */
+    private <T> T executeOnShard(String shard, SqlSessionCallback<T> callback, boolean readOnly) {
+        OrmContext context = OrmContextHolder.currentContext();
+        checkShardBinding(context, shard);
+        String previous = context.getDbType();
+        context.setDbType(shard);
+        try {
+            T result = execute(context, callback, readOnly);
+            pinShard(context, shard);
+            return result;
+        } finally {
+            context.setDbType(previous);
+        }
+    }
+
+    /**
+     * 事务已经绑定了其他分片（或者没有分片的数据源）时，不允许路由到新的分片
+     */
+    private void checkShardBinding(OrmContext context, String shard) {
+        if (context.isActualTransactionActive()) {
+            SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+            if (holder != null && !shard.equals(holder.getDataSourceKey())) {
+                throw new OrmException("Cannot route to shard [" + shard + "], the current transaction is bound to [" + holder.getDataSourceKey() + "]");
+            }
+        }
+    }
+
+    /**
+     * 事务中第一个使用SqlSession的语句决定事务的分片
+     */
+    private void pinShard(OrmContext context, String shard) {
+        if (context.isActualTransactionActive()) {
+            SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+            if (holder != null && holder.getDataSourceKey() == null) {
+                holder.setDataSourceKey(shard);
+            }
+        }
+    }
+
+    /**
+     * 打开游标：查询按分片、读写分离规则路由，SqlSession在游标关闭时才释放
+     *
+     * @param sqlSource 执行sql的语句
+     * @param parameter 请求参数
+     * @param fetchSize fetchSize提示，0表示使用驱动默认值
+     * @param callback  在SqlSession上打开游标
+     * @return 生命周期绑定SqlSession的游标
+     */
+    private <T> ManagedCursor<T> openCursor(SqlSource sqlSource, Object parameter, int fetchSize, SqlSessionCallback<Cursor<T>> callback) {
+        String shard = routeShard(sqlSource, parameter);
+        OrmContext context = OrmContextHolder.currentContext();
+        String previousDbType = context.getDbType();
+        boolean previousReadRoute = context.isReadRoute();
+        int previousFetchSize = context.getFetchSize();
+        if (shard != null) {
+            checkShardBinding(context, shard);
+            context.setDbType(shard);
+        } else if (DataSourceContextHolder.isReadRoutingEnabled() && !context.isActualTransactionActive()) {
+            context.setReadRoute(true);
+        }
+        context.setFetchSize(fetchSize);
+        try {
+            SqlSession sqlSession = SqlSessionUtils.getSqlSession(this.sqlSessionFactory, resolveExecutorType(context), context);
+            Cursor<T> cursor;
             try {
-                Object result = method.invoke(sqlSession, args);
-                //没有被统一管理的SqlSession（没有被事务管理器管理的Session）手动commit
-                if (!SqlSessionUtils.isSqlSessionManaged(sqlSession, SqlSessionProxyBean.this.sqlSessionFactory)) {
+                flushPendingWrites(context);
+                cursor = callback.doInSqlSession(sqlSession);
+            } catch (RuntimeException | Error e) {
+                SqlSessionUtils.closeSqlSession(sqlSession, this.sqlSessionFactory, context);
+                throw e;
+            }
+            if (shard != null) {
+                pinShard(context, shard);
+            }
+            //游标可能在其他线程关闭，释放时使用打开游标时的上下文
+            OrmContext openContext = context;
+            return new ManagedCursor<>(cursor, () -> SqlSessionUtils.closeSqlSession(sqlSession, this.sqlSessionFactory, openContext));
+        } finally {
+            context.setDbType(previousDbType);
+            context.setReadRoute(previousReadRoute);
+            context.setFetchSize(previousFetchSize);
+        }
+    }
+
+    /**
+     * 在SqlSession上执行操作
+     *
+     * @param context  当前线程的Orm上下文
+     * @param callback 在SqlSession上执行的操作
+     * @param readOnly 是否为只读操作，没有被事务管理的只读操作执行后不commit
+     * @return 操作的返回结果
+     */
+    private <T> T execute(OrmContext context, SqlSessionCallback<T> callback, boolean readOnly) {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(this.sqlSessionFactory, resolveExecutorType(context), context);
+        //是否被事务管理只判断一次，执行期间不会变化
+        boolean managed = SqlSessionUtils.isSqlSessionManaged(sqlSession, this.sqlSessionFactory, context);
+        try {
+            if (managed) {
+                //写缓冲中还有没执行的写操作，先执行，保证能读到事务中自己写入的数据
+                flushPendingWrites(context);
+            }
+            T result = callback.doInSqlSession(sqlSession);
+            //没有被统一管理的SqlSession（没有被事务管理器管理的Session）手动commit，只读操作没有需要提交的修改，直接关闭
+            if (!managed) {
+                if (!readOnly || this.commitAfterRead) {
                     sqlSession.commit(true);
+                } else {
+                    this.avoidedCommitCount.increment();
                 }
+            }
+            return result;
+        } finally {
+            //没有被管理的SqlSession，发生异常时，没有commit，直接close，dbcp数据库连接池默认会直接rollback
+            if (managed) {
+                SqlSessionUtils.closeSqlSession(sqlSession, this.sqlSessionFactory, context);
+            } else {
+                sqlSession.close();
+            }
+        }
+    }
+
+    /**
+     * 批量作用域、写缓冲事务中统一使用BATCH类型的SqlSession；事务中已经有SqlSession时沿用它的类型
+     */
+    private ExecutorType resolveExecutorType(OrmContext context) {
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+        if (context.getBatchScope() != null) {
+            if (holder != null && holder.getExecutorType() != ExecutorType.BATCH) {
+                throw new OrmException("Cannot start a batch scope, the current transaction already uses a " + holder.getExecutorType() + " SqlSession");
+            }
+            return ExecutorType.BATCH;
+        }
+        if (isWriteBehind(context)) {
+            return ExecutorType.BATCH;
+        }
+        return holder != null && holder.isSynchronizedWithTransaction() ? holder.getExecutorType() : this.executorType;
+    }
+
+    private static boolean isWriteBehind(OrmContext context) {
+        TransactionDefinition definition = context.getTransactionDefinition();
+        return definition != null && definition.isWriteBehind() && context.isActualTransactionActive();
+    }
+
+    /**
+     * 事务中的SqlSession是BATCH类型，但已经不在批量作用域、写缓冲中（配置的执行器类型本身就是BATCH时除外）
+     */
+    private boolean isBatchSessionOutsideScope(OrmContext context) {
+        if (this.executorType == ExecutorType.BATCH || context.getBatchScope() != null || isWriteBehind(context)) {
+            return false;
+        }
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+        return holder != null && holder.isSynchronizedWithTransaction() && holder.getExecutorType() == ExecutorType.BATCH;
+    }
+
+    /**
+     * 刚刚flush的最后一条语句的影响行数
+     */
+    private static int lastUpdateCount(List<BatchResult> results) {
+        if (results.isEmpty()) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        int[] updateCounts = results.get(results.size() - 1).getUpdateCounts();
+        return updateCounts == null || updateCounts.length == 0 ? Statement.SUCCESS_NO_INFO : updateCounts[updateCounts.length - 1];
+    }
+
+    private List<BatchResult> flushPendingWrites(OrmContext context) {
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+        if (holder == null || !holder.hasPendingWrites()) {
+            return Collections.emptyList();
+        }
+        return holder.flushPendingWrites();
+    }
+
+    /**
+     * 执行写操作：写缓冲事务中只加入SqlSessionHolder的写缓冲，返回{@link Statement#SUCCESS_NO_INFO}，实际影响的行数通过flushStatements获取；
+     * 需要分片路由的写操作不进入写缓冲
+     */
+    private int executeWrite(PendingWrite.Type type, SqlSource sqlSource, Object parameter, SqlSessionCallback<Integer> callback) {
+        OrmContext context = OrmContextHolder.lookupContext();
+        if (context.isReadOnlyTransaction()) {
+            throw new OrmException("Cannot execute " + type + " in a read-only transaction");
+        }
+        BatchScope batchScope = context.getBatchScope();
+        if (batchScope != null && !isWriteBehind(context)) {
+            return execute(sqlSource, parameter, sqlSession -> {
+                int result = callback.doInSqlSession(sqlSession);
+                batchScope.afterStatement(sqlSession);
                 return result;
-            } catch (Throwable t) {
-                //没有被管理的SqlSession，发生异常时，没有commit，直接close，dbcp数据库连接池默认会直接rollback
-                throw ExceptionUtil.unwrapThrowable(t);
-            } finally {
-                //没有被事务管理器管理，则直接关闭SqlSession
-                if (sqlSession != null) {
-                    SqlSessionUtils.closeSqlSession(sqlSession, SqlSessionProxyBean.this.sqlSessionFactory);
-                }
+            });
+        }
+        if (!isWriteBehind(context) || routeShard(sqlSource, parameter) != null) {
+            if (isBatchSessionOutsideScope(context)) {
+                //批量作用域加入外层事务后留下的BATCH类型SqlSession：立即flush，返回真实的影响行数
+                return execute(sqlSource, parameter, sqlSession -> {
+                    callback.doInSqlSession(sqlSession);
+                    return lastUpdateCount(sqlSession.flushStatements());
+                });
             }
+            return execute(sqlSource, parameter, callback);
+        }
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(this.sqlSessionFactory, ExecutorType.BATCH, context);
+        try {
+            SqlSessionHolder holder = (SqlSessionHolder) context.getResource(this.sqlSessionFactory);
+            holder.bufferWrite(new PendingWrite(type, sqlSource, parameter));
+        } finally {
+            SqlSessionUtils.closeSqlSession(sqlSession, this.sqlSessionFactory, context);
+        }
+        invalidateCache(sqlSource);
+        return Statement.SUCCESS_NO_INFO;
+    }
+
+    /**
+     * 设置了数据库方言时，把RowBounds改写为数据库分页
+     *
+     * @return 改写后的SqlSource，不需要改写时返回null
+     */
+    private SqlSource limitSqlSource(SqlSource sqlSource, RowBounds rowBounds) {
+        Dialect dialect = this.dialect;
+        if (dialect == null || rowBounds == null
+                || (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT)) {
+            return null;
+        }
+        String sql = dialect.getLimitSql(SqlSourceUtils.getSql(sqlSource), rowBounds.getOffset(), rowBounds.getLimit());
+        return SqlSourceUtils.rewrite(sql);
+    }
+
+    private Dialect getDialectOrDefault() {
+        Dialect dialect = this.dialect;
+        return dialect == null ? DEFAULT_DIALECT : dialect;
+    }
+
+    /**
+     * count查询的结果转为long（单列结果可能是数字，也可能是一列的Map）
+     */
+    private static long toLong(Object value) {
+        if (value instanceof Map && ((Map<?, ?>) value).size() == 1) {
+            value = ((Map<?, ?>) value).values().iterator().next();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            throw new OrmException("Cannot convert the count result [" + value + "] to long", e);
         }
     }
 }
@@ -0,0 +1,118 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.exception.OrmException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 按分片键的murmur3 hash取模分片，适用于字符串等非数字分片键
+ * <p>hash基于分片键的规范字节形式计算（字符串为UTF-8，整数为8字节大端，枚举为name），与JVM、重启无关；
+ * 不使用Object.hashCode，没有值语义hashCode的类型（例如普通对象的identity hash）在每次启动后的结果都不同</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:08
+ * @description: HashShardingStrategy: hash分片策略
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+
+    private static final int SEED = 0x9747b28c;
+
+    @Override
+    public String doSharding(Object shardValue, List<String> shards) {
+        int hash = murmur3(canonicalBytes(shardValue));
+        return shards.get(Math.floorMod(hash, shards.size()));
+    }
+
+    /**
+     * 分片键的规范字节形式
+     *
+     * @param shardValue 分片键
+     * @return 字节
+     * @throws OrmException 分片键的类型没有稳定的字节形式
+     */
+    static byte[] canonicalBytes(Object shardValue) {
+        if (shardValue instanceof CharSequence) {
+            return shardValue.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (shardValue instanceof Long || shardValue instanceof Integer || shardValue instanceof Short || shardValue instanceof Byte) {
+            return longBytes(((Number) shardValue).longValue());
+        }
+        if (shardValue instanceof BigInteger) {
+            BigInteger value = (BigInteger) shardValue;
+            return value.bitLength() < 64 ? longBytes(value.longValue()) : value.toByteArray();
+        }
+        if (shardValue instanceof BigDecimal) {
+            BigDecimal value = ((BigDecimal) shardValue).stripTrailingZeros();
+            return value.scale() <= 0 ? canonicalBytes(value.toBigIntegerExact()) : value.toPlainString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (shardValue instanceof Enum) {
+            return ((Enum<?>) shardValue).name().getBytes(StandardCharsets.UTF_8);
+        }
+        if (shardValue instanceof UUID) {
+            UUID uuid = (UUID) shardValue;
+            byte[] bytes = new byte[16];
+            System.arraycopy(longBytes(uuid.getMostSignificantBits()), 0, bytes, 0, 8);
+            System.arraycopy(longBytes(uuid.getLeastSignificantBits()), 0, bytes, 8, 8);
+            return bytes;
+        }
+        if (shardValue instanceof Character || shardValue instanceof Boolean) {
+            return shardValue.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        throw new OrmException("Shard key type [" + shardValue.getClass().getName() + "] has no stable hash, use a String, integer, enum or UUID shard key");
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * MurmurHash3 x86 32位
+     */
+    static int murmur3(byte[] data) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+        int h1 = SEED;
+        int length = data.length;
+        int roundedEnd = length & 0xfffffffc;
+        for (int i = 0; i < roundedEnd; i += 4) {
+            int k1 = (data[i] & 0xff) | ((data[i + 1] & 0xff) << 8) | ((data[i + 2] & 0xff) << 16) | (data[i + 3] << 24);
+            k1 *= c1;
+            k1 = Integer.rotateLeft(k1, 15);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Integer.rotateLeft(h1, 13);
+            h1 = h1 * 5 + 0xe6546b64;
+        }
+        int k1 = 0;
+        switch (length & 0x03) {
+            case 3:
+                k1 = (data[roundedEnd + 2] & 0xff) << 16;
+            case 2:
+                k1 |= (data[roundedEnd + 1] & 0xff) << 8;
+            case 1:
+                k1 |= data[roundedEnd] & 0xff;
+                k1 *= c1;
+                k1 = Integer.rotateLeft(k1, 15);
+                k1 *= c2;
+                h1 ^= k1;
+            default:
+                break;
+        }
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
@@ -0,0 +1,32 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.exception.OrmException;
+
+import java.util.List;
+
+/**
+ * 按数字分片键取模分片，例如：userId % 分片数
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:10
+ * @description: ModuloShardingStrategy: 取模分片策略
+ */
+public class ModuloShardingStrategy implements ShardingStrategy {
+
+    @Override
+    public String doSharding(Object shardValue, List<String> shards) {
+        long value;
+        if (shardValue instanceof Number) {
+            value = ((Number) shardValue).longValue();
+        } else if (shardValue instanceof CharSequence) {
+            try {
+                value = Long.parseLong(shardValue.toString());
+            } catch (NumberFormatException e) {
+                throw new OrmException("Shard value [" + shardValue + "] is not a number", e);
+            }
+        } else {
+            throw new OrmException("Shard value [" + shardValue + "] is not a number");
+        }
+        return shards.get((int) Math.floorMod(value, (long) shards.size()));
+    }
+}
@@ -0,0 +1,27 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.starter.util.PropertyReader;
+
+/**
+ * 按属性名取分片键：数字、字符串参数直接作为分片键，其他参数通过{@link PropertyReader}读取
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:25
+ * @description: PropertyShardKeyExtractor: 按属性名取分片键
+ */
+public class PropertyShardKeyExtractor implements ShardKeyExtractor {
+
+    private final PropertyReader propertyReader;
+
+    public PropertyShardKeyExtractor(String property) {
+        this.propertyReader = new PropertyReader(property);
+    }
+
+    @Override
+    public Object extract(Object parameter) {
+        if (parameter instanceof Number || parameter instanceof CharSequence) {
+            return parameter;
+        }
+        return propertyReader.read(parameter);
+    }
+}
@@ -0,0 +1,62 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按分片键的范围分片，每个范围用下界（包含）表示，例如：
+ * <pre>
+ * RangeShardingStrategy strategy = new RangeShardingStrategy()
+ *         .addRange(0L, "order_0")
+ *         .addRange(10000000L, "order_1");
+ * </pre>
+ * 分片键的类型需要与下界的类型一致（都是Long、都是String等）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:15
+ * @description: RangeShardingStrategy: 范围分片策略
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+
+    /**
+     * 只在初始化时修改
+     */
+    private final TreeMap<Comparable<Object>, String> ranges = new TreeMap<>();
+
+    /**
+     * 添加一个范围
+     *
+     * @param lowerBound 范围下界（包含），到下一个范围的下界为止
+     * @param shard      该范围使用的数据源key
+     * @return this
+     */
+    @SuppressWarnings("unchecked")
+    public RangeShardingStrategy addRange(Comparable<?> lowerBound, String shard) {
+        Assert.notNull(lowerBound, "Lower bound must not be null");
+        Assert.notNull(shard, "Shard must not be null");
+        ranges.put((Comparable<Object>) lowerBound, shard);
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String doSharding(Object shardValue, List<String> shards) {
+        if (!(shardValue instanceof Comparable)) {
+            throw new OrmException("Shard value [" + shardValue + "] is not comparable");
+        }
+        Map.Entry<Comparable<Object>, String> entry;
+        try {
+            entry = ranges.floorEntry((Comparable<Object>) shardValue);
+        } catch (ClassCastException e) {
+            throw new OrmException("Shard value [" + shardValue + "] does not match the type of range bounds", e);
+        }
+        if (entry == null) {
+            throw new OrmException("No shard range found for value [" + shardValue + "]");
+        }
+        return entry.getValue();
+    }
+}
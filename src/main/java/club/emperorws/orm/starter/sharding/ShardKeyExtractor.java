@@ -0,0 +1,30 @@
+package club.emperorws.orm.starter.sharding;
+
+/**
+ * 从查询参数中取出分片键的值
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:20
+ * @description: ShardKeyExtractor: 分片键提取器
+ */
+@FunctionalInterface
+public interface ShardKeyExtractor {
+
+    /**
+     * 取出分片键的值
+     *
+     * @param parameter 查询参数，可能为空
+     * @return 分片键的值，取不到时返回null（分片表的sql路由时抛出OrmException，不会退回默认数据源）
+     */
+    Object extract(Object parameter);
+
+    /**
+     * 按属性名取分片键：Map参数（包括@Param生成的参数Map）取key，JavaBean参数取getter，数字、字符串参数直接作为分片键
+     *
+     * @param property 属性名
+     * @return 分片键提取器
+     */
+    static ShardKeyExtractor property(String property) {
+        return new PropertyShardKeyExtractor(property);
+    }
+}
@@ -0,0 +1,94 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.starter.util.Assert;
+import club.emperorws.orm.starter.util.SqlSourceUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 分片路由：按sql找到分片规则，再按查询参数中的分片键选择数据源
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * ShardingRouter router = new ShardingRouter();
+ * router.addRule(new ShardingRule("t_order", Arrays.asList("order_0", "order_1"), ShardKeyExtractor.property("userId"), new ModuloShardingStrategy()));
+ * sqlSessionProxyBean.setShardingRouter(router);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:40
+ * @description: ShardingRouter: 分片路由
+ */
+public class ShardingRouter {
+
+    /**
+     * 没有匹配的规则
+     */
+    private static final ShardingRule NO_RULE = new ShardingRule(null, Collections.singletonList(""), parameter -> null, (value, shards) -> null);
+
+    /**
+     * sql匹配规则的缓存上限，超过后不再缓存（动态拼接的sql）
+     */
+    private static final int MAX_CACHED_SQL = 4096;
+
+    private final List<ShardingRule> rules = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentMap<String, ShardingRule> ruleCache = new ConcurrentHashMap<>();
+
+    public ShardingRouter addRule(ShardingRule rule) {
+        Assert.notNull(rule, "ShardingRule must not be null");
+        rules.add(rule);
+        ruleCache.clear();
+        return this;
+    }
+
+    /**
+     * 找出sql使用的分片规则，按添加顺序第一个匹配的规则生效
+     *
+     * @param sqlSource 执行sql的语句
+     * @return 分片规则，没有匹配的规则时返回null
+     */
+    public ShardingRule findRule(SqlSource sqlSource) {
+        String sql = SqlSourceUtils.getSql(sqlSource);
+        if (sql == null) {
+            return match(null);
+        }
+        ShardingRule rule = ruleCache.get(sql);
+        if (rule == null) {
+            rule = match(sql);
+            if (rule == null) {
+                rule = NO_RULE;
+            }
+            if (ruleCache.size() < MAX_CACHED_SQL) {
+                ruleCache.putIfAbsent(sql, rule);
+            }
+        }
+        return rule == NO_RULE ? null : rule;
+    }
+
+    /**
+     * 选择分片
+     *
+     * @param sqlSource 执行sql的语句
+     * @param parameter 查询参数
+     * @return 数据源key，没有匹配的分片规则时返回null
+     */
+    public String route(SqlSource sqlSource, Object parameter) {
+        ShardingRule rule = findRule(sqlSource);
+        return rule == null ? null : rule.route(parameter);
+    }
+
+    private ShardingRule match(String sql) {
+        for (ShardingRule rule : rules) {
+            if (rule.matches(sql)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
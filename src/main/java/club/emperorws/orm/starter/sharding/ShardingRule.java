@@ -0,0 +1,89 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 分片规则：sql中包含逻辑表名时，按分片键和分片策略选择数据源
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:30
+ * @description: ShardingRule: 分片规则
+ */
+public class ShardingRule {
+
+    /**
+     * 逻辑表名，为空时匹配所有sql
+     */
+    private final String logicTable;
+
+    private final Pattern tablePattern;
+
+    /**
+     * 所有分片的数据源key，必须已经注册到DynamicDataSource
+     */
+    private final List<String> shards;
+
+    private final ShardKeyExtractor shardKeyExtractor;
+
+    private final ShardingStrategy shardingStrategy;
+
+    public ShardingRule(String logicTable, List<String> shards, ShardKeyExtractor shardKeyExtractor, ShardingStrategy shardingStrategy) {
+        Assert.notNull(shards, "Shards must not be null");
+        Assert.isFalse(shards.isEmpty(), "Shards must not be empty");
+        Assert.notNull(shardKeyExtractor, "ShardKeyExtractor must not be null");
+        Assert.notNull(shardingStrategy, "ShardingStrategy must not be null");
+        this.logicTable = logicTable;
+        this.tablePattern = logicTable == null ? null : Pattern.compile("\\b" + Pattern.quote(logicTable) + "\\b", Pattern.CASE_INSENSITIVE);
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.shardKeyExtractor = shardKeyExtractor;
+        this.shardingStrategy = shardingStrategy;
+    }
+
+    /**
+     * sql是否使用该规则
+     *
+     * @param sql sql
+     * @return 是否匹配
+     */
+    public boolean matches(String sql) {
+        return tablePattern == null || (sql != null && tablePattern.matcher(sql).find());
+    }
+
+    /**
+     * 根据查询参数选择分片
+     *
+     * @param parameter 查询参数
+     * @return 数据源key
+     * @throws OrmException 参数中没有分片键（不能退回默认数据源，否则写操作会写到错误的库）
+     */
+    public String route(Object parameter) {
+        Object shardValue = shardKeyExtractor.extract(parameter);
+        if (shardValue == null) {
+            throw new OrmException("No shard key found in the parameter for sharded table [" + logicTable
+                    + "], pass the shard key, or use SqlSessionProxyBean.selectAllShards to query all shards");
+        }
+        return shardingStrategy.doSharding(shardValue, shards);
+    }
+
+    public String getLogicTable() {
+        return logicTable;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public ShardKeyExtractor getShardKeyExtractor() {
+        return shardKeyExtractor;
+    }
+
+    public ShardingStrategy getShardingStrategy() {
+        return shardingStrategy;
+    }
+}
@@ -0,0 +1,22 @@
+package club.emperorws.orm.starter.sharding;
+
+import java.util.List;
+
+/**
+ * 分片策略：根据分片键的值选择数据源
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:05
+ * @description: ShardingStrategy: 分片策略
+ */
+public interface ShardingStrategy {
+
+    /**
+     * 选择分片
+     *
+     * @param shardValue 分片键的值，不为空
+     * @param shards     所有分片的数据源key
+     * @return 选中的数据源key
+     */
+    String doSharding(Object shardValue, List<String> shards);
+}
@@ -0,0 +1,31 @@
+package club.emperorws.orm.starter.transaction;
+
+/**
+ * 事务的传播行为
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 23:40
+ * @description: Propagation: 事务的传播行为
+ */
+public enum Propagation {
+
+    /**
+     * 已经在事务中时加入当前事务，否则开启新事务（默认）
+     */
+    REQUIRED,
+
+    /**
+     * 总是开启新事务，已经在事务中时挂起当前事务（使用新的数据库连接），新事务结束后恢复
+     */
+    REQUIRES_NEW,
+
+    /**
+     * 已经在事务中时在当前事务中创建保存点（savepoint），回滚只回滚到保存点，否则开启新事务
+     */
+    NESTED,
+
+    /**
+     * 不使用事务执行，已经在事务中时挂起当前事务，结束后恢复
+     */
+    NOT_SUPPORTED
+}
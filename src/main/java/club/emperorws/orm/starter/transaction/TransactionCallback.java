@@ -0,0 +1,19 @@
+package club.emperorws.orm.starter.transaction;
+
+/**
+ * 在事务中执行的操作回调
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 0:10
+ * @description: TransactionCallback: 在事务中执行的操作回调
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    /**
+     * 在事务中执行操作，事务的开启、提交、回滚与结束由调用方负责；发生死锁重试时会被再次调用，不应有事务外的副作用
+     *
+     * @return 操作的返回结果
+     */
+    T doInTransaction();
+}
@@ -0,0 +1,119 @@
+package club.emperorws.orm.starter.transaction;
+
+import club.emperorws.orm.starter.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事务的定义（事务的模式）
+ * <p>不可变对象，可以在线程之间共享；通过withXxx方法得到修改了某个属性的副本</p>
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * TransactionDefinition definition = TransactionDefinition.DEFAULT.withPropagation(Propagation.REQUIRES_NEW).withTimeout(5, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 19:00
+ * @description: TransactionDefinition: 事务的定义
+ */
+public final class TransactionDefinition {
+
+    /**
+     * 默认的事务定义
+     */
+    public static final TransactionDefinition DEFAULT = new TransactionDefinition();
+
+    /**
+     * 只读事务的定义
+     */
+    public static final TransactionDefinition READ_ONLY = DEFAULT.withReadOnly(true);
+
+    /**
+     * 写缓冲：事务中通过SqlSessionProxyBean执行的insert、update、delete先缓存在SqlSessionHolder中，
+     * 在查询、flush、提交之前按调用顺序执行，连续的相同sql合并为JDBC批量
+     */
+    private final boolean writeBehind;
+
+    /**
+     * 只读事务：连接设置为只读（Connection.setReadOnly），开启了读写分离时整个事务路由到同一个从库，
+     * 提交时不执行commit，事务中不允许insert、update、delete
+     */
+    private final boolean readOnly;
+
+    /**
+     * 传播行为
+     */
+    private final Propagation propagation;
+
+    /**
+     * 超时时间（毫秒），小于等于0表示不超时；事务中的每个语句的查询超时设置为剩余时间，超时后提交时回滚
+     */
+    private final long timeoutMillis;
+
+    public TransactionDefinition() {
+        this(false, false, Propagation.REQUIRED, 0);
+    }
+
+    public TransactionDefinition(Propagation propagation) {
+        this(false, false, propagation, 0);
+    }
+
+    public TransactionDefinition(boolean writeBehind) {
+        this(writeBehind, false, Propagation.REQUIRED, 0);
+    }
+
+    private TransactionDefinition(boolean writeBehind, boolean readOnly, Propagation propagation, long timeoutMillis) {
+        Assert.notNull(propagation, "Propagation must not be null");
+        this.writeBehind = writeBehind;
+        this.readOnly = readOnly;
+        this.propagation = propagation;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public TransactionDefinition withWriteBehind(boolean writeBehind) {
+        return new TransactionDefinition(writeBehind, this.readOnly, this.propagation, this.timeoutMillis);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public TransactionDefinition withReadOnly(boolean readOnly) {
+        return new TransactionDefinition(this.writeBehind, readOnly, this.propagation, this.timeoutMillis);
+    }
+
+    public Propagation getPropagation() {
+        return propagation;
+    }
+
+    public TransactionDefinition withPropagation(Propagation propagation) {
+        return new TransactionDefinition(this.writeBehind, this.readOnly, propagation, this.timeoutMillis);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 返回设置了超时时间的副本
+     *
+     * @param timeout 超时时间，小于等于0表示不超时
+     * @param unit    时间单位
+     * @return 新的事务定义
+     */
+    public TransactionDefinition withTimeout(long timeout, TimeUnit unit) {
+        Assert.notNull(unit, "TimeUnit must not be null");
+        return new TransactionDefinition(this.writeBehind, this.readOnly, this.propagation, timeout <= 0 ? 0 : unit.toMillis(timeout));
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionDefinition{writeBehind=" + writeBehind + ", readOnly=" + readOnly + ", propagation=" + propagation
+                + ", timeoutMillis=" + timeoutMillis + '}';
+    }
+}
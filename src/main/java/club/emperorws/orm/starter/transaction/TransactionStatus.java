@@ -0,0 +1,85 @@
+package club.emperorws.orm.starter.transaction;
+
+import club.emperorws.orm.starter.util.OrmContext;
+
+import java.util.Map;
+
+/**
+ * 一次startTransaction对应的事务状态，同一线程的事务状态按开启顺序组成栈，endTransaction时出栈
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 23:45
+ * @description: TransactionStatus: 事务状态
+ */
+public class TransactionStatus {
+
+    private final TransactionDefinition definition;
+
+    /**
+     * 是否开启了新的事务（由本次startTransaction负责提交、回滚、关闭）
+     */
+    private final boolean newTransaction;
+
+    /**
+     * 挂起的外层事务，结束时恢复，没有挂起时为null
+     */
+    private final OrmContext.SuspendedState suspended;
+
+    /**
+     * 栈中的上一个事务状态
+     */
+    private final TransactionStatus previous;
+
+    /**
+     * NESTED事务创建的保存点：事务同步器 -&gt; 保存点，不是NESTED事务时为null
+     */
+    private Map<TransactionSynchronization, Object> savepoints;
+
+    /**
+     * 加入的内层事务回滚后，外层事务（嵌套事务时为外层的保存点）只能回滚
+     */
+    private boolean rollbackOnly;
+
+    public TransactionStatus(TransactionDefinition definition, boolean newTransaction, OrmContext.SuspendedState suspended, TransactionStatus previous) {
+        this.definition = definition;
+        this.newTransaction = newTransaction;
+        this.suspended = suspended;
+        this.previous = previous;
+    }
+
+    public TransactionDefinition getDefinition() {
+        return definition;
+    }
+
+    public boolean isNewTransaction() {
+        return newTransaction;
+    }
+
+    public boolean isNested() {
+        return savepoints != null;
+    }
+
+    public OrmContext.SuspendedState getSuspended() {
+        return suspended;
+    }
+
+    public TransactionStatus getPrevious() {
+        return previous;
+    }
+
+    public Map<TransactionSynchronization, Object> getSavepoints() {
+        return savepoints;
+    }
+
+    public void setSavepoints(Map<TransactionSynchronization, Object> savepoints) {
+        this.savepoints = savepoints;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+}
@@ -11,6 +11,43 @@ public interface TransactionSynchronization {
 
     int getOrder();
 
+    /**
+     * 把缓存的写操作刷新到数据库（不提交），默认什么都不做
+     */
+    default void flush() {
+    }
+
+    /**
+     * 提交之前调用，所有同步器的beforeCommit都执行完后才开始commit，默认什么都不做
+     */
+    default void beforeCommit() {
+    }
+
+    /**
+     * 创建保存点（NESTED事务开始时调用），默认不支持保存点
+     *
+     * @return 保存点，不支持时返回null
+     */
+    default Object createSavepoint() {
+        return null;
+    }
+
+    /**
+     * 回滚到保存点（NESTED事务回滚时调用），默认什么都不做
+     *
+     * @param savepoint createSavepoint返回的保存点，为null表示该同步器在NESTED事务中才注册，回滚它的全部修改
+     */
+    default void rollbackToSavepoint(Object savepoint) {
+    }
+
+    /**
+     * 释放保存点（NESTED事务提交时调用），默认什么都不做
+     *
+     * @param savepoint createSavepoint返回的保存点
+     */
+    default void releaseSavepoint(Object savepoint) {
+    }
+
     void commit();
 
     void commit(boolean force);
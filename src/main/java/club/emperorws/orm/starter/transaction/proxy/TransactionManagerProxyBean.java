@@ -1,11 +1,25 @@
 package club.emperorws.orm.starter.transaction.proxy;
 
+import club.emperorws.orm.exception.OrmException;
 import club.emperorws.orm.logging.Log;
 import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.starter.batch.BatchScope;
+import club.emperorws.orm.starter.batch.BatchStats;
+import club.emperorws.orm.starter.transaction.Propagation;
+import club.emperorws.orm.starter.transaction.TransactionCallback;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.TransactionStatus;
 import club.emperorws.orm.starter.transaction.TransactionSynchronization;
+import club.emperorws.orm.starter.util.Assert;
+import club.emperorws.orm.starter.util.OrmContext;
 import club.emperorws.orm.starter.util.OrmContextHolder;
 
-import java.util.List;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 事务管理器动态代理后可直接使用的单例Bean
@@ -23,21 +37,271 @@ public class TransactionManagerProxyBean {
      */
     private static TransactionManagerProxyBean INSTANCE = new TransactionManagerProxyBean();
 
+    /**
+     * 可重试的SQLState：40001（MySQL死锁、序列化失败），40P01（PostgreSQL死锁）
+     */
+    private static final Set<String> RETRYABLE_SQL_STATES = new HashSet<>(Arrays.asList("40001", "40P01"));
+
+    /**
+     * 可重试的MySQL错误码：1213（死锁），1205（锁等待超时）
+     */
+    private static final Set<Integer> RETRYABLE_ERROR_CODES = new HashSet<>(Arrays.asList(1213, 1205));
+
+    /**
+     * execute遇到死锁等可重试异常时的最大重试次数
+     */
+    private volatile int maxRetries = 3;
+
+    /**
+     * 重试退避的基础时间（毫秒），第n次重试在[0, min(maxBackoffMillis, baseBackoffMillis * 2^n))之间随机等待
+     */
+    private volatile long baseBackoffMillis = 20;
+
+    private volatile long maxBackoffMillis = 1000;
+
+    /**
+     * 重试的次数
+     */
+    private final LongAdder retryCount = new LongAdder();
+
+    /**
+     * 重试后成功提交的事务数
+     */
+    private final LongAdder retrySuccessCount = new LongAdder();
+
+    /**
+     * 用完重试次数仍然失败的事务数
+     */
+    private final LongAdder retryExhaustedCount = new LongAdder();
+
     public static TransactionManagerProxyBean me() {
         return INSTANCE;
     }
 
+    /**
+     * 在默认事务中执行，见{@link #execute(TransactionDefinition, TransactionCallback)}
+     *
+     * @param callback 在事务中执行的操作
+     * @return 操作的返回结果
+     */
+    public <T> T execute(TransactionCallback<T> callback) {
+        return execute(TransactionDefinition.DEFAULT, callback);
+    }
+
+    /**
+     * 在事务中执行：开启事务，正常结束时提交，异常时回滚，最后结束事务
+     * <p>本次调用开启了新事务时，遇到死锁、锁等待超时、序列化失败，回滚后随机退避再重新执行整个回调，最多重试maxRetries次；
+     * 加入外层事务（REQUIRED、NESTED）时不重试，异常交给外层事务处理；NOT_SUPPORTED在事务外执行，语句已经自动提交，也不重试</p>
+     * <p>
+     * <b>How to use:</b>
+     * <pre>
+     * Integer count = TransactionManagerProxyBean.me().execute(() -&gt; studentMapper.updateScore(studentId, 1));
+     * </pre>
+     *
+     * @param definition 事务定义
+     * @param callback   在事务中执行的操作
+     * @return 操作的返回结果
+     */
+    public <T> T execute(TransactionDefinition definition, TransactionCallback<T> callback) {
+        Assert.notNull(definition, "TransactionDefinition must not be null");
+        Assert.notNull(callback, "TransactionCallback must not be null");
+        for (int attempt = 0; ; attempt++) {
+            startTransaction(definition);
+            //只有本次调用开启了新的物理事务时才能重试：NOT_SUPPORTED的语句已经自动提交，加入的事务由外层处理
+            boolean retryable = OrmContextHolder.lookupContext().getTransactionStatus().isNewTransaction();
+            try {
+                T result = callback.doInTransaction();
+                commit();
+                if (attempt > 0) {
+                    retrySuccessCount.increment();
+                }
+                return result;
+            } catch (RuntimeException | Error e) {
+                rollbackOnException(e);
+                if (!retryable || !isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= maxRetries) {
+                    retryExhaustedCount.increment();
+                    throw e;
+                }
+                retryCount.increment();
+                int retry = attempt + 1;
+                log.debug(() -> "Transaction failed with a retryable error, retry " + retry + "/" + maxRetries + ": " + e.getMessage());
+            } finally {
+                endTransaction();
+            }
+            backoff(attempt);
+        }
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        Assert.isTrue(maxRetries >= 0, "maxRetries must not be negative");
+        this.maxRetries = maxRetries;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * 设置重试的退避时间
+     *
+     * @param baseBackoffMillis 基础时间（毫秒）
+     * @param maxBackoffMillis  最大时间（毫秒）
+     */
+    public void setRetryBackoff(long baseBackoffMillis, long maxBackoffMillis) {
+        Assert.isTrue(baseBackoffMillis > 0 && maxBackoffMillis >= baseBackoffMillis, "Illegal retry backoff: {0}ms - {1}ms", baseBackoffMillis, maxBackoffMillis);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    public long getRetrySuccessCount() {
+        return retrySuccessCount.sum();
+    }
+
+    public long getRetryExhaustedCount() {
+        return retryExhaustedCount.sum();
+    }
+
     public void startTransaction() {
-        OrmContextHolder.setActualTransactionActive(true);
+        startTransaction(TransactionDefinition.DEFAULT);
+    }
+
+    /**
+     * 开启只读事务，开启了读写分离时整个事务在同一个从库上执行
+     */
+    public void startReadOnlyTransaction() {
+        startTransaction(TransactionDefinition.READ_ONLY);
+    }
+
+    /**
+     * 按事务定义开启事务，每次startTransaction都必须对应一次endTransaction
+     * <p>已经在事务中时按传播行为处理：REQUIRED加入当前事务，commit不执行，rollback把外层事务标记为只能回滚；
+     * REQUIRES_NEW、NOT_SUPPORTED挂起当前事务，endTransaction时恢复；NESTED在当前事务的连接上创建保存点，
+     * commit释放保存点，rollback回滚到保存点</p>
+     *
+     * @param definition 事务定义
+     */
+    public void startTransaction(TransactionDefinition definition) {
+        Assert.notNull(definition, "TransactionDefinition must not be null");
+        Assert.isTrue(!(definition.isReadOnly() && definition.isWriteBehind()), "A read-only transaction cannot be write-behind");
+        OrmContext context = OrmContextHolder.currentContext();
+        TransactionStatus current = context.getTransactionStatus();
+        Propagation propagation = definition.getPropagation();
+        if (!context.isActualTransactionActive()) {
+            boolean newTransaction = propagation != Propagation.NOT_SUPPORTED;
+            if (newTransaction) {
+                doBegin(context, definition);
+            }
+            context.setTransactionStatus(new TransactionStatus(definition, newTransaction, null, current));
+            return;
+        }
+        switch (propagation) {
+            case REQUIRES_NEW: {
+                OrmContext.SuspendedState suspended = context.suspend();
+                log.debug(() -> "Suspending current transaction, creating new transaction");
+                doBegin(context, definition);
+                context.setTransactionStatus(new TransactionStatus(definition, true, suspended, current));
+                break;
+            }
+            case NOT_SUPPORTED: {
+                OrmContext.SuspendedState suspended = context.suspend();
+                log.debug(() -> "Suspending current transaction");
+                context.setTransactionStatus(new TransactionStatus(definition, false, suspended, current));
+                break;
+            }
+            case NESTED: {
+                TransactionStatus status = new TransactionStatus(definition, false, null, current);
+                status.setSavepoints(createSavepoints(context));
+                context.setTransactionStatus(status);
+                break;
+            }
+            default:
+                log.debug(() -> "Participating in existing transaction");
+                context.setTransactionStatus(new TransactionStatus(definition, false, null, current));
+                break;
+        }
+    }
+
+    /**
+     * 在批量作用域中执行，每1000条语句自动flush一次
+     *
+     * @param action 批量执行的操作
+     * @return 批量执行的统计结果
+     */
+    public BatchStats batch(Runnable action) {
+        return batch(BatchScope.DEFAULT_FLUSH_EVERY, action);
+    }
+
+    /**
+     * 在批量作用域中执行：作用域内通过SqlSessionProxyBean执行的语句使用BATCH类型的SqlSession，每flushEvery条语句自动flushStatements
+     * <p>当前没有事务时，为作用域开启一个事务，正常结束时提交，异常时回滚；已经在事务中时加入当前事务，
+     * 此时事务中不能已经使用过非BATCH类型的SqlSession；作用域结束后事务中的后续语句仍然在BATCH类型的SqlSession上执行，
+     * 但每条写操作执行后立即flush，返回真实的影响行数。
+     * 嵌套的批量作用域直接加入外层作用域</p>
+     *
+     * @param flushEvery 每多少条语句flush一次
+     * @param action     批量执行的操作
+     * @return 批量执行的统计结果
+     */
+    public BatchStats batch(int flushEvery, Runnable action) {
+        Assert.notNull(action, "Batch action must not be null");
+        OrmContext context = OrmContextHolder.currentContext();
+        BatchScope outer = context.getBatchScope();
+        if (outer != null) {
+            action.run();
+            return outer.getStats();
+        }
+        boolean ownTransaction = !context.isActualTransactionActive();
+        if (ownTransaction) {
+            startTransaction();
+        }
+        BatchScope scope = new BatchScope(flushEvery);
+        context.setBatchScope(scope);
+        try {
+            action.run();
+            scope.flushAll();
+            if (ownTransaction) {
+                commit();
+            }
+            return scope.getStats();
+        } catch (RuntimeException | Error e) {
+            if (ownTransaction) {
+                rollback();
+            }
+            throw e;
+        } finally {
+            context.setBatchScope(null);
+            if (ownTransaction) {
+                endTransaction();
+            }
+        }
+    }
+
+    /**
+     * 把写缓冲中的写操作刷新到数据库（不提交）
+     */
+    public void flush() {
+        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.lookupContext().getSynchronizations();
+        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+            synchronizationTransaction.flush();
+        }
     }
 
     /**
      * 真正执行SqlSession的commit
      */
     public void commit() {
-        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.getSynchronizations();
-        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
-            synchronizationTransaction.commit();
+        if (!completeWithoutCommit()) {
+            List<TransactionSynchronization> synchronizationTransactions = beforeCommit();
+            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+                synchronizationTransaction.commit();
+            }
         }
     }
 
@@ -45,9 +309,11 @@ public class TransactionManagerProxyBean {
      * 真正执行SqlSession的commit
      */
     public void commit(boolean force) {
-        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.getSynchronizations();
-        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
-            synchronizationTransaction.commit(force);
+        if (!completeWithoutCommit()) {
+            List<TransactionSynchronization> synchronizationTransactions = beforeCommit();
+            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+                synchronizationTransaction.commit(force);
+            }
         }
     }
 
@@ -55,9 +321,11 @@ public class TransactionManagerProxyBean {
      * 真正执行SqlSession的rollback
      */
     public void rollback() {
-        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.getSynchronizations();
-        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
-            synchronizationTransaction.rollback();
+        if (!completeWithoutRollback()) {
+            List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.lookupContext().getSynchronizations();
+            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+                synchronizationTransaction.rollback();
+            }
         }
     }
 
@@ -65,9 +333,11 @@ public class TransactionManagerProxyBean {
      * 真正执行SqlSession的rollback
      */
     public void rollback(boolean force) {
-        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.getSynchronizations();
-        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
-            synchronizationTransaction.rollback(force);
+        if (!completeWithoutRollback()) {
+            List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.lookupContext().getSynchronizations();
+            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+                synchronizationTransaction.rollback(force);
+            }
         }
     }
 
@@ -75,24 +345,201 @@ public class TransactionManagerProxyBean {
      * 真正执行SqlSession的close
      */
     public void close() {
+        close(OrmContextHolder.lookupContext());
+    }
+
+    public void endTransaction() {
+        OrmContext context = OrmContextHolder.lookupContext();
+        TransactionStatus status = context.getTransactionStatus();
         try {
-            List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.getSynchronizations();
-            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
-                synchronizationTransaction.close();
+            if (status == null || status.isNewTransaction()) {
+                try {
+                    close(context);
+                } catch (Exception e) {
+                    log.error("endTransaction error!", e);
+                } finally {
+                    context.setActualTransactionActive(false);
+                    context.setTransactionDefinition(null);
+                    context.clearDeadline();
+                }
             }
         } finally {
-            //释放synchronizationTransactions资源
-            OrmContextHolder.clearSynchronization();
+            if (status != null) {
+                context.setTransactionStatus(status.getPrevious());
+                if (status.getSuspended() != null) {
+                    context.resume(status.getSuspended());
+                    log.debug(() -> "Resuming suspended transaction");
+                }
+            }
         }
     }
 
-    public void endTransaction() {
+    /**
+     * 回调或者提交异常时回滚，回滚的异常附加到原异常上
+     */
+    private void rollbackOnException(Throwable e) {
+        try {
+            rollback();
+        } catch (RuntimeException | Error rollbackException) {
+            e.addSuppressed(rollbackException);
+        }
+    }
+
+    /**
+     * 是否为可以重试整个事务的异常（死锁、锁等待超时、序列化失败）
+     *
+     * @param e 异常
+     * @return 是否可以重试
+     */
+    public static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                if (RETRYABLE_SQL_STATES.contains(sqlException.getSQLState()) || RETRYABLE_ERROR_CODES.contains(sqlException.getErrorCode())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重试前随机退避（full jitter），避免冲突的事务同时重试再次冲突
+     */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        long sleepMillis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (sleepMillis <= 0) {
+            return;
+        }
         try {
-            close();
-        } catch (Exception e) {
-            log.error("endTransaction error!", e);
+            Thread.sleep(sleepMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrmException("Interrupted while waiting to retry the transaction", e);
+        }
+    }
+
+    /**
+     * 开启新事务
+     */
+    private void doBegin(OrmContext context, TransactionDefinition definition) {
+        context.setActualTransactionActive(true);
+        context.setTransactionDefinition(definition);
+        if (definition.getTimeoutMillis() > 0) {
+            context.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(definition.getTimeoutMillis()));
+        } else {
+            context.clearDeadline();
+        }
+        //事务开启时就初始化事务链，传播到其他线程的子上下文注册的同步器也能被当前线程提交、关闭
+        if (!context.isSynchronizationActive()) {
+            context.initSynchronization();
+        }
+    }
+
+    /**
+     * 在当前事务已经开启的SqlSession上创建保存点，之后才开启的SqlSession在回滚时整体回滚
+     */
+    private Map<TransactionSynchronization, Object> createSavepoints(OrmContext context) {
+        Map<TransactionSynchronization, Object> savepoints = new IdentityHashMap<>(4);
+        for (TransactionSynchronization synchronization : context.getSynchronizations()) {
+            savepoints.put(synchronization, synchronization.createSavepoint());
+        }
+        return savepoints;
+    }
+
+    /**
+     * 不是由当前状态开启的事务时，commit只做对应的处理（释放保存点或者什么都不做）
+     *
+     * @return 是否已经处理完，不需要真正commit
+     * @throws OrmException 事务（或嵌套事务的保存点）已经被加入的内层事务标记为只能回滚
+     */
+    private boolean completeWithoutCommit() {
+        OrmContext context = OrmContextHolder.lookupContext();
+        TransactionStatus status = context.getTransactionStatus();
+        if (status == null) {
+            return false;
+        }
+        if (status.isNested()) {
+            if (status.isRollbackOnly()) {
+                rollback();
+                throw new OrmException("Nested transaction rolled back to savepoint because it has been marked as rollback-only");
+            }
+            for (TransactionSynchronization synchronization : context.getSynchronizations()) {
+                synchronization.releaseSavepoint(status.getSavepoints().get(synchronization));
+            }
+            return true;
+        }
+        if (!status.isNewTransaction()) {
+            return true;
+        }
+        if (status.isRollbackOnly()) {
+            rollback();
+            throw new OrmException("Transaction rolled back because it has been marked as rollback-only");
+        }
+        if (context.getTimeRemainingNanos() <= 0) {
+            rollback();
+            throw new OrmException("Transaction rolled back because it has timed out after " + status.getDefinition().getTimeoutMillis() + "ms");
+        }
+        return false;
+    }
+
+    /**
+     * 不是由当前状态开启的事务时，rollback只做对应的处理（回滚到保存点或者标记外层事务只能回滚）
+     *
+     * @return 是否已经处理完，不需要真正rollback
+     */
+    private boolean completeWithoutRollback() {
+        OrmContext context = OrmContextHolder.lookupContext();
+        TransactionStatus status = context.getTransactionStatus();
+        if (status == null || status.isNewTransaction()) {
+            return false;
+        }
+        if (status.getDefinition().getPropagation() == Propagation.NOT_SUPPORTED) {
+            return true;
+        }
+        if (status.isNested()) {
+            Map<TransactionSynchronization, Object> savepoints = status.getSavepoints();
+            for (TransactionSynchronization synchronization : context.getSynchronizations()) {
+                synchronization.rollbackToSavepoint(savepoints.get(synchronization));
+            }
+            return true;
+        }
+        //加入的事务回滚：标记最近的开启事务或者嵌套事务的外层状态只能回滚，由它统一回滚（嵌套事务只回滚到保存点）
+        for (TransactionStatus owner = status.getPrevious(); owner != null; owner = owner.getPrevious()) {
+            if (owner.isNewTransaction() || owner.isNested()) {
+                owner.setRollbackOnly();
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 提交前先执行所有同步器的beforeCommit（例如执行写缓冲），任何一个失败都不会开始提交
+     *
+     * @return 事务链
+     */
+    private List<TransactionSynchronization> beforeCommit() {
+        List<TransactionSynchronization> synchronizationTransactions = OrmContextHolder.lookupContext().getSynchronizations();
+        for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+            synchronizationTransaction.beforeCommit();
+        }
+        return synchronizationTransactions;
+    }
+
+    private void close(OrmContext context) {
+        try {
+            List<TransactionSynchronization> synchronizationTransactions = context.getSynchronizations();
+            for (TransactionSynchronization synchronizationTransaction : synchronizationTransactions) {
+                synchronizationTransaction.close();
+            }
         } finally {
-            OrmContextHolder.clearActualTransactionActive();
+            //释放synchronizationTransactions资源（只清空，容器留给下一个事务复用）
+            context.clearSynchronization();
         }
     }
 }
@@ -0,0 +1,464 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.starter.batch.BatchScope;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.TransactionStatus;
+import club.emperorws.orm.starter.transaction.TransactionSynchronization;
+
+import java.util.*;
+
+/**
+ * 单个线程的Orm运行上下文：绑定的资源、事务链、事务是否开启、当前数据源key
+ * <p>每个线程只有一个实例，由{@link OrmContextHolder}维护。一次调用只需要取一次ThreadLocal，之后直接把该对象往下传递；
+ * 内部的容器在事务结束后只清空不释放，同一线程的下一个事务直接复用，避免每个事务都重新分配HashMap、LinkedHashSet</p>
+ * <p>该对象不是线程安全的，只允许所属线程使用。跨线程传递事务上下文时使用{@link #fork()}，
+ * 子上下文与父上下文共享绑定的资源和事务链，但有各自的事务标识和数据源key</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 11:20
+ * @description: OrmContext: 单个线程的Orm运行上下文
+ */
+public class OrmContext {
+
+    /**
+     * 共享的空上下文，只读。当前线程没有上下文时，只读操作直接使用它，不需要为线程分配任何对象
+     */
+    static final OrmContext EMPTY = new OrmContext(true);
+
+    /**
+     * 是否只读（只有{@link #EMPTY}是只读的）
+     */
+    private final boolean readOnly;
+
+    /**
+     * 一些资源存储，key为SqlSessionFactory等单例对象，按对象身份（==）匹配
+     */
+    private Map<Object, Object> resources;
+
+    /**
+     * 事务链，按注册顺序执行，同一个同步器只注册一次
+     */
+    private List<TransactionSynchronization> synchronizations;
+
+    /**
+     * 事务链是否已初始化
+     */
+    private boolean synchronizationActive;
+
+    /**
+     * 当前线程是否开启了事务，且事务由统一事务管理器管理
+     */
+    private boolean actualTransactionActive;
+
+    /**
+     * 当前使用的数据源key
+     */
+    private String dbType;
+
+    /**
+     * 当前操作是否为事务外的只读查询，可以路由到从库
+     */
+    private boolean readRoute;
+
+    /**
+     * 当前事务的定义，没有开启事务时为null
+     */
+    private TransactionDefinition transactionDefinition;
+
+    /**
+     * 当前的批量作用域，没有开启时为null
+     */
+    private BatchScope batchScope;
+
+    /**
+     * 当前语句的fetchSize提示，0表示使用驱动默认值
+     */
+    private int fetchSize;
+
+    /**
+     * 上一个事务关闭后留下的SqlSession事务同步器（连同SqlSessionHolder），同一线程的下一个事务直接复用
+     */
+    private TransactionSynchronization recycledSessionSynchronization;
+
+    /**
+     * 当前的事务状态（栈顶），没有开启事务时为null
+     */
+    private TransactionStatus transactionStatus;
+
+    /**
+     * 当前事务是否设置了超时时间
+     */
+    private boolean deadlineActive;
+
+    /**
+     * 当前事务的截止时间（System.nanoTime）
+     */
+    private long deadlineNanos;
+
+    public OrmContext() {
+        this(false);
+    }
+
+    private OrmContext(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /*****************************************************资源管理****************************************************/
+
+    /**
+     * 获取绑定的资源
+     *
+     * @param key key
+     * @return 绑定的资源
+     */
+    public Object getResource(Object key) {
+        Map<Object, Object> map = this.resources;
+        return map == null ? null : map.get(key);
+    }
+
+    /**
+     * 设置（绑定）resources上下文值
+     *
+     * @param key   key
+     * @param value value
+     * @throws IllegalStateException 异常
+     */
+    public void bindResource(Object key, Object value) throws IllegalStateException {
+        Assert.notNull(value, "Value must not be null");
+        checkWritable();
+        if (this.resources == null) {
+            this.resources = new IdentityHashMap<>(4);
+        }
+        Object oldValue = this.resources.put(key, value);
+        if (oldValue != null) {
+            throw new IllegalStateException("Already value [" + oldValue + "] for key [" + key + "] bound to thread [" + Thread.currentThread().getName() + "]");
+        }
+    }
+
+    /**
+     * 删除（取消绑定）resources上下文值
+     *
+     * @param key key
+     * @return 被删除的旧值，没有绑定则返回null
+     */
+    public Object unbindResource(Object key) {
+        Map<Object, Object> map = this.resources;
+        return map == null ? null : map.remove(key);
+    }
+
+    /*****************************************************事务链管理****************************************************/
+
+    public boolean isSynchronizationActive() {
+        return this.synchronizationActive;
+    }
+
+    public void initSynchronization() throws IllegalStateException {
+        if (this.synchronizationActive) {
+            throw new IllegalStateException("Cannot activate transaction synchronization - already active");
+        }
+        checkWritable();
+        if (this.synchronizations == null) {
+            this.synchronizations = new ArrayList<>(4);
+        }
+        this.synchronizationActive = true;
+    }
+
+    public void registerSynchronization(TransactionSynchronization synchronization) throws IllegalStateException {
+        Assert.notNull(synchronization, "TransactionSynchronization must not be null");
+        if (!this.synchronizationActive) {
+            throw new IllegalStateException("Transaction synchronization is not active");
+        }
+        if (!this.synchronizations.contains(synchronization)) {
+            this.synchronizations.add(synchronization);
+        }
+    }
+
+    public List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
+        if (!this.synchronizationActive) {
+            throw new IllegalStateException("Transaction synchronization is not active");
+        }
+        if (this.synchronizations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        //Collections.sort(sortedSynchs); 暂时不需要排序，ignore
+        return Collections.unmodifiableList(this.synchronizations);
+    }
+
+    public void clearSynchronization() throws IllegalStateException {
+        if (!this.synchronizationActive) {
+            throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
+        }
+        this.synchronizations.clear();
+        this.synchronizationActive = false;
+    }
+
+    /*****************************************************事务是否开启的判断****************************************************/
+
+    public boolean isActualTransactionActive() {
+        return this.actualTransactionActive;
+    }
+
+    public void setActualTransactionActive(boolean active) {
+        if (active) {
+            checkWritable();
+        }
+        this.actualTransactionActive = active;
+    }
+
+    public TransactionDefinition getTransactionDefinition() {
+        return this.transactionDefinition;
+    }
+
+    /**
+     * 当前是否在只读事务中
+     *
+     * @return 是否在只读事务中
+     */
+    public boolean isReadOnlyTransaction() {
+        return this.actualTransactionActive && this.transactionDefinition != null && this.transactionDefinition.isReadOnly();
+    }
+
+    public void setTransactionDefinition(TransactionDefinition transactionDefinition) {
+        if (transactionDefinition != null) {
+            checkWritable();
+        }
+        this.transactionDefinition = transactionDefinition;
+    }
+
+    public BatchScope getBatchScope() {
+        return this.batchScope;
+    }
+
+    public void setBatchScope(BatchScope batchScope) {
+        if (batchScope != null) {
+            checkWritable();
+        }
+        this.batchScope = batchScope;
+    }
+
+    /*****************************************************语句提示****************************************************/
+
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize != 0) {
+            checkWritable();
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /*****************************************************多数据源****************************************************/
+
+    public String getDbType() {
+        return this.dbType;
+    }
+
+    public void setDbType(String dbType) {
+        if (dbType != null) {
+            checkWritable();
+        }
+        this.dbType = dbType;
+    }
+
+    public boolean isReadRoute() {
+        return this.readRoute;
+    }
+
+    public void setReadRoute(boolean readRoute) {
+        if (readRoute) {
+            checkWritable();
+        }
+        this.readRoute = readRoute;
+    }
+
+    /*****************************************************跨线程传播****************************************************/
+
+    /**
+     * 创建一个用于其他线程的子上下文
+     * <p>子上下文与当前上下文共享同一份绑定资源（SqlSessionHolder等）和事务链，子线程中获取的SqlSession、注册的事务同步器，
+     * 都由父线程统一提交、关闭；事务标识和数据源key为创建时的副本，子线程修改不会影响父线程</p>
+     * <p>注意：共享的容器不是线程安全的，同一个事务的SqlSession也不能被并发使用，适用于“交给其他线程执行，当前线程等待结果”的场景</p>
+     *
+     * @return 子上下文
+     */
+    public OrmContext fork() {
+        OrmContext child = new OrmContext(false);
+        if (this.readOnly) {
+            return child;
+        }
+        if (this.resources == null) {
+            this.resources = new IdentityHashMap<>(4);
+        }
+        if (this.synchronizations == null) {
+            this.synchronizations = new ArrayList<>(4);
+        }
+        child.resources = this.resources;
+        child.synchronizations = this.synchronizations;
+        child.synchronizationActive = this.synchronizationActive;
+        child.actualTransactionActive = this.actualTransactionActive;
+        child.transactionDefinition = this.transactionDefinition;
+        child.deadlineActive = this.deadlineActive;
+        child.deadlineNanos = this.deadlineNanos;
+        child.dbType = this.dbType;
+        return child;
+    }
+
+    /**
+     * 取走可复用的SqlSession事务同步器
+     *
+     * @return 事务同步器，没有时返回null
+     */
+    TransactionSynchronization pollRecycledSessionSynchronization() {
+        TransactionSynchronization synchronization = this.recycledSessionSynchronization;
+        this.recycledSessionSynchronization = null;
+        return synchronization;
+    }
+
+    /**
+     * 放回已经关闭的SqlSession事务同步器，只保留一个，只读的空上下文不保留
+     *
+     * @param synchronization 已经关闭的事务同步器
+     */
+    void recycleSessionSynchronization(TransactionSynchronization synchronization) {
+        if (!this.readOnly) {
+            this.recycledSessionSynchronization = synchronization;
+        }
+    }
+
+    private void checkWritable() {
+        if (this.readOnly) {
+            throw new IllegalStateException("Cannot modify the shared empty OrmContext, use OrmContextHolder.currentContext() instead");
+        }
+    }
+
+    /**
+     * 清空事务链与事务标识，绑定的资源与数据源key保持不变
+     */
+    public void clear() {
+        if (this.synchronizations != null) {
+            this.synchronizations.clear();
+        }
+        this.synchronizationActive = false;
+        this.actualTransactionActive = false;
+        this.transactionDefinition = null;
+        this.transactionStatus = null;
+        this.deadlineActive = false;
+    }
+
+    /*****************************************************事务超时****************************************************/
+
+    /**
+     * 设置当前事务的截止时间
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     */
+    public void setDeadline(long deadlineNanos) {
+        checkWritable();
+        this.deadlineActive = true;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public void clearDeadline() {
+        this.deadlineActive = false;
+    }
+
+    public boolean hasDeadline() {
+        return this.deadlineActive;
+    }
+
+    /**
+     * 当前事务的剩余时间
+     *
+     * @return 剩余的纳秒数，小于等于0表示已经超时；没有设置超时时间时返回Long.MAX_VALUE
+     */
+    public long getTimeRemainingNanos() {
+        return this.deadlineActive ? this.deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /*****************************************************事务挂起与恢复****************************************************/
+
+    public TransactionStatus getTransactionStatus() {
+        return this.transactionStatus;
+    }
+
+    public void setTransactionStatus(TransactionStatus transactionStatus) {
+        if (transactionStatus != null) {
+            checkWritable();
+        }
+        this.transactionStatus = transactionStatus;
+    }
+
+    /**
+     * 挂起当前事务：取走绑定的资源、事务链与事务标识，当前上下文恢复为没有事务的状态（数据源key保持不变）
+     *
+     * @return 挂起的事务，用于{@link #resume}
+     */
+    public SuspendedState suspend() {
+        checkWritable();
+        SuspendedState state = new SuspendedState(this.resources, this.synchronizations, this.synchronizationActive,
+                this.actualTransactionActive, this.transactionDefinition, this.batchScope, this.deadlineActive, this.deadlineNanos);
+        this.resources = null;
+        this.synchronizations = null;
+        this.synchronizationActive = false;
+        this.actualTransactionActive = false;
+        this.transactionDefinition = null;
+        this.batchScope = null;
+        this.deadlineActive = false;
+        return state;
+    }
+
+    /**
+     * 恢复挂起的事务，当前上下文中的资源与事务链应该已经关闭
+     *
+     * @param state {@link #suspend}返回的挂起事务
+     */
+    public void resume(SuspendedState state) {
+        Assert.notNull(state, "SuspendedState must not be null");
+        checkWritable();
+        this.resources = state.resources;
+        this.synchronizations = state.synchronizations;
+        this.synchronizationActive = state.synchronizationActive;
+        this.actualTransactionActive = state.actualTransactionActive;
+        this.transactionDefinition = state.transactionDefinition;
+        this.batchScope = state.batchScope;
+        this.deadlineActive = state.deadlineActive;
+        this.deadlineNanos = state.deadlineNanos;
+    }
+
+    /**
+     * 挂起的事务
+     */
+    public static final class SuspendedState {
+
+        private final Map<Object, Object> resources;
+
+        private final List<TransactionSynchronization> synchronizations;
+
+        private final boolean synchronizationActive;
+
+        private final boolean actualTransactionActive;
+
+        private final TransactionDefinition transactionDefinition;
+
+        private final BatchScope batchScope;
+
+        private final boolean deadlineActive;
+
+        private final long deadlineNanos;
+
+        private SuspendedState(Map<Object, Object> resources, List<TransactionSynchronization> synchronizations, boolean synchronizationActive,
+                               boolean actualTransactionActive, TransactionDefinition transactionDefinition, BatchScope batchScope,
+                               boolean deadlineActive, long deadlineNanos) {
+            this.resources = resources;
+            this.synchronizations = synchronizations;
+            this.synchronizationActive = synchronizationActive;
+            this.actualTransactionActive = actualTransactionActive;
+            this.transactionDefinition = transactionDefinition;
+            this.batchScope = batchScope;
+            this.deadlineActive = deadlineActive;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -2,11 +2,17 @@ package club.emperorws.orm.starter.util;
 
 import club.emperorws.orm.starter.transaction.TransactionSynchronization;
 
-import java.util.*;
+import java.util.List;
 
 /**
  * Orm运行过程中产生的全局遍历
- * <p>todo 注意多线程下ThreadLocal的数据丢失问题，本质上多线程下没有事务管理，没有共有的SqlSession等</p>
+ * <p>所有线程相关的状态都保存在同一个{@link OrmContext}中，只占用一个ThreadLocal。
+ * 热点路径应通过{@link #currentContext()}取一次上下文后直接往下传递，避免重复查找ThreadLocal</p>
+ * <p>只读操作在当前线程没有上下文时使用共享的空上下文，不会分配任何对象，只有真正写入（开启事务、绑定资源、切换数据源）时才创建，
+ * 大量短生命周期的虚拟线程只做非事务查询时也没有额外开销</p>
+ * <p>跨线程（线程池、CompletableFuture、虚拟线程）传递数据源上下文，使用
+ * {@link club.emperorws.orm.starter.concurrent.OrmContextSnapshot}或{@link club.emperorws.orm.starter.concurrent.OrmExecutors}包装后的线程池，
+ * 共享事务需要显式开启</p>
  *
  * @author: EmperorWS
  * @date: 2023/5/16 11:18
@@ -15,19 +21,59 @@ import java.util.*;
 public class OrmContextHolder {
 
     /**
-     * 一些资源存储
+     * 当前线程的Orm上下文，第一次写入时创建，之后一直复用
      */
-    private static final ThreadLocal<Map<Object, Object>> resources = new ThreadLocal<>();
+    private static final ThreadLocal<OrmContext> CONTEXT = new ThreadLocal<>();
 
     /**
-     * 事务链
+     * 获取当前线程的Orm上下文，没有则创建并绑定到当前线程
+     *
+     * @return 当前线程的Orm上下文
+     */
+    public static OrmContext currentContext() {
+        OrmContext context = CONTEXT.get();
+        if (context == null) {
+            context = new OrmContext();
+            CONTEXT.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * 只读获取当前线程的Orm上下文，没有则返回共享的空上下文（不可写），不会为当前线程分配任何对象
+     * <p>空上下文没有开启事务，所以SqlSession的获取、关闭等只在事务中才会写入的操作可以直接使用</p>
+     *
+     * @return 当前线程的Orm上下文或共享的空上下文
      */
-    private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations = new ThreadLocal<>();
+    public static OrmContext lookupContext() {
+        OrmContext context = CONTEXT.get();
+        return context == null ? OrmContext.EMPTY : context;
+    }
 
     /**
-     * 判断当前线程是否开启了事务，且事务由统一事务管理器管理
+     * 获取当前线程的Orm上下文，没有则返回null
+     *
+     * @return 当前线程的Orm上下文
      */
-    private static final ThreadLocal<Boolean> actualTransactionActive = new ThreadLocal<>();
+    public static OrmContext getContextIfPresent() {
+        return CONTEXT.get();
+    }
+
+    /**
+     * 把指定的上下文绑定到当前线程，null表示解除绑定
+     *
+     * @param context 需要绑定的上下文
+     * @return 当前线程原来的上下文，用于之后恢复
+     */
+    public static OrmContext bindContext(OrmContext context) {
+        OrmContext previous = CONTEXT.get();
+        if (context == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(context);
+        }
+        return previous;
+    }
 
     /*****************************************************资源管理****************************************************/
 
@@ -38,12 +84,7 @@ public class OrmContextHolder {
      * @return 绑定的资源
      */
     public static Object getResource(Object key) {
-        Map<Object, Object> map = (Map) resources.get();
-        if (map == null) {
-            return null;
-        } else {
-            return map.get(key);
-        }
+        return lookupContext().getResource(key);
     }
 
     /**
@@ -54,17 +95,7 @@ public class OrmContextHolder {
      * @throws IllegalStateException 异常
      */
     public static void bindResource(Object key, Object value) throws IllegalStateException {
-        Assert.notNull(value, "Value must not be null");
-        Map<Object, Object> map = (Map) resources.get();
-        if (map == null) {
-            map = new HashMap<>();
-            resources.set(map);
-        }
-
-        Object oldValue = ((Map) map).put(key, value);
-        if (oldValue != null) {
-            throw new IllegalStateException("Already value [" + oldValue + "] for key [" + key + "] bound to thread [" + Thread.currentThread().getName() + "]");
-        }
+        currentContext().bindResource(key, value);
     }
 
     /**
@@ -93,79 +124,46 @@ public class OrmContextHolder {
     }
 
     public static Object doUnbindResource(Object key) throws IllegalStateException {
-        Map<Object, Object> map = (Map) resources.get();
-        if (map == null) {
-            return null;
-        } else {
-            Object value = map.remove(key);
-            if (map.isEmpty()) {
-                resources.remove();
-            }
-            return value;
-        }
+        return lookupContext().unbindResource(key);
     }
 
     /*****************************************************事务链管理****************************************************/
 
     public static boolean isSynchronizationActive() {
-        return (synchronizations.get() != null);
+        return lookupContext().isSynchronizationActive();
     }
 
     public static void initSynchronization() throws IllegalStateException {
-        if (isSynchronizationActive()) {
-            throw new IllegalStateException("Cannot activate transaction synchronization - already active");
-        }
-        synchronizations.set(new LinkedHashSet<TransactionSynchronization>());
+        currentContext().initSynchronization();
     }
 
     public static void registerSynchronization(TransactionSynchronization synchronization) throws IllegalStateException {
-        Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-
-        Set<TransactionSynchronization> synchs = synchronizations.get();
-        if (synchs == null) {
-            throw new IllegalStateException("Transaction synchronization is not active");
-        }
-        synchs.add(synchronization);
+        lookupContext().registerSynchronization(synchronization);
     }
 
     public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-        Set<TransactionSynchronization> synchs = synchronizations.get();
-        if (synchs == null) {
-            throw new IllegalStateException("Transaction synchronization is not active");
-        }
-        if (synchs.isEmpty()) {
-            return Collections.emptyList();
-        } else {
-            // Sort lazily here, not in registerSynchronization.
-            List<TransactionSynchronization> sortedSynchs = new ArrayList<>(synchs);
-            //Collections.sort(sortedSynchs); 暂时不需要排序，ignore
-            return Collections.unmodifiableList(sortedSynchs);
-        }
+        return lookupContext().getSynchronizations();
     }
 
     public static void clearSynchronization() throws IllegalStateException {
-        if (!isSynchronizationActive()) {
-            throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
-        }
-        synchronizations.remove();
+        lookupContext().clearSynchronization();
     }
 
     /*****************************************************事务是否开启的判断****************************************************/
 
     public static boolean isActualTransactionActive() {
-        return (actualTransactionActive.get() != null);
+        return lookupContext().isActualTransactionActive();
     }
 
     public static void setActualTransactionActive(boolean active) {
-        actualTransactionActive.set(active ? Boolean.TRUE : null);
+        (active ? currentContext() : lookupContext()).setActualTransactionActive(active);
     }
 
     public static void clearActualTransactionActive() {
-        actualTransactionActive.remove();
+        lookupContext().setActualTransactionActive(false);
     }
 
     public static void clear() {
-        synchronizations.remove();
-        actualTransactionActive.remove();
+        lookupContext().clear();
     }
 }
@@ -0,0 +1,85 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.exception.OrmException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按属性名读取参数、结果对象中的值：Map取key，JavaBean取getter（getXxx或isXxx），getter按类缓存
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 11:30
+ * @description: PropertyReader: 按属性名读取对象的值
+ */
+public class PropertyReader {
+
+    /**
+     * 没有对应getter的类
+     */
+    private static final MethodHandle NO_GETTER = MethodHandles.constant(Object.class, null);
+
+    private final String property;
+
+    private final ConcurrentMap<Class<?>, MethodHandle> getters = new ConcurrentHashMap<>();
+
+    public PropertyReader(String property) {
+        Assert.notNull(property, "Property must not be null");
+        Assert.isFalse(property.isEmpty(), "Property must not be empty");
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * 读取属性的值
+     *
+     * @param target Map或者JavaBean，可能为空
+     * @return 属性的值，对象为空或者没有该属性时返回null
+     */
+    public Object read(Object target) {
+        if (target == null) {
+            return null;
+        }
+        if (target instanceof Map) {
+            return ((Map<?, ?>) target).get(property);
+        }
+        Class<?> type = target.getClass();
+        MethodHandle getter = getters.get(type);
+        if (getter == null) {
+            getter = getters.computeIfAbsent(type, this::findGetter);
+        }
+        if (getter == NO_GETTER) {
+            return null;
+        }
+        try {
+            return getter.invoke(target);
+        } catch (Throwable e) {
+            throw new OrmException("Get property [" + property + "] from [" + type.getName() + "] error", e);
+        }
+    }
+
+    private MethodHandle findGetter(Class<?> type) {
+        String suffix = property.substring(0, 1).toUpperCase(Locale.ENGLISH) + property.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = type.getMethod(name);
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            } catch (NoSuchMethodException e) {
+                // try next
+            } catch (IllegalAccessException e) {
+                throw new OrmException("Cannot access getter [" + name + "] of [" + type.getName() + "]", e);
+            }
+        }
+        return NO_GETTER;
+    }
+}
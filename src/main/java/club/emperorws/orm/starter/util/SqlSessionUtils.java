@@ -3,12 +3,17 @@ package club.emperorws.orm.starter.util;
 import club.emperorws.orm.exception.OrmException;
 import club.emperorws.orm.logging.Log;
 import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.result.BatchResult;
 import club.emperorws.orm.session.ExecutorType;
 import club.emperorws.orm.session.SqlSession;
 import club.emperorws.orm.session.SqlSessionFactory;
 import club.emperorws.orm.starter.session.proxy.SqlSessionHolder;
 import club.emperorws.orm.starter.transaction.TransactionSynchronization;
 
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+
 /**
  * SqlSession的相关工具
  *
@@ -34,17 +39,29 @@ public class SqlSessionUtils {
     }
 
     public static SqlSession getSqlSession(SqlSessionFactory sessionFactory, ExecutorType executorType) {
+        return getSqlSession(sessionFactory, executorType, OrmContextHolder.lookupContext());
+    }
+
+    /**
+     * 获取SqlSession，使用调用方已经取到的当前线程上下文，避免重复查找ThreadLocal
+     *
+     * @param sessionFactory SqlSessionFactory
+     * @param executorType   ExecutorType
+     * @param context        当前线程的Orm上下文
+     * @return SqlSession
+     */
+    public static SqlSession getSqlSession(SqlSessionFactory sessionFactory, ExecutorType executorType, OrmContext context) {
         Assert.notNull(sessionFactory, NO_SQL_SESSION_FACTORY_SPECIFIED);
         Assert.notNull(executorType, NO_EXECUTOR_TYPE_SPECIFIED);
 
-        SqlSessionHolder holder = (SqlSessionHolder) OrmContextHolder.getResource(sessionFactory);
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(sessionFactory);
 
         SqlSession session = sessionHolder(executorType, holder);
         if (session != null) {
             return session;
         }
         session = sessionFactory.openSession(executorType);
-        registerSessionHolder(sessionFactory, executorType, session);
+        registerSessionHolder(sessionFactory, executorType, session, context);
         return session;
     }
 
@@ -56,10 +73,21 @@ public class SqlSessionUtils {
     }
 
     public static void closeSqlSession(SqlSession session, SqlSessionFactory sessionFactory) {
+        closeSqlSession(session, sessionFactory, OrmContextHolder.lookupContext());
+    }
+
+    /**
+     * 关闭SqlSession：被事务管理的只减少引用计数，否则直接关闭
+     *
+     * @param session        SqlSession
+     * @param sessionFactory SqlSessionFactory
+     * @param context        当前线程的Orm上下文
+     */
+    public static void closeSqlSession(SqlSession session, SqlSessionFactory sessionFactory, OrmContext context) {
         Assert.notNull(session, NO_SQL_SESSION_SPECIFIED);
         Assert.notNull(sessionFactory, NO_SQL_SESSION_FACTORY_SPECIFIED);
 
-        SqlSessionHolder holder = (SqlSessionHolder) OrmContextHolder.getResource(sessionFactory);
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(sessionFactory);
         if ((holder != null) && (holder.getSqlSession() == session)) {
             holder.released();
         } else {
@@ -75,10 +103,22 @@ public class SqlSessionUtils {
      * @return SqlSession是否为统一管理
      */
     public static boolean isSqlSessionManaged(SqlSession session, SqlSessionFactory sessionFactory) {
+        return isSqlSessionManaged(session, sessionFactory, OrmContextHolder.lookupContext());
+    }
+
+    /**
+     * 判断SqlSession是否为统一管理
+     *
+     * @param session        原SqlSession
+     * @param sessionFactory SqlSessionFactory
+     * @param context        当前线程的Orm上下文
+     * @return SqlSession是否为统一管理
+     */
+    public static boolean isSqlSessionManaged(SqlSession session, SqlSessionFactory sessionFactory, OrmContext context) {
         Assert.notNull(session, NO_SQL_SESSION_SPECIFIED);
         Assert.notNull(sessionFactory, NO_SQL_SESSION_FACTORY_SPECIFIED);
 
-        SqlSessionHolder holder = (SqlSessionHolder) OrmContextHolder.getResource(sessionFactory);
+        SqlSessionHolder holder = (SqlSessionHolder) context.getResource(sessionFactory);
         return (holder != null) && (holder.getSqlSession() == session);
     }
 
@@ -99,17 +139,26 @@ public class SqlSessionUtils {
         return session;
     }
 
-    private static void registerSessionHolder(SqlSessionFactory sessionFactory, ExecutorType executorType, SqlSession session) {
+    private static void registerSessionHolder(SqlSessionFactory sessionFactory, ExecutorType executorType, SqlSession session, OrmContext context) {
         SqlSessionHolder holder;
         //是事务的。。。才进入
-        if (OrmContextHolder.isActualTransactionActive()) {
-            if (!OrmContextHolder.isSynchronizationActive()) {
-                OrmContextHolder.initSynchronization();
+        if (context.isActualTransactionActive()) {
+            if (!context.isSynchronizationActive()) {
+                context.initSynchronization();
             }
             logger.debug(() -> "Registering transaction synchronization for SqlSession [" + session + "]");
-            holder = new SqlSessionHolder(session, executorType);
-            OrmContextHolder.bindResource(sessionFactory, holder);
-            OrmContextHolder.registerSynchronization(new SqlSessionSynchronization(holder, sessionFactory));
+            SqlSessionSynchronization synchronization = (SqlSessionSynchronization) context.pollRecycledSessionSynchronization();
+            if (synchronization == null) {
+                holder = new SqlSessionHolder(session, executorType);
+                synchronization = new SqlSessionSynchronization(holder, sessionFactory);
+            } else {
+                //复用上一个事务留下的Holder和同步器，每个事务少分配两个对象
+                holder = synchronization.holder;
+                holder.reuse(session, executorType);
+                synchronization.reuse(sessionFactory);
+            }
+            context.bindResource(sessionFactory, holder);
+            context.registerSynchronization(synchronization);
             holder.setSynchronizedWithTransaction(true);
             holder.requested();
         } else {
@@ -126,7 +175,7 @@ public class SqlSessionUtils {
 
         private final SqlSessionHolder holder;
 
-        private final SqlSessionFactory sessionFactory;
+        private SqlSessionFactory sessionFactory;
 
         private boolean holderActive = true;
 
@@ -138,6 +187,11 @@ public class SqlSessionUtils {
             this.sessionFactory = sessionFactory;
         }
 
+        private void reuse(SqlSessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+            this.holderActive = true;
+        }
+
         /**
          * 事务排序，暂时不需要，ignore
          *
@@ -149,21 +203,97 @@ public class SqlSessionUtils {
         }
 
         @Override
-        public void commit() {
+        public void flush() {
             if (OrmContextHolder.isActualTransactionActive()) {
+                this.holder.flushPendingWrites();
+            }
+        }
+
+        @Override
+        public void beforeCommit() {
+            if (OrmContextHolder.isActualTransactionActive() && this.holder.hasPendingWrites()) {
+                List<BatchResult> results = this.holder.flushPendingWrites();
+                logger.debug(() -> "Flushed " + results.size() + " write-behind batch(es) of SqlSession [" + this.holder.getSqlSession() + "] before commit");
+            }
+        }
+
+        @Override
+        public void commit() {
+            if (isCommitRequired()) {
                 this.holder.getSqlSession().commit();
             }
         }
 
         @Override
         public void commit(boolean force) {
-            if (OrmContextHolder.isActualTransactionActive()) {
+            if (isCommitRequired()) {
                 this.holder.getSqlSession().commit(force);
             }
         }
 
+        /**
+         * 在SqlSession的连接上创建保存点，创建前先执行写缓冲和JDBC批量中还没执行的语句，保证它们在保存点之前
+         */
+        @Override
+        public Object createSavepoint() {
+            flushForSavepoint();
+            try {
+                return this.holder.getSqlSession().getConnection().setSavepoint();
+            } catch (SQLException e) {
+                throw new OrmException("Create savepoint error", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) {
+            this.holder.clearPendingWrites();
+            if (savepoint == null) {
+                //SqlSession在NESTED事务中才开启，它的全部修改都属于NESTED事务
+                this.holder.getSqlSession().rollback(true);
+                return;
+            }
+            //JDBC批量中还没执行的语句执行后再回滚，避免它们在保存点之后被提交
+            flushForSavepoint();
+            try {
+                this.holder.getSqlSession().getConnection().rollback((Savepoint) savepoint);
+            } catch (SQLException e) {
+                throw new OrmException("Rollback to savepoint error", e);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) {
+            if (savepoint == null) {
+                return;
+            }
+            try {
+                this.holder.getSqlSession().getConnection().releaseSavepoint((Savepoint) savepoint);
+            } catch (SQLException e) {
+                //部分驱动不支持释放保存点，事务结束时保存点自动释放
+                logger.debug(() -> "Release savepoint failed: " + e.getMessage());
+            }
+        }
+
+        private void flushForSavepoint() {
+            //执行写缓冲时已经flushStatements，JDBC批量中的其他语句也一起执行
+            if (this.holder.hasPendingWrites()) {
+                this.holder.flushPendingWrites();
+            } else if (this.holder.getExecutorType() == ExecutorType.BATCH) {
+                this.holder.getSqlSession().flushStatements();
+            }
+        }
+
+        /**
+         * 只读事务没有需要提交的修改，不执行commit，连接关闭时结束事务
+         */
+        private boolean isCommitRequired() {
+            OrmContext context = OrmContextHolder.lookupContext();
+            return context.isActualTransactionActive() && !context.isReadOnlyTransaction();
+        }
+
         @Override
         public void rollback() {
+            this.holder.clearPendingWrites();
             if (OrmContextHolder.isActualTransactionActive()) {
                 this.holder.getSqlSession().rollback();
             }
@@ -171,6 +301,7 @@ public class SqlSessionUtils {
 
         @Override
         public void rollback(boolean force) {
+            this.holder.clearPendingWrites();
             if (OrmContextHolder.isActualTransactionActive()) {
                 this.holder.getSqlSession().rollback(force);
             }
@@ -181,9 +312,18 @@ public class SqlSessionUtils {
             if (this.holderActive && !this.holder.isOpen()) {
                 OrmContextHolder.unbindResource(sessionFactory);
                 this.holderActive = false;
-                this.holder.getSqlSession().close();
+                try {
+                    this.holder.getSqlSession().close();
+                } finally {
+                    this.holder.clearPendingWrites();
+                    this.holder.reset();
+                    //SqlSession已经关闭、Holder已经解绑，留给同一线程的下一个事务复用
+                    OrmContextHolder.lookupContext().recycleSessionSynchronization(this);
+                }
+                return;
             }
             //todo 如果上一个if没有进入，应该怎么办
+            this.holder.clearPendingWrites();
             this.holder.reset();
         }
     }
@@ -0,0 +1,181 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.logging.Log;
+import club.emperorws.orm.logging.LogFactory;
+import club.emperorws.orm.mapping.SqlSource;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析后的SqlSource缓存，key为原始sql
+ * <p>命中时只有一次ConcurrentHashMap的读取和一次访问标记，不再解析#{}占位符、不再创建对象。
+ * 超过容量时按CLOCK（second-chance）淘汰：指针在环上转动，上一轮之后被访问过的sql清除标记、保留一轮，没有被访问过的淘汰，
+ * 近似LRU但读路径上不加锁、不维护链表。新增在锁内完成，缓存大小严格不超过maxSize。
+ * sql中拼接了变量（而不是使用#{}占位符）时不应使用缓存，否则会不断淘汰</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 22:30
+ * @description: SqlSourceCache: 解析后的SqlSource缓存
+ */
+public class SqlSourceCache {
+
+    private static final Log log = LogFactory.getLog(SqlSourceCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, Entry> sqlSources;
+
+    /**
+     * CLOCK的环，每个位置保存一个缓存的sql，新增、淘汰、清空都在锁内修改
+     */
+    private final String[] clock;
+
+    /**
+     * CLOCK的指针
+     */
+    private int hand;
+
+    /**
+     * 环上已经使用的位置数
+     */
+    private int filled;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public SqlSourceCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SqlSourceCache(int maxSize) {
+        Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+        this.maxSize = maxSize;
+        this.sqlSources = new ConcurrentHashMap<>(Math.min(maxSize, 256));
+        this.clock = new String[maxSize];
+    }
+
+    /**
+     * 获取sql对应的SqlSource，没有时解析并缓存
+     *
+     * @param sql 原始sql
+     * @return SqlSource
+     */
+    public SqlSource get(String sql) {
+        Assert.notNull(sql, "Parameter 'sql' is required");
+        Entry entry = sqlSources.get(sql);
+        if (entry != null) {
+            hitCount.increment();
+            entry.touch();
+            return entry.sqlSource;
+        }
+        missCount.increment();
+        //解析在锁外进行，并发解析同一个sql时以先放入缓存的为准
+        return put(sql, new SqlSource.Builder(sql).build());
+    }
+
+    public synchronized void clear() {
+        sqlSources.clear();
+        Arrays.fill(clock, null);
+        hand = 0;
+        filled = 0;
+    }
+
+    public int size() {
+        return sqlSources.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 命中率，还没有请求时返回0
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    /*************************************************private function***************************************************/
+
+    private synchronized SqlSource put(String sql, SqlSource sqlSource) {
+        Entry existing = sqlSources.get(sql);
+        if (existing != null) {
+            return existing.sqlSource;
+        }
+        int slot = filled < maxSize ? filled++ : evictOne();
+        clock[slot] = sql;
+        sqlSources.put(sql, new Entry(sqlSource));
+        return sqlSource;
+    }
+
+    /**
+     * 转动指针，淘汰第一个没有访问标记的sql，经过的sql清除访问标记；最多转两圈
+     *
+     * @return 空出的位置
+     */
+    private int evictOne() {
+        while (true) {
+            int slot = hand;
+            hand = hand + 1 == maxSize ? 0 : hand + 1;
+            String sql = clock[slot];
+            Entry entry = sqlSources.get(sql);
+            if (entry.referenced) {
+                entry.referenced = false;
+                continue;
+            }
+            sqlSources.remove(sql);
+            evictionCount.increment();
+            log.debug(() -> "Evicted cached SqlSource [" + sql + "], the cache reached max size " + maxSize);
+            return slot;
+        }
+    }
+
+    /*************************************************inner class***************************************************/
+
+    private static final class Entry {
+
+        private final SqlSource sqlSource;
+
+        /**
+         * 上一次指针经过之后是否被访问过
+         */
+        private volatile boolean referenced;
+
+        private Entry(SqlSource sqlSource) {
+            this.sqlSource = sqlSource;
+        }
+
+        /**
+         * 已经有标记时不再写入，避免热点sql在多核之间反复失效缓存行
+         */
+        private void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.mapping.SqlSource;
+
+/**
+ * SqlSource的相关工具
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 17:00
+ * @description: SqlSourceUtils: SqlSource的相关工具
+ */
+public class SqlSourceUtils {
+
+    private SqlSourceUtils() {
+        // do nothing
+    }
+
+    /**
+     * 获取SqlSource的原始sql
+     *
+     * @param sqlSource SqlSource
+     * @return sql，SqlSource为空时返回null
+     */
+    public static String getSql(SqlSource sqlSource) {
+        return sqlSource == null ? null : sqlSource.getSql();
+    }
+
+    /**
+     * 用改写后的sql创建新的SqlSource（分页、count等改写使用）
+     * <p>不经过{@link SqlSources}的缓存：改写后的sql可能带有分页的字面量，缓存只会不断淘汰</p>
+     *
+     * @param sql 改写后的sql
+     * @return 新的SqlSource
+     */
+    public static SqlSource rewrite(String sql) {
+        return new SqlSource.Builder(sql).build();
+    }
+}
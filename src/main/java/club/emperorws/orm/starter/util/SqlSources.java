@@ -0,0 +1,48 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.mapping.SqlSource;
+
+/**
+ * 通过原始sql获取SqlSource的入口，代替每次调用都new SqlSource.Builder(sql).build()
+ * <p>
+ * <b>How to use:</b>
+ * <pre>
+ * List&lt;Student&gt; studentList = studentMapper.selectList(SqlSources.of("select * from student where name like concat('%', #{keyword}, '%')"), "a");
+ * </pre>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/17 22:40
+ * @description: SqlSources: 通过原始sql获取缓存的SqlSource
+ */
+public class SqlSources {
+
+    private static volatile SqlSourceCache cache = new SqlSourceCache();
+
+    private SqlSources() {
+        // do nothing
+    }
+
+    /**
+     * 获取sql对应的SqlSource，相同的sql返回同一个实例
+     *
+     * @param sql 原始sql，只能使用#{}占位符传参，不要拼接变量
+     * @return SqlSource
+     */
+    public static SqlSource of(String sql) {
+        return cache.get(sql);
+    }
+
+    /**
+     * 替换全局缓存（例如调整容量），旧缓存中的SqlSource不会迁移
+     *
+     * @param sqlSourceCache 新的缓存
+     */
+    public static void setCache(SqlSourceCache sqlSourceCache) {
+        Assert.notNull(sqlSourceCache, "Parameter 'sqlSourceCache' is required");
+        cache = sqlSourceCache;
+    }
+
+    public static SqlSourceCache getCache() {
+        return cache;
+    }
+}
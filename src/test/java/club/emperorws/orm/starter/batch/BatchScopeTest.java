@@ -0,0 +1,93 @@
+package club.emperorws.orm.starter.batch;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.starter.session.proxy.RecordingSqlSessionFactory;
+import club.emperorws.orm.starter.session.proxy.SqlSessionProxyBean;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量作用域的测试：每N条语句flush、作用域结束时flush剩余语句、嵌套作用域加入外层
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 19:05
+ * @description: BatchScopeTest: 批量作用域测试
+ */
+@Tag("批量测试")
+@DisplayName("批量作用域测试")
+public class BatchScopeTest {
+
+    private static final SqlSource INSERT = new SqlSource.Builder("insert into t_user (id) values (#{id})").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("每N条语句flush一次，结束时flush剩余的语句并提交")
+    @Test
+    public void flushesEveryNStatements() {
+        BatchStats stats = transactionManager.batch(3, () -> {
+            for (int i = 1; i <= 7; i++) {
+                sqlSessionProxyBean.insert(INSERT, i);
+            }
+        });
+        assertEquals(Arrays.asList("open:BATCH",
+                "insert:1", "insert:2", "insert:3", "flushStatements",
+                "insert:4", "insert:5", "insert:6", "flushStatements",
+                "insert:7", "flushStatements", "commit", "close"), factory.getEvents());
+        assertEquals(7, stats.getStatementCount());
+        assertEquals(3, stats.getFlushCount());
+    }
+
+    @DisplayName("语句数正好是N的倍数时，结束时只再flush一次空批量")
+    @Test
+    public void exactMultipleOfN() {
+        BatchStats stats = transactionManager.batch(2, () -> {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            sqlSessionProxyBean.insert(INSERT, 2);
+        });
+        assertEquals(Arrays.asList("open:BATCH", "insert:1", "insert:2", "flushStatements", "flushStatements", "commit", "close"), factory.getEvents());
+        assertEquals(2, stats.getStatementCount());
+    }
+
+    @DisplayName("嵌套的批量作用域加入外层作用域，共用计数")
+    @Test
+    public void nestedScopeJoinsOuter() {
+        BatchStats stats = transactionManager.batch(2, () -> {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            BatchStats inner = transactionManager.batch(100, () -> sqlSessionProxyBean.insert(INSERT, 2));
+            assertEquals(2, inner.getStatementCount());
+            sqlSessionProxyBean.insert(INSERT, 3);
+        });
+        assertEquals(3, stats.getStatementCount());
+        assertEquals(Arrays.asList("open:BATCH", "insert:1", "insert:2", "flushStatements", "insert:3", "flushStatements", "commit", "close"), factory.getEvents());
+    }
+
+    @DisplayName("作用域中的异常回滚作用域开启的事务")
+    @Test
+    public void failureRollsBack() {
+        assertThrows(IllegalStateException.class, () -> transactionManager.batch(2, () -> {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(Arrays.asList("open:BATCH", "insert:1", "rollback", "close"), factory.getEvents());
+        assertNull(OrmContextHolder.lookupContext().getBatchScope());
+        assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+    }
+}
@@ -0,0 +1,68 @@
+package club.emperorws.orm.starter.batch;
+
+import club.emperorws.orm.exception.OrmException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 微批量写入的批量结果与调用方Future对应关系的测试
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 15:10
+ * @description: MicroBatchWriterTest: 微批量写入测试
+ */
+@Tag("微批量写入测试")
+@DisplayName("微批量写入测试")
+public class MicroBatchWriterTest {
+
+    @DisplayName("多个BatchResult按执行顺序对应每个写操作")
+    @Test
+    public void completesInExecutionOrder() {
+        List<CompletableFuture<Integer>> futures = futures(5);
+        MicroBatchWriter.complete(futures, Arrays.asList(new int[]{1, 0}, new int[]{3}, new int[]{Statement.SUCCESS_NO_INFO, 2}));
+        assertEquals(Integer.valueOf(1), futures.get(0).join());
+        assertEquals(Integer.valueOf(0), futures.get(1).join());
+        assertEquals(Integer.valueOf(3), futures.get(2).join());
+        assertEquals(Integer.valueOf(Statement.SUCCESS_NO_INFO), futures.get(3).join());
+        assertEquals(Integer.valueOf(2), futures.get(4).join());
+    }
+
+    @DisplayName("影响行数不够时其余的写操作失败")
+    @Test
+    public void failsMissingUpdateCounts() {
+        List<CompletableFuture<Integer>> futures = futures(3);
+        MicroBatchWriter.complete(futures, Collections.singletonList(new int[]{1}));
+        assertEquals(Integer.valueOf(1), futures.get(0).join());
+        for (CompletableFuture<Integer> future : futures.subList(1, 3)) {
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(OrmException.class, e.getCause());
+        }
+    }
+
+    @DisplayName("多余的影响行数被忽略")
+    @Test
+    public void ignoresExtraUpdateCounts() {
+        List<CompletableFuture<Integer>> futures = futures(1);
+        MicroBatchWriter.complete(futures, Collections.singletonList(new int[]{4, 5}));
+        assertEquals(Integer.valueOf(4), futures.get(0).join());
+    }
+
+    private static List<CompletableFuture<Integer>> futures(int size) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        return futures;
+    }
+}
@@ -0,0 +1,156 @@
+package club.emperorws.orm.starter.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询结果缓存的测试：命中、写操作失效、加载期间的版本检查、按权重淘汰
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 15:00
+ * @description: QueryResultCacheTest: 查询结果缓存测试
+ */
+@Tag("查询缓存测试")
+@DisplayName("查询结果缓存测试")
+public class QueryResultCacheTest {
+
+    private static final String SELECT_DICT = "select * from t_dict where type = #{type}";
+
+    private static final String SELECT_USER = "select * from t_user where id = #{id}";
+
+    @DisplayName("只缓存登记过的sql")
+    @Test
+    public void cachesRegisteredStatementsOnly() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        AtomicInteger loads = new AtomicInteger();
+        QueryCacheKey key = new QueryCacheKey(SELECT_DICT, "gender", "master");
+        assertEquals("a", cache.get(key, () -> {
+            loads.incrementAndGet();
+            return "a";
+        }));
+        assertEquals("a", cache.get(key, () -> {
+            loads.incrementAndGet();
+            return "b";
+        }));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+
+        QueryCacheKey userKey = new QueryCacheKey(SELECT_USER, 1, "master");
+        cache.get(userKey, loads::incrementAndGet);
+        cache.get(userKey, loads::incrementAndGet);
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @DisplayName("写操作失效同一张表的缓存")
+    @Test
+    public void invalidateByTable() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        cache.cacheStatement(SELECT_USER, 1, TimeUnit.MINUTES);
+        QueryCacheKey dictKey = new QueryCacheKey(SELECT_DICT, "gender", "master");
+        QueryCacheKey userKey = new QueryCacheKey(SELECT_USER, 1, "master");
+        cache.get(dictKey, () -> "dict");
+        cache.get(userKey, () -> "user");
+
+        cache.invalidate("update T_DICT set name = #{name} where id = #{id}");
+        assertEquals(1, cache.size());
+        assertEquals("dict2", cache.get(dictKey, () -> "dict2"));
+        assertEquals("user", cache.get(userKey, () -> "user2"));
+    }
+
+    @DisplayName("加载期间有写操作时不放入缓存")
+    @Test
+    public void writeDuringLoadDiscardsResult() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        QueryCacheKey key = new QueryCacheKey(SELECT_DICT, "gender", "master");
+        String loaded = cache.get(key, () -> {
+            cache.invalidateTables(Collections.singleton("t_dict"));
+            return "stale";
+        });
+        assertEquals("stale", loaded);
+        assertEquals(0, cache.size());
+        assertEquals("fresh", cache.get(key, () -> "fresh"));
+        assertEquals(1, cache.size());
+    }
+
+    @DisplayName("超过权重时淘汰最久没有访问的结果")
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() {
+        QueryResultCache cache = new QueryResultCache(4);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        QueryCacheKey a = new QueryCacheKey(SELECT_DICT, "a", "master");
+        QueryCacheKey b = new QueryCacheKey(SELECT_DICT, "b", "master");
+        QueryCacheKey c = new QueryCacheKey(SELECT_DICT, "c", "master");
+        cache.get(a, () -> Arrays.asList(1, 2));
+        cache.get(b, () -> Arrays.asList(1, 2));
+        //访问a，b成为最久没有访问的
+        cache.get(a, () -> null);
+        cache.get(c, () -> "c");
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getWeight());
+        assertEquals(Arrays.asList(1, 2), cache.get(a, () -> null));
+        assertEquals("reloaded", cache.get(b, () -> "reloaded"));
+    }
+
+    @DisplayName("单个结果超过最大权重时不缓存")
+    @Test
+    public void oversizedResultIsNotCached() {
+        QueryResultCache cache = new QueryResultCache(2);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        QueryCacheKey key = new QueryCacheKey(SELECT_DICT, "a", "master");
+        cache.get(key, () -> Arrays.asList(1, 2, 3));
+        assertEquals(0, cache.size());
+    }
+
+    @DisplayName("事务中有解析不出表名的写操作时，提交后清空所有缓存")
+    @Test
+    public void unresolvableWriteInTransactionClearsAll() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        cache.cacheStatement(SELECT_USER, 1, TimeUnit.MINUTES);
+        cache.get(new QueryCacheKey(SELECT_DICT, "gender", "master"), () -> "dict");
+        cache.get(new QueryCacheKey(SELECT_USER, 1, "master"), () -> "user");
+
+        QueryCacheSynchronization synchronization = new QueryCacheSynchronization(cache);
+        synchronization.addWrite("update t_dict set name = #{name} where id = #{id}");
+        synchronization.addWrite("{call refresh_user_stat()}");
+        assertEquals(2, cache.size());
+        synchronization.commit();
+        assertEquals(0, cache.size());
+    }
+
+    @DisplayName("事务中的写操作在提交后只失效涉及的表")
+    @Test
+    public void writeInTransactionInvalidatesOnCommit() {
+        QueryResultCache cache = new QueryResultCache(100);
+        cache.cacheStatement(SELECT_DICT, 1, TimeUnit.MINUTES);
+        cache.cacheStatement(SELECT_USER, 1, TimeUnit.MINUTES);
+        cache.get(new QueryCacheKey(SELECT_DICT, "gender", "master"), () -> "dict");
+        cache.get(new QueryCacheKey(SELECT_USER, 1, "master"), () -> "user");
+
+        QueryCacheSynchronization synchronization = new QueryCacheSynchronization(cache);
+        synchronization.addWrite("update t_dict set name = #{name} where id = #{id}");
+        synchronization.rollback();
+        assertEquals(2, cache.size());
+        synchronization.commit();
+        assertEquals(1, cache.size());
+    }
+
+    @DisplayName("解析不出表名的sql不能登记缓存")
+    @Test
+    public void rejectsUnresolvableStatement() {
+        QueryResultCache cache = new QueryResultCache(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.cacheStatement("select 1", 1, TimeUnit.MINUTES));
+    }
+}
@@ -0,0 +1,172 @@
+package club.emperorws.orm.starter.concurrent;
+
+import club.emperorws.orm.starter.transaction.TransactionSynchronization;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Orm上下文快照跨线程传递的测试
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 16:20
+ * @description: OrmContextSnapshotTest: Orm上下文快照测试
+ */
+@Tag("上下文快照测试")
+@DisplayName("Orm上下文快照测试")
+public class OrmContextSnapshotTest {
+
+    private static final Object RESOURCE_KEY = new Object();
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("只传递数据源key的快照，每次attach绑定全新的上下文")
+    @Test
+    public void dataSourceOnlyAttachBindsFreshContext() {
+        OrmContext current = OrmContextHolder.currentContext();
+        current.setDbType("master");
+        current.bindResource(RESOURCE_KEY, "parent");
+        OrmContextSnapshot snapshot = OrmContextSnapshot.captureDataSourceOnly();
+
+        OrmContext previous = snapshot.attach();
+        try {
+            OrmContext attached = OrmContextHolder.currentContext();
+            assertNotSame(current, attached);
+            assertEquals("master", attached.getDbType());
+            assertNull(attached.getResource(RESOURCE_KEY));
+            assertFalse(attached.isSynchronizationActive());
+        } finally {
+            OrmContextSnapshot.detach(previous);
+        }
+        assertSame(current, OrmContextHolder.currentContext());
+    }
+
+    @DisplayName("同一个快照的两个任务并发执行各自的事务，互不共享资源和事务链")
+    @Test
+    public void concurrentAttachRunsIndependentTransactions() throws Exception {
+        OrmContextHolder.currentContext().setDbType("master");
+        OrmContextSnapshot snapshot = OrmContextSnapshot.captureDataSourceOnly();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        AtomicInteger commits = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                String worker = "worker-" + i;
+                futures.add(executor.submit(snapshot.wrap(() -> {
+                    transactionManager.startTransaction();
+                    try {
+                        OrmContext context = OrmContextHolder.currentContext();
+                        assertEquals("master", context.getDbType());
+                        context.bindResource(RESOURCE_KEY, worker);
+                        context.registerSynchronization(new CountingSynchronization(commits));
+                        //两个任务都在事务中时再检查，保证各自的资源和事务链同时存在
+                        await(barrier);
+                        assertEquals(worker, context.getResource(RESOURCE_KEY));
+                        assertEquals(1, context.getSynchronizations().size());
+                        await(barrier);
+                        transactionManager.commit();
+                        context.unbindResource(RESOURCE_KEY);
+                    } finally {
+                        transactionManager.endTransaction();
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, commits.get());
+        OrmContext current = OrmContextHolder.currentContext();
+        assertNull(current.getResource(RESOURCE_KEY));
+        assertFalse(current.isSynchronizationActive());
+    }
+
+    @DisplayName("共享事务的快照，子线程看到当前线程绑定的资源")
+    @Test
+    public void withTransactionSharesResources() {
+        OrmContext current = OrmContextHolder.currentContext();
+        current.bindResource(RESOURCE_KEY, "parent");
+        OrmContextSnapshot snapshot = OrmContextSnapshot.captureWithTransaction();
+
+        OrmContext previous = snapshot.attach();
+        try {
+            assertEquals("parent", OrmContextHolder.currentContext().getResource(RESOURCE_KEY));
+        } finally {
+            OrmContextSnapshot.detach(previous);
+        }
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*************************************************inner class***************************************************/
+
+    /**
+     * 只统计提交次数的同步器
+     */
+    private static final class CountingSynchronization implements TransactionSynchronization {
+
+        private final AtomicInteger commits;
+
+        private CountingSynchronization(AtomicInteger commits) {
+            this.commits = commits;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public void commit() {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void commit(boolean force) {
+            commit();
+        }
+
+        @Override
+        public void rollback() {
+        }
+
+        @Override
+        public void rollback(boolean force) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package club.emperorws.orm.starter.concurrent;
+
+import club.emperorws.orm.exception.OrmException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发任务工具的测试：总截止时间、失败或超时时取消其余任务
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 18:40
+ * @description: OrmExecutorsTest: 并发任务工具测试
+ */
+@Tag("并发测试")
+@DisplayName("并发任务工具测试")
+public class OrmExecutorsTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2, OrmExecutors.daemonThreadFactory("orm-executors-test"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("全部完成时按提交顺序返回结果")
+    @Test
+    public void awaitAllReturnsResultsInOrder() {
+        List<CompletableFuture<Integer>> futures = Arrays.asList(
+                OrmExecutors.submitAsync(() -> {
+                    Thread.sleep(50);
+                    return 1;
+                }, executor),
+                OrmExecutors.submitAsync(() -> 2, executor));
+        assertEquals(Arrays.asList(1, 2), OrmExecutors.awaitAll(futures, 5, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), OrmExecutors.awaitAll(Collections.<CompletableFuture<Object>>emptyList(), 1, TimeUnit.MILLISECONDS));
+    }
+
+    @DisplayName("超过截止时间时取消并中断其余任务")
+    @Test
+    public void deadlineCancelsAndInterruptsRemainingTasks() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Object> slow = OrmExecutors.submitAsync(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        }, executor);
+        long start = System.nanoTime();
+        OrmException e = assertThrows(OrmException.class, () -> OrmExecutors.awaitAll(Collections.singletonList(slow), 100, TimeUnit.MILLISECONDS));
+        assertTrue(e.getMessage().contains("did not complete"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+        assertTrue(slow.isCancelled());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("任意一个任务失败时立即抛出它的异常，并取消其余任务")
+    @Test
+    public void failureCancelsRemainingTasks() {
+        CompletableFuture<Object> slow = OrmExecutors.submitAsync(() -> {
+            Thread.sleep(10_000);
+            return null;
+        }, executor);
+        CompletableFuture<Object> failed = OrmExecutors.submitAsync(() -> {
+            throw new IllegalStateException("boom");
+        }, executor);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> OrmExecutors.awaitAll(Arrays.asList(slow, failed), 5, TimeUnit.SECONDS));
+        assertEquals("boom", e.getMessage());
+        assertTrue(slow.isCancelled());
+    }
+
+    @DisplayName("排队期间已经取消的任务不再执行")
+    @Test
+    public void cancelledTaskInQueueIsSkipped() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Object> blocker = OrmExecutors.submitAsync(() -> {
+                release.await();
+                return null;
+            }, single);
+            boolean[] executed = {false};
+            CompletableFuture<Object> queued = OrmExecutors.submitAsync(() -> {
+                executed[0] = true;
+                return null;
+            }, single);
+            OrmExecutors.cancelAll(Collections.singletonList(queued));
+            release.countDown();
+            blocker.get(5, TimeUnit.SECONDS);
+            single.submit(() -> {
+            }).get(5, TimeUnit.SECONDS);
+            assertFalse(executed[0]);
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package club.emperorws.orm.starter.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 熔断器滑动窗口与状态转换的测试
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 14:50
+ * @description: CircuitBreakerTest: 熔断器测试
+ */
+@Tag("熔断测试")
+@DisplayName("熔断器测试")
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @DisplayName("调用数不足最小调用数时不熔断")
+    @Test
+    public void belowMinimumNumberOfCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("replica", config(10, 5, 0.5D));
+        for (int i = 0; i < 4; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1D, breaker.getFailureRate());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    @DisplayName("窗口满后最旧的结果移出窗口")
+    @Test
+    public void slidingWindowEvictsOldestOutcome() {
+        CircuitBreaker breaker = new CircuitBreaker("replica", config(4, 4, 0.75D));
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess(FAST);
+        breaker.recordSuccess(FAST);
+        assertEquals(0.5D, breaker.getFailureRate());
+        //移出一个失败，加入一个成功
+        breaker.recordSuccess(FAST);
+        assertEquals(0.25D, breaker.getFailureRate());
+        //移出一个失败，加入一个失败
+        breaker.recordFailure();
+        assertEquals(0.25D, breaker.getFailureRate());
+        breaker.recordFailure();
+        assertEquals(0.5D, breaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure();
+        assertEquals(0.75D, breaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @DisplayName("慢调用计入失败")
+    @Test
+    public void slowAcquireCountsAsFailure() {
+        CircuitBreakerConfig config = config(2, 2, 0.5D);
+        config.setSlowAcquireMillis(10);
+        CircuitBreaker breaker = new CircuitBreaker("replica", config);
+        breaker.recordSuccess(FAST);
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @DisplayName("熔断时间到达后探测，恢复后清空窗口")
+    @Test
+    public void probeRecovers() {
+        CircuitBreakerConfig config = config(2, 2, 0.5D);
+        config.setOpenDurationMillis(0);
+        CircuitBreaker breaker = new CircuitBreaker("replica", config);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryStartProbe());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        //已经在探测中
+        assertFalse(breaker.tryStartProbe());
+        breaker.onProbeResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryStartProbe());
+        breaker.onProbeResult(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0D, breaker.getFailureRate());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @DisplayName("熔断时间未到时不探测")
+    @Test
+    public void noProbeBeforeOpenDuration() {
+        CircuitBreakerConfig config = config(1, 1, 1D);
+        config.setOpenDurationMillis(TimeUnit.MINUTES.toMillis(1));
+        CircuitBreaker breaker = new CircuitBreaker("replica", config);
+        assertFalse(breaker.tryStartProbe());
+        breaker.recordFailure();
+        assertFalse(breaker.tryStartProbe());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private static CircuitBreakerConfig config(int slidingWindowSize, int minimumNumberOfCalls, double failureRateThreshold) {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(slidingWindowSize);
+        config.setMinimumNumberOfCalls(minimumNumberOfCalls);
+        config.setFailureRateThreshold(failureRateThreshold);
+        return config;
+    }
+}
@@ -0,0 +1,196 @@
+package club.emperorws.orm.starter.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PreparedStatement缓存的测试（H2内存数据库）：每个物理连接的LRU淘汰、清理已经关闭的物理连接、归还前回滚缓存语句未提交的修改
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 17:50
+ * @description: PreparedStatementCacheTest: PreparedStatement缓存测试
+ */
+@Tag("语句缓存测试")
+@DisplayName("PreparedStatement缓存测试")
+public class PreparedStatementCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:statement_cache;DB_CLOSE_DELAY=-1";
+
+    private static final String SELECT_1 = "select id from t_statement_cache where id = ?";
+
+    private static final String SELECT_2 = "select id from t_statement_cache where id > ?";
+
+    private static final String SELECT_3 = "select count(*) from t_statement_cache where id < ?";
+
+    private Connection physical;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        physical = DriverManager.getConnection(URL);
+        try (Statement statement = physical.createStatement()) {
+            statement.execute("create table if not exists t_statement_cache (id int primary key)");
+            statement.execute("delete from t_statement_cache");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        physical.close();
+    }
+
+    @DisplayName("每个物理连接按LRU淘汰超过容量的语句")
+    @Test
+    public void evictsLeastRecentlyUsedPerConnection() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        TrackedConnection connection = new TrackedConnection(pooled(physical), () -> {
+        }, cache);
+        prepareAndClose(connection, SELECT_1);
+        prepareAndClose(connection, SELECT_2);
+        prepareAndClose(connection, SELECT_1);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.size());
+
+        //SELECT_2最久没有使用，被淘汰
+        prepareAndClose(connection, SELECT_3);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+        prepareAndClose(connection, SELECT_1);
+        assertEquals(2, cache.getHitCount());
+        long misses = cache.getMissCount();
+        prepareAndClose(connection, SELECT_2);
+        assertEquals(misses + 1, cache.getMissCount());
+        connection.close();
+        assertFalse(physical.isClosed());
+    }
+
+    @DisplayName("同一条sql同时被取出时各自预编译，放回时关闭多余的语句")
+    @Test
+    public void concurrentCheckoutOfSameSql() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        TrackedConnection connection = new TrackedConnection(pooled(physical), () -> {
+        }, cache);
+        PreparedStatement first = connection.prepareStatement(SELECT_1);
+        PreparedStatement second = connection.prepareStatement(SELECT_1);
+        assertEquals(2, cache.getMissCount());
+        first.close();
+        second.close();
+        assertEquals(1, cache.size());
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, () -> first.setInt(1, 1));
+    }
+
+    @DisplayName("清理已经关闭的物理连接的缓存")
+    @Test
+    public void purgesClosedConnections() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        Connection other = DriverManager.getConnection(URL);
+        prepareAndClose(new TrackedConnection(pooled(physical), () -> {
+        }, cache), SELECT_1);
+        prepareAndClose(new TrackedConnection(pooled(other), () -> {
+        }, cache), SELECT_1);
+        assertEquals(2, cache.getConnectionCount());
+        assertEquals(0, cache.purgeClosedConnections());
+
+        other.close();
+        assertEquals(1, cache.purgeClosedConnections());
+        assertEquals(1, cache.getConnectionCount());
+        assertEquals(1, cache.size());
+
+        //第一次遇到新的物理连接时也会清理已经关闭的物理连接
+        Connection third = DriverManager.getConnection(URL);
+        try {
+            physical.close();
+            prepareAndClose(new TrackedConnection(pooled(third), () -> {
+            }, cache), SELECT_1);
+            assertEquals(1, cache.getConnectionCount());
+        } finally {
+            third.close();
+        }
+        cache.clear();
+        assertEquals(0, cache.getConnectionCount());
+    }
+
+    @DisplayName("执行过缓存的语句且没有提交时，归还连接前回滚")
+    @Test
+    public void rollsBackUncommittedWorkOnClose() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(4);
+        physical.setAutoCommit(false);
+        TrackedConnection connection = new TrackedConnection(pooled(physical), () -> {
+        }, cache);
+        insert(connection, 1);
+        connection.commit();
+        insert(connection, 2);
+        connection.close();
+        assertEquals(1, count(physical));
+
+        //提交后归还不回滚
+        connection = new TrackedConnection(pooled(physical), () -> {
+        }, cache);
+        insert(connection, 3);
+        connection.commit();
+        connection.close();
+        assertEquals(2, count(physical));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static void prepareAndClose(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, 1);
+            statement.executeQuery().close();
+        }
+    }
+
+    private static void insert(Connection connection, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("insert into t_statement_cache (id) values (?)")) {
+            statement.setInt(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from t_statement_cache")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * 模拟连接池借出的连接：close只是归还（不关闭物理连接），unwrap返回物理连接
+     */
+    private static Connection pooled(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "unwrap":
+                    return physical;
+                case "isWrapperFor":
+                    return true;
+                default:
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package club.emperorws.orm.starter.datasource;
+
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 从库负载均衡的测试（H2内存数据库）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 17:10
+ * @description: ReplicaLoadBalancerTest: 从库负载均衡测试
+ */
+@Tag("读写分离测试")
+@DisplayName("从库负载均衡测试")
+public class ReplicaLoadBalancerTest {
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("最少连接数策略通过连接关闭回调计数，连接只包装一层")
+    @Test
+    public void leastInFlightTracksWithSingleWrapper() throws SQLException {
+        Map<Object, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("master", h2("lb_master"));
+        dataSources.put("replica_0", h2("lb_replica_0"));
+        dataSources.put("replica_1", h2("lb_replica_1"));
+        DynamicDataSource dynamicDataSource = new DynamicDataSource(dataSources);
+        LeastInFlightReplicaLoadBalancer loadBalancer = new LeastInFlightReplicaLoadBalancer();
+        dynamicDataSource.setReadReplicas(Arrays.asList("replica_0", "replica_1"), loadBalancer);
+        OrmContextHolder.currentContext().setReadRoute(true);
+
+        Connection first = dynamicDataSource.getConnection();
+        assertTrue(first instanceof TrackedConnection);
+        assertFalse(((TrackedConnection) first).getDelegate() instanceof TrackedConnection);
+        Object firstReplica = loadBalancer.getInFlight("replica_0") == 1 ? "replica_0" : "replica_1";
+        assertEquals(1, loadBalancer.getInFlight(firstReplica));
+        assertEquals(1, dynamicDataSource.getActiveConnections(firstReplica));
+
+        //第一个从库有正在使用的连接时，第二个连接选择另一个从库
+        Connection second = dynamicDataSource.getConnection();
+        assertEquals(1, loadBalancer.getInFlight("replica_0"));
+        assertEquals(1, loadBalancer.getInFlight("replica_1"));
+
+        first.close();
+        //重复关闭不会重复减少计数
+        first.close();
+        assertEquals(0, loadBalancer.getInFlight(firstReplica));
+        assertEquals(0, dynamicDataSource.getActiveConnections(firstReplica));
+        second.close();
+        assertEquals(0, loadBalancer.getInFlight("replica_0"));
+        assertEquals(0, loadBalancer.getInFlight("replica_1"));
+        assertEquals(0, dynamicDataSource.getActiveConnections("master"));
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
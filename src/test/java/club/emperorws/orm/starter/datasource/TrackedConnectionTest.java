@@ -0,0 +1,118 @@
+package club.emperorws.orm.starter.datasource;
+
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事务剩余时间转换为查询超时的测试（H2内存数据库）：创建语句和每次执行前按剩余时间设置查询超时，已经超时时不再执行
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 20:00
+ * @description: TrackedConnectionTest: 事务剩余时间转换为查询超时测试
+ */
+@Tag("事务超时测试")
+@DisplayName("事务剩余时间转换为查询超时测试")
+public class TrackedConnectionTest {
+
+    private static final String URL = "jdbc:h2:mem:tracked_connection;DB_CLOSE_DELAY=-1";
+
+    private static final String SELECT = "select id from t_tracked_connection where id > ?";
+
+    private TrackedConnection connection;
+
+    private int closeCount;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = new TrackedConnection(DriverManager.getConnection(URL), () -> closeCount++);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists t_tracked_connection (id int primary key)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        OrmContextHolder.bindContext(null);
+        connection.close();
+        assertEquals(1, closeCount);
+    }
+
+    @DisplayName("没有事务超时时不包装语句，也不设置查询超时")
+    @Test
+    public void noDeadline() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            assertFalse(statement instanceof DelegatingPreparedStatement);
+            assertEquals(0, statement.getQueryTimeout());
+        }
+    }
+
+    @DisplayName("创建语句时把剩余时间向上取整为秒作为查询超时")
+    @Test
+    public void remainingTimeRoundsUpToSeconds() throws SQLException {
+        deadlineAfter(TimeUnit.MILLISECONDS.toNanos(10_500));
+        try (PreparedStatement statement = connection.prepareStatement(SELECT);
+             Statement plain = connection.createStatement()) {
+            assertTrue(statement instanceof DelegatingPreparedStatement);
+            assertEquals(11, statement.getQueryTimeout());
+            assertEquals(11, plain.getQueryTimeout());
+        }
+    }
+
+    @DisplayName("每次执行前按剩余时间重新设置查询超时")
+    @Test
+    public void timeoutIsRefreshedBeforeExecute() throws SQLException {
+        deadlineAfter(TimeUnit.SECONDS.toNanos(30));
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            assertEquals(30, statement.getQueryTimeout());
+            deadlineAfter(TimeUnit.MILLISECONDS.toNanos(2_500));
+            statement.setInt(1, 0);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertFalse(resultSet.next());
+            }
+            assertEquals(3, statement.getQueryTimeout());
+        }
+    }
+
+    @DisplayName("事务已经超时时不再创建和执行语句")
+    @Test
+    public void expiredDeadlineFailsFast() throws SQLException {
+        deadlineAfter(TimeUnit.SECONDS.toNanos(30));
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            deadlineAfter(-1);
+            statement.setInt(1, 0);
+            assertThrows(SQLTimeoutException.class, statement::executeQuery);
+            assertThrows(SQLTimeoutException.class, () -> connection.prepareStatement(SELECT));
+        }
+    }
+
+    @DisplayName("创建语句时应用上下文中的fetchSize")
+    @Test
+    public void fetchSizeHintIsApplied() throws SQLException {
+        OrmContextHolder.currentContext().setFetchSize(64);
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            assertEquals(64, statement.getFetchSize());
+        }
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static void deadlineAfter(long nanos) {
+        OrmContext context = OrmContextHolder.currentContext();
+        context.setDeadline(System.nanoTime() + nanos);
+    }
+}
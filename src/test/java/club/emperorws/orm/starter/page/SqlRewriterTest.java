@@ -0,0 +1,76 @@
+package club.emperorws.orm.starter.page;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分页sql改写的测试
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 14:40
+ * @description: SqlRewriterTest: 分页sql改写测试
+ */
+@Tag("分页测试")
+@DisplayName("分页sql改写测试")
+public class SqlRewriterTest {
+
+    @DisplayName("去掉最外层的order by")
+    @Test
+    public void removeOrderBy() {
+        assertEquals("select * from t_order where status = 1", SqlRewriter.removeOrderBy("select * from t_order where status = 1 order by id desc"));
+        assertEquals("select * from t_order", SqlRewriter.removeOrderBy("select * from t_order\nORDER\tBY id"));
+    }
+
+    @DisplayName("没有order by时不改写")
+    @Test
+    public void removeOrderByWithoutOrderBy() {
+        String sql = "select * from t_order where status = 1";
+        assertSame(sql, SqlRewriter.removeOrderBy(sql));
+    }
+
+    @DisplayName("子查询、字符串中的order by不改写")
+    @Test
+    public void removeOrderByKeepsNested() {
+        String subQuery = "select * from (select * from t_order order by id limit 10) t";
+        assertEquals(subQuery, SqlRewriter.removeOrderBy(subQuery));
+        String literal = "select * from t_order where remark = 'order by id'";
+        assertEquals(literal, SqlRewriter.removeOrderBy(literal));
+        assertEquals("select * from (select * from t_order order by id limit 10) t",
+                SqlRewriter.removeOrderBy("select * from (select * from t_order order by id limit 10) t order by t.id"));
+    }
+
+    @DisplayName("order by之后有limit时不改写")
+    @Test
+    public void removeOrderByKeepsLimit() {
+        String sql = "select * from t_order order by id limit 10";
+        assertEquals(sql, SqlRewriter.removeOrderBy(sql));
+        //limit等关键字前后可以是换行、制表符
+        String newline = "select * from t_order order by id\nlimit 10";
+        assertEquals(newline, SqlRewriter.removeOrderBy(newline));
+        String tab = "select * from t_order order by id\tLIMIT\t10";
+        assertEquals(tab, SqlRewriter.removeOrderBy(tab));
+        String fetch = "select * from t_order order by id\noffset 10 rows\nfetch next 10 rows only";
+        assertEquals(fetch, SqlRewriter.removeOrderBy(fetch));
+        String limitParameter = "select * from t_order order by id limit\n?";
+        assertEquals(limitParameter, SqlRewriter.removeOrderBy(limitParameter));
+        //子查询中的limit不影响最外层order by的去除
+        assertEquals("select * from t_order",
+                SqlRewriter.removeOrderBy("select * from t_order order by (select max(id) from t_item limit 1)"));
+    }
+
+    @DisplayName("最外层关键字最后一次出现的位置")
+    @Test
+    public void lastTopLevelIndexOf() {
+        String sql = "select * from a where x in (select y from b order by y) order by x";
+        assertEquals(sql.lastIndexOf("order by"), SqlRewriter.lastTopLevelIndexOf(sql, "order by"));
+        assertEquals(-1, SqlRewriter.lastTopLevelIndexOf("select * from (select * from b order by y) t", "order by"));
+        assertEquals(-1, SqlRewriter.lastTopLevelIndexOf("select 'order by' from t", "order by"));
+        //关键字需要是完整的单词
+        assertEquals(-1, SqlRewriter.lastTopLevelIndexOf("select reorder by_x from t", "order by"));
+        assertEquals(9, SqlRewriter.lastTopLevelIndexOf("select a ORDER   BY a", "order by"));
+        assertEquals(9, SqlRewriter.lastTopLevelIndexOf("select a\nORDER\r\n\tBY a", "order by"));
+    }
+}
@@ -0,0 +1,85 @@
+package club.emperorws.orm.starter.scan;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 主键区间切分与区间sql的测试
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 14:30
+ * @description: TableScannerTest: 主键区间切分测试
+ */
+@Tag("并行扫描测试")
+@DisplayName("并行扫描测试")
+public class TableScannerTest {
+
+    @DisplayName("区间均匀切分且首尾相接")
+    @Test
+    public void splitEvenly() {
+        List<long[]> ranges = TableScanner.split(1, 100, 4);
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new long[]{1, 25}, ranges.get(0));
+        assertArrayEquals(new long[]{26, 50}, ranges.get(1));
+        assertArrayEquals(new long[]{51, 75}, ranges.get(2));
+        assertArrayEquals(new long[]{76, 100}, ranges.get(3));
+    }
+
+    @DisplayName("区间不能整除时覆盖全部主键")
+    @Test
+    public void splitCoversAllKeys() {
+        List<long[]> ranges = TableScanner.split(-7, 93, 6);
+        assertContiguous(ranges, -7, 93);
+        assertEquals(6, ranges.size());
+    }
+
+    @DisplayName("主键数少于子区间数时每个主键一个区间")
+    @Test
+    public void splitFewerKeysThanSplits() {
+        List<long[]> ranges = TableScanner.split(10, 12, 8);
+        assertEquals(3, ranges.size());
+        assertContiguous(ranges, 10, 12);
+    }
+
+    @DisplayName("只有一个主键")
+    @Test
+    public void splitSingleKey() {
+        List<long[]> ranges = TableScanner.split(5, 5, 4);
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{5, 5}, ranges.get(0));
+    }
+
+    @DisplayName("主键跨越整个long范围时不溢出")
+    @Test
+    public void splitWholeLongRange() {
+        List<long[]> ranges = TableScanner.split(Long.MIN_VALUE, Long.MAX_VALUE, 16);
+        assertContiguous(ranges, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @DisplayName("区间条件加在表的where条件上")
+    @Test
+    public void rangeSql() {
+        assertEquals("select * from t_order where id >= #{__scanLower} and id <= #{__scanUpper}",
+                TableScanner.rangeSql("t_order", "id", null));
+        assertEquals("select * from t_order where (status = #{status} or deleted = 1) and id >= #{__scanLower} and id <= #{__scanUpper}",
+                TableScanner.rangeSql("t_order", "id", "status = #{status} or deleted = 1"));
+    }
+
+    private static void assertContiguous(List<long[]> ranges, long min, long max) {
+        assertFalse(ranges.isEmpty());
+        assertEquals(min, ranges.get(0)[0]);
+        assertEquals(max, ranges.get(ranges.size() - 1)[1]);
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            assertTrue(range[0] <= range[1], "empty range " + range[0] + " - " + range[1]);
+            if (i > 0) {
+                assertEquals(ranges.get(i - 1)[1] + 1, range[0]);
+            }
+        }
+    }
+}
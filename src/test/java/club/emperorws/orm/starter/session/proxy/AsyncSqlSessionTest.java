@@ -0,0 +1,106 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.session.ExecutorType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步SqlSession的测试：未完成操作数的上限
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 18:55
+ * @description: AsyncSqlSessionTest: 异步SqlSession测试
+ */
+@Tag("异步测试")
+@DisplayName("异步SqlSession测试")
+public class AsyncSqlSessionTest {
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("未完成的操作达到上限时直接拒绝，操作完成后释放许可")
+    @Test
+    public void pendingOperationsAreBounded() throws Exception {
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(sqlSessionProxyBean, executor, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = asyncSqlSession.execute(sqlSession -> await(release));
+        CompletableFuture<Integer> second = asyncSqlSession.execute(sqlSession -> await(release));
+        assertEquals(2, asyncSqlSession.getPendingCount());
+
+        CompletableFuture<Integer> rejected = asyncSqlSession.execute(sqlSession -> 3);
+        assertTrue(rejected.isCompletedExceptionally());
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(2, asyncSqlSession.getPendingCount());
+
+        release.countDown();
+        assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(1), second.get(5, TimeUnit.SECONDS));
+        //许可在Future完成的回调中释放，可能晚于get返回
+        awaitNoPending(asyncSqlSession);
+        assertEquals(Integer.valueOf(9), asyncSqlSession.execute(sqlSession -> 9).get(5, TimeUnit.SECONDS));
+        awaitNoPending(asyncSqlSession);
+    }
+
+    @DisplayName("失败的操作同样释放许可")
+    @Test
+    public void failedOperationReleasesPermit() {
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(sqlSessionProxyBean, executor, 1);
+        CompletableFuture<Integer> failed = asyncSqlSession.execute(sqlSession -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThrows(CompletionException.class, failed::join);
+        awaitNoPending(asyncSqlSession);
+        assertEquals(Integer.valueOf(1), asyncSqlSession.execute(sqlSession -> 1).join());
+    }
+
+    @DisplayName("关闭后拒绝新的操作")
+    @Test
+    public void closedSessionRejects() {
+        AsyncSqlSession asyncSqlSession = new AsyncSqlSession(sqlSessionProxyBean, executor, 1);
+        asyncSqlSession.close();
+        CompletionException e = assertThrows(CompletionException.class, () -> asyncSqlSession.execute(sqlSession -> 1).join());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertFalse(executor.isShutdown());
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static void awaitNoPending(AsyncSqlSession asyncSqlSession) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (asyncSqlSession.getPendingCount() != 0) {
+            assertTrue(System.nanoTime() < deadline, "Permits were not released");
+            Thread.yield();
+        }
+    }
+
+    private static int await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return 1;
+    }
+}
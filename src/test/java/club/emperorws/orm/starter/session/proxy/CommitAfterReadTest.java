@@ -0,0 +1,78 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 只读调用省掉commit的测试：没有被事务管理的查询执行后不commit，并统计省掉的commit次数
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 19:40
+ * @description: CommitAfterReadTest: 只读调用省掉commit测试
+ */
+@Tag("SqlSession测试")
+@DisplayName("只读调用省掉commit测试")
+public class CommitAfterReadTest {
+
+    private static final SqlSource INSERT = new SqlSource.Builder("insert into t_user (id) values (#{id})").build();
+
+    private static final SqlSource SELECT = new SqlSource.Builder("select * from t_user where id = #{id}").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("没有被事务管理的查询不commit，写操作照常commit")
+    @Test
+    public void readsSkipCommit() {
+        assertEquals(Integer.valueOf(1), sqlSessionProxyBean.selectOne(SELECT, 1));
+        assertEquals(Arrays.asList(2), sqlSessionProxyBean.selectList(SELECT, 2));
+        assertEquals(2, sqlSessionProxyBean.getAvoidedCommitCount());
+        assertEquals(1, sqlSessionProxyBean.insert(INSERT, 3));
+        assertEquals(2, sqlSessionProxyBean.getAvoidedCommitCount());
+        assertEquals(Arrays.asList("open:SIMPLE", "select:1", "close",
+                "open:SIMPLE", "select:2", "close",
+                "open:SIMPLE", "insert:3", "commit", "close"), factory.getEvents());
+    }
+
+    @DisplayName("设置commitAfterRead后查询也commit，不计入省掉的次数")
+    @Test
+    public void commitAfterReadCommits() {
+        sqlSessionProxyBean.setCommitAfterRead(true);
+        sqlSessionProxyBean.selectOne(SELECT, 1);
+        assertEquals(0, sqlSessionProxyBean.getAvoidedCommitCount());
+        assertEquals(Arrays.asList("open:SIMPLE", "select:1", "commit", "close"), factory.getEvents());
+    }
+
+    @DisplayName("事务中的查询由事务提交，不计入省掉的次数")
+    @Test
+    public void transactionalReadsAreNotCounted() {
+        transactionManager.startTransaction(new TransactionDefinition());
+        try {
+            sqlSessionProxyBean.selectOne(SELECT, 1);
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(0, sqlSessionProxyBean.getAvoidedCommitCount());
+        assertEquals(Arrays.asList("open:SIMPLE", "select:1", "commit", "close"), factory.getEvents());
+    }
+}
@@ -0,0 +1,84 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式游标的测试：遍历结束、关闭游标、关闭Stream时释放SqlSession，且只释放一次
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 19:20
+ * @description: ManagedCursorTest: 流式游标测试
+ */
+@Tag("游标测试")
+@DisplayName("流式游标测试")
+public class ManagedCursorTest {
+
+    private static final SqlSource SELECT = new SqlSource.Builder("select * from t_user where id > #{id}").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("遍历结束时关闭游标并释放SqlSession")
+    @Test
+    public void releasesSessionOnExhaustion() throws Exception {
+        ManagedCursor<Object> cursor = sqlSessionProxyBean.selectStreamingCursor(SELECT, 0, SqlSessionProxyBean.STREAMING_FETCH_SIZE);
+        List<Object> rows = new ArrayList<>();
+        for (Object row : cursor) {
+            assertEquals(0, factory.getCloseCount());
+            rows.add(row);
+        }
+        assertEquals(Arrays.asList(1, 2, 3), rows);
+        assertEquals(Arrays.asList("open:SIMPLE", "select:0", "cursorClose", "close"), factory.getEvents());
+        assertFalse(cursor.isOpen());
+        //重复关闭不会再次释放
+        cursor.close();
+        assertEquals(1, factory.getCloseCount());
+    }
+
+    @DisplayName("提前关闭游标时释放SqlSession，之后的迭代器不再返回数据")
+    @Test
+    public void releasesSessionOnClose() throws Exception {
+        Iterator<Object> iterator;
+        try (ManagedCursor<Object> cursor = sqlSessionProxyBean.selectStreamingCursor(SELECT, 0, SqlSessionProxyBean.STREAMING_FETCH_SIZE)) {
+            iterator = cursor.iterator();
+            assertEquals(1, iterator.next());
+            assertEquals(0, factory.getCloseCount());
+        }
+        assertEquals(Arrays.asList("open:SIMPLE", "select:0", "cursorClose", "close"), factory.getEvents());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, factory.getCloseCount());
+    }
+
+    @DisplayName("关闭Stream时释放SqlSession")
+    @Test
+    public void releasesSessionOnStreamClose() {
+        try (Stream<Object> stream = sqlSessionProxyBean.selectStream(SELECT, 0, SqlSessionProxyBean.STREAMING_FETCH_SIZE)) {
+            assertEquals(Arrays.asList(1), stream.limit(1).collect(Collectors.toList()));
+            assertEquals(0, factory.getCloseCount());
+        }
+        assertEquals(Arrays.asList("open:SIMPLE", "select:0", "cursorClose", "close"), factory.getEvents());
+        assertEquals(1, factory.getOpenCount());
+        assertEquals(1, factory.getCloseCount());
+    }
+}
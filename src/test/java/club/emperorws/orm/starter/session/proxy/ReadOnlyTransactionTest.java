@@ -0,0 +1,86 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 只读事务的测试：只读事务中拒绝写操作，查询照常执行且不commit
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 19:50
+ * @description: ReadOnlyTransactionTest: 只读事务测试
+ */
+@Tag("事务测试")
+@DisplayName("只读事务测试")
+public class ReadOnlyTransactionTest {
+
+    private static final SqlSource INSERT = new SqlSource.Builder("insert into t_user (id) values (#{id})").build();
+
+    private static final SqlSource UPDATE = new SqlSource.Builder("update t_user set name = #{name} where id = #{id}").build();
+
+    private static final SqlSource DELETE = new SqlSource.Builder("delete from t_user where id = #{id}").build();
+
+    private static final SqlSource SELECT = new SqlSource.Builder("select * from t_user where id = #{id}").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("只读事务中的写操作直接抛出异常，不会执行")
+    @Test
+    public void writesAreRejected() {
+        transactionManager.startTransaction(TransactionDefinition.READ_ONLY);
+        try {
+            OrmException e = assertThrows(OrmException.class, () -> sqlSessionProxyBean.insert(INSERT, 1));
+            assertEquals("Cannot execute INSERT in a read-only transaction", e.getMessage());
+            assertThrows(OrmException.class, () -> sqlSessionProxyBean.update(UPDATE, 2));
+            assertThrows(OrmException.class, () -> sqlSessionProxyBean.delete(DELETE, 3));
+            assertEquals(Integer.valueOf(4), sqlSessionProxyBean.selectOne(SELECT, 4));
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        //只读事务没有需要提交的修改，不执行commit
+        assertEquals(Arrays.asList("open:SIMPLE", "select:4", "close"), factory.getEvents());
+    }
+
+    @DisplayName("只读事务结束后写操作恢复正常")
+    @Test
+    public void writesAllowedAfterReadOnlyTransaction() {
+        transactionManager.startTransaction(new TransactionDefinition().withReadOnly(true));
+        try {
+            assertThrows(OrmException.class, () -> sqlSessionProxyBean.insert(INSERT, 1));
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(1, sqlSessionProxyBean.insert(INSERT, 2));
+        assertEquals(Arrays.asList("open:SIMPLE", "insert:2", "commit", "close"), factory.getEvents());
+    }
+
+    @DisplayName("只读事务不能同时开启写缓冲")
+    @Test
+    public void readOnlyCannotBeWriteBehind() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionManager.startTransaction(new TransactionDefinition(true).withReadOnly(true)));
+        assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+    }
+}
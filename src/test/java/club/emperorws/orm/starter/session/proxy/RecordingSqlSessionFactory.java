@@ -0,0 +1,172 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.cursor.Cursor;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.session.SqlSessionFactory;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 记录SqlSession调用顺序的SqlSessionFactory，不连接数据库，用于测试SqlSessionProxyBean的执行流程
+ * <p>写操作返回1，查询返回参数本身，游标依次返回1、2、3；SqlSession的连接只记录保存点操作</p>
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 18:10
+ * @description: RecordingSqlSessionFactory: 记录调用顺序的SqlSessionFactory
+ */
+public class RecordingSqlSessionFactory {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    private final AtomicInteger closeCount = new AtomicInteger();
+
+    private final SqlSessionFactory sqlSessionFactory = (SqlSessionFactory) Proxy.newProxyInstance(SqlSessionFactory.class.getClassLoader(),
+            new Class<?>[]{SqlSessionFactory.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "openSession":
+                        openCount.incrementAndGet();
+                        events.add("open" + (args == null ? "" : ":" + args[0]));
+                        return openSqlSession();
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "RecordingSqlSessionFactory";
+                    default:
+                        return null;
+                }
+            });
+
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    /**
+     * 按调用顺序记录的事件，例如：open:BATCH、insert:1、flushStatements、commit、close
+     *
+     * @return 事件
+     */
+    public List<String> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    public void clearEvents() {
+        events.clear();
+    }
+
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    public int getCloseCount() {
+        return closeCount.get();
+    }
+
+    /*************************************************private function***************************************************/
+
+    private SqlSession openSqlSession() {
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setSavepoint":
+                    events.add("setSavepoint");
+                    return Proxy.newProxyInstance(Savepoint.class.getClassLoader(), new Class<?>[]{Savepoint.class}, (savepoint, m, a) -> null);
+                case "rollback":
+                    events.add(args == null ? "rollback" : "rollbackToSavepoint");
+                    return null;
+                case "releaseSavepoint":
+                    events.add("releaseSavepoint");
+                    return null;
+                case "getAutoCommit":
+                case "isClosed":
+                case "isReadOnly":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        });
+        return (SqlSession) Proxy.newProxyInstance(SqlSession.class.getClassLoader(), new Class<?>[]{SqlSession.class}, (proxy, method, args) -> {
+            String name = method.getName();
+            Object parameter = args != null && args.length > 1 ? args[1] : null;
+            switch (name) {
+                case "insert":
+                case "update":
+                case "delete":
+                    events.add(name + ":" + parameter);
+                    return 1;
+                case "selectOne":
+                    events.add("select:" + parameter);
+                    return parameter;
+                case "selectList":
+                    events.add("select:" + parameter);
+                    return Collections.singletonList(parameter);
+                case "selectCursor":
+                    events.add("select:" + parameter);
+                    return cursor(Arrays.asList(1, 2, 3));
+                case "select":
+                    events.add("select:" + parameter);
+                    return null;
+                case "flushStatements":
+                    events.add(name);
+                    return Collections.emptyList();
+                case "commit":
+                case "rollback":
+                    events.add(name);
+                    return null;
+                case "close":
+                    closeCount.incrementAndGet();
+                    events.add(name);
+                    return null;
+                case "getConnection":
+                    return connection;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "RecordingSqlSession@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cursor<Object> cursor(List<Object> rows) {
+        return (Cursor<Object>) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "iterator":
+                    return rows.iterator();
+                case "close":
+                    events.add("cursorClose");
+                    return null;
+                case "isOpen":
+                case "isConsumed":
+                    return false;
+                case "getCurrentIndex":
+                    return -1;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SqlSessionHolder复用的测试：复用后状态恢复为刚创建时，同一线程的下一个事务复用Holder和事务同步器
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 19:30
+ * @description: SqlSessionHolderTest: SqlSessionHolder复用测试
+ */
+@Tag("SqlSession测试")
+@DisplayName("SqlSessionHolder复用测试")
+public class SqlSessionHolderTest {
+
+    private static final SqlSource INSERT = new SqlSource.Builder("insert into t_user (id) values (#{id})").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("复用后清空引用计数、写缓冲、分片key和事务标记")
+    @Test
+    public void reuseResetsState() {
+        SqlSession first = factory.getSqlSessionFactory().openSession();
+        SqlSessionHolder holder = new SqlSessionHolder(first, ExecutorType.BATCH);
+        holder.setSynchronizedWithTransaction(true);
+        holder.setDataSourceKey("ds_1");
+        holder.bufferWrite(new PendingWrite(PendingWrite.Type.INSERT, INSERT, 1));
+        holder.requested();
+
+        SqlSession second = factory.getSqlSessionFactory().openSession();
+        holder.reuse(second, ExecutorType.SIMPLE);
+        assertSame(second, holder.getSqlSession());
+        assertEquals(ExecutorType.SIMPLE, holder.getExecutorType());
+        assertFalse(holder.isSynchronizedWithTransaction());
+        assertNull(holder.getDataSourceKey());
+        assertFalse(holder.hasPendingWrites());
+        assertFalse(holder.isOpen());
+        assertTrue(holder.drainFlushedResults().isEmpty());
+    }
+
+    @DisplayName("同一线程的下一个事务复用Holder，并且正常提交、关闭新的SqlSession")
+    @Test
+    public void nextTransactionReusesHolder() {
+        SqlSessionHolder first = insertInTransaction(1);
+        SqlSessionHolder second = insertInTransaction(2);
+        assertSame(first, second);
+        assertEquals(Arrays.asList("open:SIMPLE", "insert:1", "commit", "close",
+                "open:SIMPLE", "insert:2", "commit", "close"), factory.getEvents());
+        assertEquals(2, factory.getCloseCount());
+        assertNull(OrmContextHolder.getResource(factory.getSqlSessionFactory()));
+    }
+
+    @DisplayName("回滚的写缓冲事务留下的写操作不会带到下一个事务")
+    @Test
+    public void rolledBackWritesAreNotCarriedOver() {
+        transactionManager.startTransaction(new TransactionDefinition(true));
+        try {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        SqlSessionHolder holder = insertInTransaction(2);
+        assertFalse(holder.hasPendingWrites());
+        assertFalse(factory.getEvents().contains("insert:1"));
+        assertTrue(factory.getEvents().contains("insert:2"));
+    }
+
+    /*************************************************private function***************************************************/
+
+    private SqlSessionHolder insertInTransaction(int id) {
+        transactionManager.startTransaction(new TransactionDefinition());
+        try {
+            sqlSessionProxyBean.insert(INSERT, id);
+            SqlSessionHolder holder = (SqlSessionHolder) OrmContextHolder.getResource(factory.getSqlSessionFactory());
+            assertNotNull(holder);
+            assertTrue(holder.isSynchronizedWithTransaction());
+            transactionManager.commit();
+            return holder;
+        } finally {
+            transactionManager.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package club.emperorws.orm.starter.session.proxy;
+
+import club.emperorws.orm.mapping.SqlSource;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.starter.transaction.Propagation;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.proxy.TransactionManagerProxyBean;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 写缓冲事务的测试：写操作延迟执行，读取、创建保存点、提交前执行，回滚时丢弃
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 18:20
+ * @description: WriteBehindTest: 写缓冲测试
+ */
+@Tag("写缓冲测试")
+@DisplayName("写缓冲测试")
+public class WriteBehindTest {
+
+    private static final SqlSource INSERT = new SqlSource.Builder("insert into t_user (id) values (#{id})").build();
+
+    private static final SqlSource UPDATE = new SqlSource.Builder("update t_user set name = #{name} where id = #{id}").build();
+
+    private static final SqlSource SELECT = new SqlSource.Builder("select * from t_user where id = #{id}").build();
+
+    private final RecordingSqlSessionFactory factory = new RecordingSqlSessionFactory();
+
+    private final SqlSessionProxyBean sqlSessionProxyBean = new SqlSessionProxyBean(factory.getSqlSessionFactory(), ExecutorType.SIMPLE);
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("写操作延迟到提交前按顺序执行")
+    @Test
+    public void writesAreDeferredUntilCommit() {
+        transactionManager.startTransaction(new TransactionDefinition(true));
+        try {
+            assertEquals(Statement.SUCCESS_NO_INFO, sqlSessionProxyBean.insert(INSERT, 1));
+            assertEquals(Statement.SUCCESS_NO_INFO, sqlSessionProxyBean.update(UPDATE, 2));
+            assertEquals(Arrays.asList("open:BATCH"), factory.getEvents());
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList("open:BATCH", "insert:1", "update:2", "flushStatements", "commit", "close"), factory.getEvents());
+    }
+
+    @DisplayName("读取前先执行写缓冲，保证读到自己写入的数据")
+    @Test
+    public void pendingWritesAreFlushedBeforeRead() {
+        transactionManager.startTransaction(new TransactionDefinition(true));
+        try {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            assertEquals(Integer.valueOf(9), sqlSessionProxyBean.selectOne(SELECT, 9));
+            assertEquals(Arrays.asList("open:BATCH", "insert:1", "flushStatements", "select:9"), factory.getEvents());
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+    }
+
+    @DisplayName("创建保存点前先执行写缓冲，保证写操作在保存点之前")
+    @Test
+    public void pendingWritesAreFlushedBeforeSavepoint() {
+        transactionManager.startTransaction(new TransactionDefinition(true));
+        try {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED).withWriteBehind(true));
+            try {
+                assertEquals(Arrays.asList("open:BATCH", "insert:1", "flushStatements", "setSavepoint"), factory.getEvents());
+                sqlSessionProxyBean.insert(INSERT, 2);
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        //回滚到保存点时丢弃NESTED中还没执行的写操作
+        assertFalse(factory.getEvents().contains("insert:2"));
+        assertTrue(factory.getEvents().contains("rollbackToSavepoint"));
+    }
+
+    @DisplayName("回滚时丢弃写缓冲")
+    @Test
+    public void rollbackDiscardsPendingWrites() {
+        transactionManager.startTransaction(new TransactionDefinition(true));
+        try {
+            sqlSessionProxyBean.insert(INSERT, 1);
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList("open:BATCH", "rollback", "close"), factory.getEvents());
+    }
+}
@@ -0,0 +1,117 @@
+package club.emperorws.orm.starter.sharding;
+
+import club.emperorws.orm.exception.OrmException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片策略的测试：hash、取模、范围
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 16:50
+ * @description: ShardingStrategyTest: 分片策略测试
+ */
+@Tag("分片测试")
+@DisplayName("分片策略测试")
+public class ShardingStrategyTest {
+
+    private static final List<String> SHARDS = Arrays.asList("ds_0", "ds_1", "ds_2", "ds_3");
+
+    @DisplayName("murmur3与公开的测试向量一致（seed为0x9747b28c）")
+    @Test
+    public void murmur3KnownVectors() {
+        assertEquals(0x7FA09EA6, murmur3("a"));
+        assertEquals(0x74875592, murmur3("ab"));
+        assertEquals(0xC84A62DD, murmur3("abc"));
+        assertEquals(0xF0478627, murmur3("abcd"));
+        assertEquals(0x24884CBA, murmur3("Hello, world!"));
+        assertEquals(0xD58063C1, murmur3("ππππππππ"));
+        assertEquals(0x2FA826CD, murmur3("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @DisplayName("值相等的整数类型有相同的字节形式")
+    @Test
+    public void canonicalBytesOfIntegers() {
+        byte[] expected = {0, 0, 0, 0, 0, 0, 0, 42};
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes(42));
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes(42L));
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes((short) 42));
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes(BigInteger.valueOf(42)));
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes(new BigDecimal("42.00")));
+        assertArrayEquals(HashShardingStrategy.canonicalBytes(-1), HashShardingStrategy.canonicalBytes(BigInteger.valueOf(-1L)));
+        //超过long范围的BigInteger使用补码字节
+        BigInteger big = BigInteger.ONE.shiftLeft(64);
+        assertArrayEquals(big.toByteArray(), HashShardingStrategy.canonicalBytes(big));
+    }
+
+    @DisplayName("UUID、枚举、字符串的字节形式")
+    @Test
+    public void canonicalBytesOfOtherTypes() {
+        UUID uuid = UUID.fromString("00010203-0405-0607-0809-0a0b0c0d0e0f");
+        byte[] expected = new byte[16];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+        assertArrayEquals(expected, HashShardingStrategy.canonicalBytes(uuid));
+        assertArrayEquals("SECONDS".getBytes(StandardCharsets.UTF_8), HashShardingStrategy.canonicalBytes(TimeUnit.SECONDS));
+        assertArrayEquals("订单".getBytes(StandardCharsets.UTF_8), HashShardingStrategy.canonicalBytes(new StringBuilder("订单")));
+        assertThrows(OrmException.class, () -> HashShardingStrategy.canonicalBytes(new Object()));
+    }
+
+    @DisplayName("hash分片与分片键的数字类型无关，结果固定")
+    @Test
+    public void hashShardingIsStable() {
+        HashShardingStrategy strategy = new HashShardingStrategy();
+        String shard = strategy.doSharding(10086L, SHARDS);
+        assertEquals(shard, strategy.doSharding(10086, SHARDS));
+        assertEquals(shard, strategy.doSharding(BigInteger.valueOf(10086), SHARDS));
+        assertEquals(SHARDS.get(Math.floorMod(murmur3("Hello, world!"), SHARDS.size())), strategy.doSharding("Hello, world!", SHARDS));
+    }
+
+    @DisplayName("取模分片：负数、字符串数字、非数字")
+    @Test
+    public void moduloSharding() {
+        ModuloShardingStrategy strategy = new ModuloShardingStrategy();
+        assertEquals("ds_1", strategy.doSharding(5, SHARDS));
+        assertEquals("ds_1", strategy.doSharding("5", SHARDS));
+        //负数按floorMod取模，不会越界
+        assertEquals("ds_3", strategy.doSharding(-1L, SHARDS));
+        assertEquals("ds_0", strategy.doSharding(-4, SHARDS));
+        assertEquals("ds_0", strategy.doSharding(Long.MIN_VALUE, SHARDS));
+        assertThrows(OrmException.class, () -> strategy.doSharding("abc", SHARDS));
+        assertThrows(OrmException.class, () -> strategy.doSharding(new Object(), SHARDS));
+    }
+
+    @DisplayName("范围分片：下界包含、低于最小下界、类型不一致")
+    @Test
+    public void rangeSharding() {
+        RangeShardingStrategy strategy = new RangeShardingStrategy()
+                .addRange(0L, "order_0")
+                .addRange(10000L, "order_1");
+        assertEquals("order_0", strategy.doSharding(0L, SHARDS));
+        assertEquals("order_0", strategy.doSharding(9999L, SHARDS));
+        assertEquals("order_1", strategy.doSharding(10000L, SHARDS));
+        assertEquals("order_1", strategy.doSharding(Long.MAX_VALUE, SHARDS));
+        OrmException e = assertThrows(OrmException.class, () -> strategy.doSharding(-1L, SHARDS));
+        assertTrue(e.getMessage().contains("No shard range"));
+        assertThrows(OrmException.class, () -> strategy.doSharding("1", SHARDS));
+        assertThrows(OrmException.class, () -> strategy.doSharding(new Object(), SHARDS));
+    }
+
+    /*************************************************private function***************************************************/
+
+    private static int murmur3(String value) {
+        return HashShardingStrategy.murmur3(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,489 @@
+package club.emperorws.orm.starter.transaction.proxy;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.session.ExecutorType;
+import club.emperorws.orm.session.SqlSession;
+import club.emperorws.orm.session.SqlSessionFactory;
+import club.emperorws.orm.starter.transaction.Propagation;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.transaction.TransactionSynchronization;
+import club.emperorws.orm.starter.util.OrmContext;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import club.emperorws.orm.starter.util.SqlSessionUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事务传播行为、只能回滚标记、保存点的测试（H2内存数据库）
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 14:00
+ * @description: TransactionPropagationTest: 事务传播行为测试
+ */
+@Tag("事务传播测试")
+@DisplayName("事务传播行为测试")
+public class TransactionPropagationTest {
+
+    private static final String URL = "jdbc:h2:mem:propagation;DB_CLOSE_DELAY=-1";
+
+    /**
+     * 当前事务的连接在OrmContext中绑定的资源key
+     */
+    private static final Object CONNECTION_KEY = new Object();
+
+    /**
+     * 每个SqlSession一个H2连接的SqlSessionFactory，事务中的SqlSession由SqlSessionUtils注册到事务链
+     */
+    private static final SqlSessionFactory SESSION_FACTORY = sessionFactory();
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists t_propagation (id int primary key)");
+            statement.execute("delete from t_propagation");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("REQUIRED加入外层事务，由外层统一回滚")
+    @Test
+    public void requiredJoinsOuterTransaction() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            Connection outer = connection();
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.REQUIRED));
+            try {
+                assertSame(outer, connection());
+                insert(2);
+                transactionManager.commit();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            assertTrue(OrmContextHolder.lookupContext().isActualTransactionActive());
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Collections.emptyList(), ids());
+    }
+
+    @DisplayName("加入的事务回滚后，外层事务只能回滚")
+    @Test
+    public void requiredRollbackMarksOuterRollbackOnly() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.REQUIRED));
+            try {
+                insert(2);
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            OrmException e = assertThrows(OrmException.class, transactionManager::commit);
+            assertTrue(e.getMessage().contains("rollback-only"));
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Collections.emptyList(), ids());
+    }
+
+    @DisplayName("REQUIRES_NEW挂起外层事务，独立提交")
+    @Test
+    public void requiresNewCommitsIndependently() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            Connection outer = connection();
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.REQUIRES_NEW));
+            try {
+                assertNotSame(outer, connection());
+                insert(2);
+                transactionManager.commit();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            assertSame(outer, connection());
+            assertEquals(Collections.singletonList(2), ids());
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Collections.singletonList(2), ids());
+    }
+
+    @DisplayName("NESTED回滚到保存点，外层事务继续提交")
+    @Test
+    public void nestedRollbackToSavepoint() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED));
+            try {
+                insert(2);
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            insert(3);
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList(1, 3), ids());
+    }
+
+    @DisplayName("NESTED提交释放保存点，修改随外层事务提交")
+    @Test
+    public void nestedCommitReleasesSavepoint() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED));
+            try {
+                insert(2);
+                transactionManager.commit();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            assertEquals(Collections.emptyList(), ids());
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList(1, 2), ids());
+    }
+
+    @DisplayName("NOT_SUPPORTED挂起外层事务，在事务外执行")
+    @Test
+    public void notSupportedRunsWithoutTransaction() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NOT_SUPPORTED));
+            try {
+                assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+                insert(2);
+                //事务外的回滚不影响外层事务
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            assertTrue(OrmContextHolder.lookupContext().isActualTransactionActive());
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Collections.singletonList(2), ids());
+        assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+    }
+
+    @DisplayName("NESTED中加入的事务回滚，只把NESTED回滚到保存点，外层事务继续提交")
+    @Test
+    public void requiredRollbackInsideNestedRollsBackToSavepoint() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insertWithSqlSession(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED));
+            try {
+                insertWithSqlSession(2);
+                transactionManager.startTransaction(new TransactionDefinition(Propagation.REQUIRED));
+                try {
+                    insertWithSqlSession(3);
+                    transactionManager.rollback();
+                } finally {
+                    transactionManager.endTransaction();
+                }
+                OrmException e = assertThrows(OrmException.class, transactionManager::commit);
+                assertTrue(e.getMessage().contains("rollback-only"));
+            } finally {
+                transactionManager.endTransaction();
+            }
+            insertWithSqlSession(4);
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList(1, 4), ids());
+    }
+
+    @DisplayName("NESTED中加入的事务回滚后NESTED也回滚，外层事务不受影响")
+    @Test
+    public void nestedRollbackClearsRollbackOnly() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insertWithSqlSession(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED));
+            try {
+                insertWithSqlSession(2);
+                transactionManager.startTransaction(new TransactionDefinition(Propagation.REQUIRED));
+                try {
+                    transactionManager.rollback();
+                } finally {
+                    transactionManager.endTransaction();
+                }
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Collections.singletonList(1), ids());
+    }
+
+    @DisplayName("NESTED中才开启的SqlSession，回滚时整体回滚")
+    @Test
+    public void sqlSessionOpenedInsideNestedRollsBackEntirely() throws SQLException {
+        transactionManager.startTransaction();
+        try {
+            insert(1);
+            transactionManager.startTransaction(new TransactionDefinition(Propagation.NESTED));
+            try {
+                insertWithSqlSession(2);
+                transactionManager.rollback();
+            } finally {
+                transactionManager.endTransaction();
+            }
+            insertWithSqlSession(3);
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(Arrays.asList(1, 3), ids());
+    }
+
+    /*************************************************private function***************************************************/
+
+    /**
+     * 当前事务的连接，第一次使用时注册到事务链；没有事务时返回null
+     */
+    private static Connection connection() throws SQLException {
+        OrmContext context = OrmContextHolder.currentContext();
+        if (!context.isActualTransactionActive()) {
+            return null;
+        }
+        JdbcSynchronization synchronization = (JdbcSynchronization) context.getResource(CONNECTION_KEY);
+        if (synchronization == null) {
+            Connection connection = DriverManager.getConnection(URL);
+            connection.setAutoCommit(false);
+            synchronization = new JdbcSynchronization(connection);
+            context.bindResource(CONNECTION_KEY, synchronization);
+            context.registerSynchronization(synchronization);
+        }
+        return synchronization.connection;
+    }
+
+    private static void insert(int id) throws SQLException {
+        Connection connection = connection();
+        if (connection == null) {
+            try (Connection autoCommit = DriverManager.getConnection(URL)) {
+                insert(autoCommit, id);
+            }
+        } else {
+            insert(connection, id);
+        }
+    }
+
+    private static void insert(Connection connection, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("insert into t_propagation (id) values (?)")) {
+            statement.setInt(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 在当前事务的SqlSession上插入，SqlSession第一次使用时由SqlSessionUtils注册到事务链
+     */
+    private static void insertWithSqlSession(int id) throws SQLException {
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(SESSION_FACTORY, ExecutorType.SIMPLE);
+        try {
+            insert(sqlSession.getConnection(), id);
+        } finally {
+            SqlSessionUtils.closeSqlSession(sqlSession, SESSION_FACTORY);
+        }
+    }
+
+    private static SqlSessionFactory sessionFactory() {
+        return (SqlSessionFactory) Proxy.newProxyInstance(SqlSessionFactory.class.getClassLoader(), new Class<?>[]{SqlSessionFactory.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "openSession":
+                    return openSqlSession();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "H2SqlSessionFactory";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 只实现事务与保存点用到的方法的SqlSession
+     */
+    private static SqlSession openSqlSession() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL);
+        connection.setAutoCommit(false);
+        return (SqlSession) Proxy.newProxyInstance(SqlSession.class.getClassLoader(), new Class<?>[]{SqlSession.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "flushStatements":
+                    return Collections.emptyList();
+                case "commit":
+                case "rollback":
+                case "close":
+                    try {
+                        Connection.class.getMethod(method.getName()).invoke(connection);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "H2SqlSession[" + connection + "]";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 在新连接上查询已经提交的id
+     */
+    private static List<Integer> ids() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(URL);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select id from t_propagation order by id")) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /*************************************************inner class***************************************************/
+
+    /**
+     * 一个事务一个JDBC连接的同步器
+     */
+    private static final class JdbcSynchronization implements TransactionSynchronization {
+
+        private final Connection connection;
+
+        private JdbcSynchronization(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+
+        @Override
+        public Object createSavepoint() {
+            try {
+                return connection.setSavepoint();
+            } catch (SQLException e) {
+                throw new OrmException("Create savepoint error", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) {
+            try {
+                if (savepoint == null) {
+                    connection.rollback();
+                } else {
+                    connection.rollback((Savepoint) savepoint);
+                }
+            } catch (SQLException e) {
+                throw new OrmException("Rollback to savepoint error", e);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) {
+            try {
+                if (savepoint != null) {
+                    connection.releaseSavepoint((Savepoint) savepoint);
+                }
+            } catch (SQLException e) {
+                throw new OrmException("Release savepoint error", e);
+            }
+        }
+
+        @Override
+        public void commit() {
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                throw new OrmException("Commit error", e);
+            }
+        }
+
+        @Override
+        public void commit(boolean force) {
+            commit();
+        }
+
+        @Override
+        public void rollback() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                throw new OrmException("Rollback error", e);
+            }
+        }
+
+        @Override
+        public void rollback(boolean force) {
+            rollback();
+        }
+
+        @Override
+        public void close() {
+            OrmContextHolder.currentContext().unbindResource(CONNECTION_KEY);
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new OrmException("Close connection error", e);
+            }
+        }
+    }
+}
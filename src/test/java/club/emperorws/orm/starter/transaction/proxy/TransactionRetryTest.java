@@ -0,0 +1,170 @@
+package club.emperorws.orm.starter.transaction.proxy;
+
+import club.emperorws.orm.exception.OrmException;
+import club.emperorws.orm.starter.transaction.Propagation;
+import club.emperorws.orm.starter.transaction.TransactionDefinition;
+import club.emperorws.orm.starter.util.OrmContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事务重试的测试：可重试异常的判断、重试次数与统计
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 14:20
+ * @description: TransactionRetryTest: 事务重试测试
+ */
+@Tag("事务重试测试")
+@DisplayName("事务重试测试")
+public class TransactionRetryTest {
+
+    private final TransactionManagerProxyBean transactionManager = TransactionManagerProxyBean.me();
+
+    private int maxRetries;
+
+    @BeforeEach
+    void setUp() {
+        maxRetries = transactionManager.getMaxRetries();
+        transactionManager.setRetryBackoff(1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionManager.setMaxRetries(maxRetries);
+        transactionManager.setRetryBackoff(20, 1000);
+        OrmContextHolder.bindContext(null);
+    }
+
+    @DisplayName("死锁、锁等待超时、序列化失败可以重试")
+    @Test
+    public void isRetryable() {
+        assertTrue(TransactionManagerProxyBean.isRetryable(new SQLTransactionRollbackException("deadlock")));
+        assertTrue(TransactionManagerProxyBean.isRetryable(new SQLException("serialization failure", "40001")));
+        assertTrue(TransactionManagerProxyBean.isRetryable(new SQLException("deadlock detected", "40P01")));
+        assertTrue(TransactionManagerProxyBean.isRetryable(new SQLException("Deadlock found", "HY000", 1213)));
+        assertTrue(TransactionManagerProxyBean.isRetryable(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        //包装在其他异常中
+        assertTrue(TransactionManagerProxyBean.isRetryable(new OrmException("update error", new SQLException("deadlock", "40001"))));
+
+        assertFalse(TransactionManagerProxyBean.isRetryable(new SQLException("Duplicate entry", "23000", 1062)));
+        assertFalse(TransactionManagerProxyBean.isRetryable(new OrmException("update error")));
+        assertFalse(TransactionManagerProxyBean.isRetryable(null));
+    }
+
+    @DisplayName("可重试异常重试后成功")
+    @Test
+    public void retrySucceeds() {
+        transactionManager.setMaxRetries(3);
+        long retries = transactionManager.getRetryCount();
+        long successes = transactionManager.getRetrySuccessCount();
+        AtomicInteger attempts = new AtomicInteger();
+        String result = transactionManager.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw deadlock();
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(retries + 2, transactionManager.getRetryCount());
+        assertEquals(successes + 1, transactionManager.getRetrySuccessCount());
+        assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+    }
+
+    @DisplayName("用完重试次数后抛出最后一次的异常")
+    @Test
+    public void retryExhausted() {
+        transactionManager.setMaxRetries(2);
+        long retries = transactionManager.getRetryCount();
+        long exhausted = transactionManager.getRetryExhaustedCount();
+        AtomicInteger attempts = new AtomicInteger();
+        OrmException e = assertThrows(OrmException.class, () -> transactionManager.execute(() -> {
+            attempts.incrementAndGet();
+            throw deadlock();
+        }));
+        assertTrue(TransactionManagerProxyBean.isRetryable(e));
+        assertEquals(3, attempts.get());
+        assertEquals(retries + 2, transactionManager.getRetryCount());
+        assertEquals(exhausted + 1, transactionManager.getRetryExhaustedCount());
+    }
+
+    @DisplayName("不可重试的异常直接抛出")
+    @Test
+    public void nonRetryableFailsImmediately() {
+        long retries = transactionManager.getRetryCount();
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> transactionManager.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("business error");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(retries, transactionManager.getRetryCount());
+    }
+
+    @DisplayName("加入外层事务时不重试")
+    @Test
+    public void joinedTransactionIsNotRetried() {
+        transactionManager.setMaxRetries(3);
+        AtomicInteger attempts = new AtomicInteger();
+        transactionManager.startTransaction();
+        try {
+            assertThrows(OrmException.class, () -> transactionManager.execute(() -> {
+                attempts.incrementAndGet();
+                throw deadlock();
+            }));
+            transactionManager.rollback();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @DisplayName("NOT_SUPPORTED在事务外执行，语句已经自动提交，不重试")
+    @Test
+    public void notSupportedIsNotRetried() {
+        transactionManager.setMaxRetries(3);
+        long retries = transactionManager.getRetryCount();
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(OrmException.class, () -> transactionManager.execute(new TransactionDefinition(Propagation.NOT_SUPPORTED), () -> {
+            attempts.incrementAndGet();
+            assertFalse(OrmContextHolder.lookupContext().isActualTransactionActive());
+            throw deadlock();
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(retries, transactionManager.getRetryCount());
+    }
+
+    @DisplayName("REQUIRES_NEW在外层事务中开启新事务，可以重试")
+    @Test
+    public void requiresNewIsRetried() {
+        transactionManager.setMaxRetries(3);
+        AtomicInteger attempts = new AtomicInteger();
+        transactionManager.startTransaction();
+        try {
+            String result = transactionManager.execute(new TransactionDefinition(Propagation.REQUIRES_NEW), () -> {
+                if (attempts.incrementAndGet() < 2) {
+                    throw deadlock();
+                }
+                return "ok";
+            });
+            assertEquals("ok", result);
+            transactionManager.commit();
+        } finally {
+            transactionManager.endTransaction();
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    private static OrmException deadlock() {
+        return new OrmException("update error", new SQLException("Deadlock found when trying to get lock", "40001", 1213));
+    }
+}
@@ -0,0 +1,84 @@
+package club.emperorws.orm.starter.util;
+
+import club.emperorws.orm.mapping.SqlSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SqlSource缓存的测试：命中统计、CLOCK淘汰顺序、容量上限
+ *
+ * @author: EmperorWS
+ * @date: 2026/10/18 17:30
+ * @description: SqlSourceCacheTest: SqlSource缓存测试
+ */
+@Tag("SqlSource缓存测试")
+@DisplayName("SqlSource缓存测试")
+public class SqlSourceCacheTest {
+
+    private static final String A = "select * from t_a where id = #{id}";
+
+    private static final String B = "select * from t_b where id = #{id}";
+
+    private static final String C = "select * from t_c where id = #{id}";
+
+    private static final String D = "select * from t_d where id = #{id}";
+
+    @DisplayName("命中时返回同一个SqlSource，并统计命中、未命中")
+    @Test
+    public void hitAndMissCounts() {
+        SqlSourceCache cache = new SqlSourceCache(4);
+        assertEquals(0D, cache.getHitRate());
+        SqlSource first = cache.get(A);
+        assertSame(first, cache.get(A));
+        assertSame(first, cache.get(A));
+        cache.get(B);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0.5D, cache.getHitRate());
+        assertEquals(2, cache.size());
+    }
+
+    @DisplayName("被访问过的sql保留一轮，淘汰指针经过的第一个没有访问过的sql")
+    @Test
+    public void secondChanceEvictionOrder() {
+        SqlSourceCache cache = new SqlSourceCache(3);
+        cache.get(A);
+        cache.get(B);
+        cache.get(C);
+        //A被访问过，指针经过A时清除标记，淘汰B
+        cache.get(A);
+        cache.get(D);
+        assertEquals(1, cache.getEvictionCount());
+        long misses = cache.getMissCount();
+        cache.get(C);
+        cache.get(A);
+        assertEquals(misses, cache.getMissCount());
+
+        //C、A刚被访问过，指针从C开始转动，清除C、A的标记后淘汰D
+        cache.get(B);
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+        cache.get(D);
+        assertEquals(misses + 2, cache.getMissCount());
+    }
+
+    @DisplayName("缓存大小不超过容量")
+    @Test
+    public void sizeIsBounded() {
+        SqlSourceCache cache = new SqlSourceCache(8);
+        for (int i = 0; i < 100; i++) {
+            cache.get("select * from t_order where id = " + i);
+            assertTrue(cache.size() <= 8);
+        }
+        assertEquals(8, cache.size());
+        assertEquals(92, cache.getEvictionCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.get(A);
+        assertEquals(1, cache.size());
+    }
+}